@@ -0,0 +1,28 @@
+package io.nyris.sdk
+
+/**
+ * BulkheadConfig.kt - configuration of the request pools of the interactive and the background calls.
+ * Each pool has its own dispatcher and threads, so a burst of background calls like feedback events never
+ * delays an interactive match. The instances with the same base client share the request pools, the first
+ * instance sets their limits.
+ *
+ * @param interactiveMaxRequests the maximum number of concurrent interactive calls
+ * @param interactiveMaxRequestsPerHost the maximum number of concurrent interactive calls to one host
+ * @param backgroundMaxRequests the maximum number of concurrent background calls
+ * @param backgroundMaxRequestsPerHost the maximum number of concurrent background calls to one host
+ *
+ * @see RequestPriority
+ */
+class BulkheadConfig @JvmOverloads constructor(
+    var interactiveMaxRequests: Int = INTERACTIVE_MAX_REQUESTS,
+    var interactiveMaxRequestsPerHost: Int = INTERACTIVE_MAX_REQUESTS_PER_HOST,
+    var backgroundMaxRequests: Int = BACKGROUND_MAX_REQUESTS,
+    var backgroundMaxRequestsPerHost: Int = BACKGROUND_MAX_REQUESTS_PER_HOST,
+) {
+    internal companion object {
+        const val INTERACTIVE_MAX_REQUESTS = 16
+        const val INTERACTIVE_MAX_REQUESTS_PER_HOST = 8
+        const val BACKGROUND_MAX_REQUESTS = 4
+        const val BACKGROUND_MAX_REQUESTS_PER_HOST = 2
+    }
+}
@@ -0,0 +1,52 @@
+package io.nyris.sdk
+
+/**
+ * CircuitBreakerConfig.kt - configuration of the circuit breakers of the endpoints.
+ * Each endpoint has its own circuit. It opens when the failed or the slow calls of its recent calls reach
+ * their threshold, the calls then fail fast until the open duration elapsed. A few probe calls are then
+ * allowed, they close the circuit when they all succeed and open it again otherwise.
+ *
+ * @param failureRateThreshold the ratio of failed calls that opens the circuit, the IO errors and the 5xx
+ * responses are failures
+ * @param slowCallRateThreshold the ratio of slow calls that opens the circuit
+ * @param slowCallDurationMillis the duration in milliseconds from which a call is slow
+ * @param windowSize the number of recent calls the rates are computed on
+ * @param minimumCalls the number of recorded calls needed before the circuit can open
+ * @param openDurationMillis the time in milliseconds the circuit stays open before the probe calls
+ * @param halfOpenProbes the number of probe calls allowed while the circuit is half open
+ * @param listener the listener notified of the state changes of the circuits
+ */
+class CircuitBreakerConfig @JvmOverloads constructor(
+    var failureRateThreshold: Double = FAILURE_RATE_THRESHOLD,
+    var slowCallRateThreshold: Double = SLOW_CALL_RATE_THRESHOLD,
+    var slowCallDurationMillis: Long = SLOW_CALL_DURATION_MILLIS,
+    var windowSize: Int = WINDOW_SIZE,
+    var minimumCalls: Int = MINIMUM_CALLS,
+    var openDurationMillis: Long = OPEN_DURATION_MILLIS,
+    var halfOpenProbes: Int = HALF_OPEN_PROBES,
+    var listener: CircuitBreakerListener? = null,
+) {
+    internal companion object {
+        const val FAILURE_RATE_THRESHOLD = 0.5
+        const val SLOW_CALL_RATE_THRESHOLD = 0.5
+        const val SLOW_CALL_DURATION_MILLIS = 5L * 1000
+        const val WINDOW_SIZE = 20
+        const val MINIMUM_CALLS = 10
+        const val OPEN_DURATION_MILLIS = 30L * 1000
+        const val HALF_OPEN_PROBES = 3
+    }
+}
+
+/**
+ * CircuitBreakerListener.kt - listener notified when the circuit of an endpoint changes its state.
+ */
+fun interface CircuitBreakerListener {
+    /**
+     * On State Changed
+     *
+     * @param endpoint the endpoint of the circuit
+     * @param from the previous state
+     * @param to the new state
+     */
+    fun onStateChanged(endpoint: ApiEndpoint, from: CircuitState, to: CircuitState)
+}
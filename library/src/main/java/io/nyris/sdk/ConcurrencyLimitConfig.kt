@@ -0,0 +1,36 @@
+package io.nyris.sdk
+
+/**
+ * ConcurrencyLimitConfig.kt - configuration of the adaptive limit of the concurrent calls of each endpoint.
+ * The limit grows by one every round trip while the calls keep their usual round trip time, and shrinks
+ * when the round trip time grows past the tolerance or the backend is overloaded. The calls over the limit
+ * wait in a bounded queue.
+ *
+ * @param initialLimit the number of concurrent calls allowed before any round trip time is measured
+ * @param minLimit the minimum number of concurrent calls
+ * @param maxLimit the maximum number of concurrent calls
+ * @param backoffRatio the factor applied to the limit when it shrinks
+ * @param rttToleranceRatio the ratio of the round trip time to the usual one from which the network is
+ * congested
+ * @param maxQueueSize the number of calls that can wait for a slot, the next calls are rejected
+ * @param maxQueueWaitMillis the time in milliseconds a call can wait for a slot before it is rejected
+ */
+class ConcurrencyLimitConfig @JvmOverloads constructor(
+    var initialLimit: Int = INITIAL_LIMIT,
+    var minLimit: Int = MIN_LIMIT,
+    var maxLimit: Int = MAX_LIMIT,
+    var backoffRatio: Double = BACKOFF_RATIO,
+    var rttToleranceRatio: Double = RTT_TOLERANCE_RATIO,
+    var maxQueueSize: Int = MAX_QUEUE_SIZE,
+    var maxQueueWaitMillis: Long = MAX_QUEUE_WAIT_MILLIS,
+) {
+    internal companion object {
+        const val INITIAL_LIMIT = 4
+        const val MIN_LIMIT = 1
+        const val MAX_LIMIT = 16
+        const val BACKOFF_RATIO = 0.9
+        const val RTT_TOLERANCE_RATIO = 2.0
+        const val MAX_QUEUE_SIZE = 32
+        const val MAX_QUEUE_WAIT_MILLIS = 10L * 1000
+    }
+}
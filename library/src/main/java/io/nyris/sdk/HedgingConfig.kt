@@ -0,0 +1,29 @@
+package io.nyris.sdk
+
+/**
+ * HedgingConfig.kt - configuration of the hedged requests of image matching, text search and similarity.
+ * When no response arrived after the hedging delay, an identical request is sent on another connection,
+ * the first response wins and the other request is cancelled.
+ *
+ * @param delayMillis the fixed hedging delay in milliseconds, null to use the 95th percentile of the
+ * observed latencies
+ * @param initialDelayMillis the hedging delay in milliseconds until enough latencies are observed
+ * @param minDelayMillis the minimum hedging delay in milliseconds
+ * @param minSamples the number of observed latencies needed to use their 95th percentile
+ * @param maxExtraLoadRatio the number of hedged requests allowed per request, 0.05 allows one hedged
+ * request per 20 requests
+ */
+class HedgingConfig @JvmOverloads constructor(
+    var delayMillis: Long? = null,
+    var initialDelayMillis: Long = INITIAL_DELAY_MILLIS,
+    var minDelayMillis: Long = MIN_DELAY_MILLIS,
+    var minSamples: Int = MIN_SAMPLES,
+    var maxExtraLoadRatio: Double = MAX_EXTRA_LOAD_RATIO,
+) {
+    internal companion object {
+        const val INITIAL_DELAY_MILLIS = 1000L
+        const val MIN_DELAY_MILLIS = 50L
+        const val MIN_SAMPLES = 20
+        const val MAX_EXTRA_LOAD_RATIO = 0.05
+    }
+}
@@ -0,0 +1,36 @@
+package io.nyris.sdk
+
+/**
+ * ImagePreprocessingConfig.kt - configuration of the on-device image downscale and re-encode stage
+ * that runs before the image is uploaded to the image matching and regions endpoints.
+ *
+ * @param maxEdgeLength the maximum length in pixels of the longest image edge
+ * @param jpegQuality the JPEG quality used to re-encode the image, between 0-100
+ * @param applyExifOrientation rotate the pixels based on the EXIF orientation tag, when disabled the
+ * tag is kept in the re-encoded image
+ * @param listener the listener notified with the uploaded bytes saved by the preprocessing
+ */
+class ImagePreprocessingConfig @JvmOverloads constructor(
+    var maxEdgeLength: Int = MAX_EDGE_LENGTH,
+    var jpegQuality: Int = JPEG_QUALITY,
+    var applyExifOrientation: Boolean = true,
+    var listener: ImagePreprocessingListener? = null,
+) {
+    internal companion object {
+        const val MAX_EDGE_LENGTH = 1024
+        const val JPEG_QUALITY = 90
+    }
+}
+
+/**
+ * ImagePreprocessingListener.kt - listener notified after each preprocessed image.
+ */
+fun interface ImagePreprocessingListener {
+    /**
+     * On Image Preprocessed
+     *
+     * @param originalSize the size in bytes of the image provided by the caller
+     * @param preprocessedSize the size in bytes of the uploaded image
+     */
+    fun onImagePreprocessed(originalSize: Long, preprocessedSize: Long)
+}
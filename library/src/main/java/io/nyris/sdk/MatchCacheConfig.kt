@@ -0,0 +1,21 @@
+package io.nyris.sdk
+
+/**
+ * MatchCacheConfig.kt - configuration of the image matching result cache.
+ * Results are stored in memory, and on disk under {@link NyrisConfig#cacheDirectory} when it is set.
+ *
+ * @param maxMemoryBytes the maximum size in bytes of the responses kept in memory
+ * @param maxDiskBytes the maximum size in bytes of the responses kept on disk, 0 to disable the disk tier
+ * @param ttlMillis the time in milliseconds a cached response stays valid
+ */
+class MatchCacheConfig @JvmOverloads constructor(
+    var maxMemoryBytes: Long = MAX_MEMORY_BYTES,
+    var maxDiskBytes: Long = MAX_DISK_BYTES,
+    var ttlMillis: Long = TTL_MILLIS,
+) {
+    internal companion object {
+        const val MAX_MEMORY_BYTES = 4L * 1024 * 1024
+        const val MAX_DISK_BYTES = 20L * 1024 * 1024
+        const val TTL_MILLIS = 10L * 60 * 1000
+    }
+}
@@ -18,6 +18,7 @@ package io.nyris.sdk
 
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.OnLifecycleEvent
+import io.reactivex.Completable
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.disposables.Disposable
 
@@ -86,6 +87,20 @@ class Nyris private constructor(apiKey: String, config: NyrisConfig) : INyris {
         return apiHelper.feedback()
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    override fun warmUp(): Completable {
+        return apiHelper.warmUp()
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun concurrencyStats(endpoint: ApiEndpoint): ConcurrencyLimitStats {
+        return apiHelper.concurrencyStats(endpoint)
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -119,6 +134,17 @@ class Nyris private constructor(apiKey: String, config: NyrisConfig) : INyris {
                 instance
             }
         }
+
+        /**
+         * Get the connection counters of the transport shared by the instances
+         * The calls of the instances created with their own ok http client are not counted.
+         *
+         * @return the connection stats
+         */
+        @JvmStatic
+        fun connectionStats(): ConnectionStats {
+            return SharedTransport.stats()
+        }
     }
 }
 
@@ -1,12 +1,31 @@
 package io.nyris.sdk
 
+import okhttp3.OkHttpClient
+import java.io.File
+
 class NyrisConfig @JvmOverloads constructor(
     var isDebug: Boolean = false,
     var hostUrl: String = HOST_URL,
     var defaultOutputFormat: String = DEFAULT_OUTPUT_FORMAT,
     var defaultLanguage: String = DEFAULT_LANGUAGE,
     var networkConnectionTimeOut: Long = NETWORK_CONNECTION_TIMEOUT,
+    var timeouts: TimeoutConfig = TimeoutConfig(),
+    var endpointTimeouts: Map<ApiEndpoint, TimeoutConfig> = emptyMap(),
     var httpRetryCount: Int = HTTP_RETRY_COUNT,
+    var retryPolicy: RetryPolicyConfig = RetryPolicyConfig(),
+    var imagePreprocessing: ImagePreprocessingConfig? = null,
+    var embeddingEncoder: EmbeddingEncoder = EmbeddingEncoder.FLOAT32,
+    var cacheDirectory: File? = null,
+    var matchCache: MatchCacheConfig? = null,
+    var httpCacheBytes: Long = HTTP_CACHE_BYTES,
+    var similarityCache: SimilarityCacheConfig? = null,
+    var deduplicateRequests: Boolean = true,
+    var offerStringPoolSize: Int = 0,
+    var okHttpClient: OkHttpClient? = null,
+    var hedging: HedgingConfig? = null,
+    var circuitBreaker: CircuitBreakerConfig? = null,
+    var concurrencyLimit: ConcurrencyLimitConfig? = null,
+    var bulkheads: BulkheadConfig = BulkheadConfig(),
 ) {
     internal companion object {
         const val HOST_URL = "https://api.nyris.io/"
@@ -14,5 +33,6 @@ class NyrisConfig @JvmOverloads constructor(
         const val DEFAULT_LANGUAGE = "*"
         const val NETWORK_CONNECTION_TIMEOUT = 30L
         const val HTTP_RETRY_COUNT = 3
+        const val HTTP_CACHE_BYTES = 10L * 1024 * 1024
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package io.nyris.sdk
+
+/**
+ * RetryPolicyConfig.kt - configuration of the http retries.
+ * A failed request is retried after an exponential backoff with full jitter, or after the delay of the
+ * Retry-After header. The retries of all the nyris instances share one retry budget, so they stay a
+ * fraction of the traffic when the backend is degraded.
+ *
+ * @param initialBackoffMillis the upper bound in milliseconds of the first retry delay
+ * @param maxBackoffMillis the maximum upper bound in milliseconds of a retry delay
+ * @param backoffMultiplier the factor applied to the upper bound of the delay after each retry
+ * @param maxRetryAfterMillis the maximum Retry-After delay in milliseconds, a response asking for a longer
+ * delay is not retried
+ * @param retryableStatusCodes the http status codes that are retried, IO errors are always retried
+ * @param retryBudgetRatio the number of retries allowed per request, 0.1 allows one retry per 10 requests
+ * @param retryBudgetMaxTokens the maximum number of retries that can be spent in a burst
+ */
+class RetryPolicyConfig @JvmOverloads constructor(
+    var initialBackoffMillis: Long = INITIAL_BACKOFF_MILLIS,
+    var maxBackoffMillis: Long = MAX_BACKOFF_MILLIS,
+    var backoffMultiplier: Double = BACKOFF_MULTIPLIER,
+    var maxRetryAfterMillis: Long = MAX_RETRY_AFTER_MILLIS,
+    var retryableStatusCodes: Set<Int> = RETRYABLE_STATUS_CODES,
+    var retryBudgetRatio: Double = RETRY_BUDGET_RATIO,
+    var retryBudgetMaxTokens: Int = RETRY_BUDGET_MAX_TOKENS,
+) {
+    internal companion object {
+        const val INITIAL_BACKOFF_MILLIS = 200L
+        const val MAX_BACKOFF_MILLIS = 5L * 1000
+        const val BACKOFF_MULTIPLIER = 2.0
+        const val MAX_RETRY_AFTER_MILLIS = 30L * 1000
+        const val RETRY_BUDGET_RATIO = 0.1
+        const val RETRY_BUDGET_MAX_TOKENS = 10
+        val RETRYABLE_STATUS_CODES = setOf(408, 429, 500, 502, 503, 504)
+    }
+}
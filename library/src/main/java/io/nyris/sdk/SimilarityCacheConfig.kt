@@ -0,0 +1,23 @@
+package io.nyris.sdk
+
+/**
+ * SimilarityCacheConfig.kt - configuration of the in-memory cache of decoded similarity responses.
+ * A response is served from memory while it is fresh, then served from memory and refreshed in the
+ * background while it is stale.
+ *
+ * @param maxEntries the maximum number of responses kept in memory
+ * @param maxAgeMillis the time in milliseconds a response is fresh
+ * @param staleWhileRevalidateMillis the time in milliseconds a response can be served after it is no
+ * longer fresh, while it is refreshed in the background
+ */
+class SimilarityCacheConfig @JvmOverloads constructor(
+    var maxEntries: Int = MAX_ENTRIES,
+    var maxAgeMillis: Long = MAX_AGE_MILLIS,
+    var staleWhileRevalidateMillis: Long = STALE_WHILE_REVALIDATE_MILLIS,
+) {
+    internal companion object {
+        const val MAX_ENTRIES = 64
+        const val MAX_AGE_MILLIS = 60L * 1000
+        const val STALE_WHILE_REVALIDATE_MILLIS = 10L * 60 * 1000
+    }
+}
@@ -0,0 +1,20 @@
+package io.nyris.sdk
+
+/**
+ * TimeoutConfig.kt - configuration of the http timeouts of the endpoints.
+ *
+ * @param readTimeoutMillis the maximum time in milliseconds between two reads of the response, 0 for none
+ * @param writeTimeoutMillis the maximum time in milliseconds between two writes of the request, 0 for none
+ * @param callTimeoutMillis the maximum time in milliseconds of a whole call, the retries and the response
+ * body read included, 0 for none
+ */
+class TimeoutConfig @JvmOverloads constructor(
+    var readTimeoutMillis: Long = READ_TIMEOUT_MILLIS,
+    var writeTimeoutMillis: Long = WRITE_TIMEOUT_MILLIS,
+    var callTimeoutMillis: Long = 0L,
+) {
+    internal companion object {
+        const val READ_TIMEOUT_MILLIS = 10L * 1000
+        const val WRITE_TIMEOUT_MILLIS = 10L * 1000
+    }
+}
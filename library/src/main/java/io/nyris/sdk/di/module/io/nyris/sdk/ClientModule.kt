@@ -16,6 +16,7 @@
 package io.nyris.sdk
 
 import com.google.gson.Gson
+import com.google.gson.GsonBuilder
 import dagger.Module
 import dagger.Provides
 import okhttp3.HttpUrl
@@ -28,6 +29,7 @@ import retrofit2.Converter
 import retrofit2.Retrofit
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
 import java.util.concurrent.TimeUnit
 import javax.inject.Singleton
 
@@ -87,27 +89,36 @@ internal class ClientModule {
 
     /**
      * Provide Retry Interceptor
-     * Used to intercept http number of retry.
+     * Used to intercept http number of retry, the retries of all the instances share one retry budget.
      *
-     * @param retryCount retry count
+     * @param config the nyris config
      * @return the retry interceptor
      */
     @Singleton
     @Provides
     fun provideRetryInterceptor(
         config: NyrisConfig
-    ): Interceptor = RetryInterceptor(config.httpRetryCount)
+    ): Interceptor = RetryInterceptor(
+        config.httpRetryCount,
+        config.retryPolicy,
+        SharedTransport.retryBudget(config.retryPolicy)
+    )
 
     /**
      * Provide Gson
-     * Used as json serializer or deserializer.
+     * Used as json serializer or deserializer, the response models are decoded by their own type adapters.
+     * The repeated offer values are shared through a string pool that lives as long as the sdk instance.
      *
+     * @param config the nyris config
      * @return the gson
      */
     @Provides
     @Singleton
-    fun provideGson(): Gson {
-        return Gson()
+    fun provideGson(config: NyrisConfig): Gson {
+        val stringPool = config.offerStringPoolSize.takeIf { it > 0 }?.let { StringPool(it) }
+        return GsonBuilder()
+            .registerTypeAdapterFactory(ModelTypeAdapterFactory(stringPool))
+            .create()
     }
 
     /**
@@ -125,24 +136,28 @@ internal class ClientModule {
 
     /**
      * Provide RxJava CallAdapter Factory
-     * Used as http call adapter.
+     * Used as http call adapter. The calls are enqueued, so they run on the threads and within the limits of
+     * the dispatcher of their request pool.
      *
      * @return the rxjava call adapter Factory
      */
     @Provides
     @Singleton
     fun provideRxJava2CallAdapterFactory(): CallAdapter.Factory {
-        return RxJava2CallAdapterFactory.create()
+        return RxJava2CallAdapterFactory.createAsync()
     }
 
     /**
      * Provide Ok Http Client
-     * Used as http client.
+     * Used as http client. Derived from the shared or the provided base client, so the nyris instances share
+     * its connection pool and dispatcher. The calls go through the circuit breakers and the concurrency limits
+     * when they are enabled.
      *
      * @param isDebug the debug status
      * @param networkTimeoutInSeconds the network timeout
      * @param loggingInterceptor the http logging interceptor
      * @param retryInterceptor the http retry interceptor
+     * @param concurrencyLimiter the concurrency limiter of the endpoints
      * @return the ok http client
      */
     @Provides
@@ -150,11 +165,24 @@ internal class ClientModule {
     fun provideOkHttpClient(
         config: NyrisConfig,
         loggingInterceptor: HttpLoggingInterceptor,
-        retryInterceptor: Interceptor
+        retryInterceptor: Interceptor,
+        concurrencyLimiter: ConcurrencyLimiter
     ): OkHttpClient = with(config) {
-        OkHttpClient.Builder().apply {
+        SharedTransport.baseClient(config).newBuilder().apply {
+            // First, so an open circuit fails fast before the timeouts and the retries
+            circuitBreaker?.let { addInterceptor(CircuitBreakerInterceptor(it)) }
+            // Before the retries, so the call timeout covers them
+            addInterceptor(TimeoutInterceptor(timeouts, endpointTimeouts))
+            // Inside the call timeout, so a call waiting for a slot can time out
+            addInterceptor(concurrencyLimiter)
             addInterceptor(retryInterceptor)
             connectTimeout(config.networkConnectionTimeOut, TimeUnit.SECONDS)
+            readTimeout(timeouts.readTimeoutMillis, TimeUnit.MILLISECONDS)
+            writeTimeout(timeouts.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+            // Honours Cache-Control and ETag of the GET endpoints
+            cacheDirectory?.takeIf { httpCacheBytes > 0 }?.let {
+                cache(SharedTransport.cache(File(it, HTTP_CACHE_DIRECTORY_NAME), httpCacheBytes))
+            }
             if (isDebug) {
                 addInterceptor(loggingInterceptor)
             }
@@ -163,12 +191,14 @@ internal class ClientModule {
 
     /**
      * Provide Retrofit
-     * Used as Type-safe HTTP client.
+     * Used as Type-safe HTTP client. The interactive and the background calls are sent with their own
+     * dispatcher, and the hedged requests with their own connection pool.
      *
      * @param httpUrl the http url
      * @param converterFactory the gson converter factory
      * @param callAdapterFactory the rxjava call adapter factory
      * @param okHttpClient the ok http client
+     * @param config the nyris config
      * @return the retrofit
      */
     @Provides
@@ -177,11 +207,21 @@ internal class ClientModule {
         httpUrl: HttpUrl,
         converterFactory: Converter.Factory,
         callAdapterFactory: CallAdapter.Factory,
-        okHttpClient: OkHttpClient
+        okHttpClient: OkHttpClient,
+        config: NyrisConfig
     ): Retrofit = Retrofit.Builder()
         .baseUrl(httpUrl)
         .addConverterFactory(converterFactory)
         .addCallAdapterFactory(callAdapterFactory)
-        .client(okHttpClient)
+        .callFactory(
+            BulkheadCallFactory(
+                okHttpClient,
+                SharedTransport.requestPools(SharedTransport.baseClient(config), config.bulkheads)
+            )
+        )
         .build()
+
+    private companion object {
+        const val HTTP_CACHE_DIRECTORY_NAME = "nyris-http"
+    }
 }
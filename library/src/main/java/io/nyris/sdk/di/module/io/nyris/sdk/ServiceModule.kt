@@ -115,6 +115,10 @@ internal class ServiceModule {
      * @param schedulerProvider the skd scheduler
      * @param apiHeader the api header
      * @param endpoints the endpoint builder
+     * @param imagePreprocessor the image preprocessor
+     * @param matchResultCache the image matching result cache
+     * @param singleFlight the in flight requests table
+     * @param hedging the requests hedging
      * @return the image matching api
      */
     @Provides
@@ -124,12 +128,21 @@ internal class ServiceModule {
         imageMatchingService: ImageMatchingService,
         gson: Gson,
         apiHeader: ApiHeader,
+        imagePreprocessor: ImagePreprocessor,
+        matchResultCache: MatchResultCache,
+        singleFlight: SingleFlight,
+        hedging: Hedging,
     ): IImageMatchingApi = ImageMatchingApi(
         imageMatchingService,
         config.defaultOutputFormat,
         config.defaultLanguage,
         gson,
-        apiHeader
+        apiHeader,
+        imagePreprocessor,
+        config.embeddingEncoder,
+        matchResultCache,
+        singleFlight,
+        hedging
     )
 
     /**
@@ -140,6 +153,8 @@ internal class ServiceModule {
      * @param schedulerProvider the sdk scheduler
      * @param apiHeader the api header
      * @param endpoints the endpoint builder
+     * @param imagePreprocessor the image preprocessor
+     * @param singleFlight the in flight requests table
      * @return the object proposal api
      */
     @Provides
@@ -147,7 +162,9 @@ internal class ServiceModule {
     fun provideRegionApi(
         regionService: RegionsService,
         apiHeader: ApiHeader,
-    ): IRegionsApi = RegionsApi(regionService, apiHeader)
+        imagePreprocessor: ImagePreprocessor,
+        singleFlight: SingleFlight,
+    ): IRegionsApi = RegionsApi(regionService, apiHeader, imagePreprocessor, singleFlight)
 
     /**
      * Provide Not Found Matching Api
@@ -174,6 +191,8 @@ internal class ServiceModule {
      * @param schedulerProvider the sdk scheduler
      * @param apiHeader the api header
      * @param endpoints the endpoint builder
+     * @param singleFlight the in flight requests table
+     * @param hedging the requests hedging
      * @return the text search api
      */
     @Provides
@@ -182,13 +201,17 @@ internal class ServiceModule {
         config: NyrisConfig,
         textSearchService: TextSearchService,
         gson: Gson,
-        apiHeader: ApiHeader
+        apiHeader: ApiHeader,
+        singleFlight: SingleFlight,
+        hedging: Hedging
     ): ITextSearchApi = TextSearchApi(
         textSearchService,
         config.defaultOutputFormat,
         config.defaultLanguage,
         gson,
-        apiHeader
+        apiHeader,
+        singleFlight,
+        hedging
     )
 
     /**
@@ -199,6 +222,8 @@ internal class ServiceModule {
      * @param schedulerProvider the sdk scheduler
      * @param apiHeader the api header
      * @param endpoints the endpoint builder
+     * @param singleFlight the in flight requests table
+     * @param hedging the requests hedging
      * @return the similarity api
      */
     @Provides
@@ -207,13 +232,20 @@ internal class ServiceModule {
         config: NyrisConfig,
         similarityService: SimilarityService,
         gson: Gson,
-        apiHeader: ApiHeader
+        apiHeader: ApiHeader,
+        singleFlight: SingleFlight,
+        hedging: Hedging
     ): ISimilarityApi = SimilarityApi(
         similarityService,
         config.defaultOutputFormat,
         config.defaultLanguage,
         gson,
-        apiHeader
+        apiHeader,
+        config.similarityCache?.let {
+            StaleWhileRevalidateCache(it.maxEntries, it.maxAgeMillis, it.staleWhileRevalidateMillis)
+        },
+        singleFlight,
+        hedging
     )
 
     @Provides
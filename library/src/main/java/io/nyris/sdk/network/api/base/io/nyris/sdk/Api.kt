@@ -18,8 +18,24 @@ package io.nyris.sdk
 
 import android.annotation.SuppressLint
 import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import io.reactivex.Emitter
+import io.reactivex.Flowable
 import io.reactivex.Single
+import io.reactivex.functions.BiConsumer
+import io.reactivex.functions.Consumer
+import io.reactivex.schedulers.Schedulers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withTimeoutOrNull
 import okhttp3.ResponseBody
+import retrofit2.Call
+import retrofit2.Callback
+import retrofit2.HttpException
+import retrofit2.Response
+import java.io.Closeable
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.resumeWithException
 
 /**
  * Api.kt - class define common methods for child extended classes.
@@ -74,41 +90,233 @@ internal open class Api(protected val apiHeader: ApiHeader) {
 
     /**
      * Convert Response Body Based On Type
-     * This generic method convert ResponseBody to IResponse. this method will zip singles into one
-     * single and return OfferResponseBody or JsonResponseBody object.
+     * This generic method convert ResponseBody to IResponse and return OfferResponse, LazyOfferResponse,
+     * RawResponseBody or JsonResponseBody object. The service methods are @Streaming, so the OfferResponse is
+     * decoded while the response body is read from the network, without buffering it. The LazyOfferResponse keeps
+     * the response bytes and decodes the offers on access. The RawResponseBody hands the unread response body to the
+     * caller.
      *
-     * @param id the id
      * @param obs1 the single response body
      * @param clazz the class
      * @param gson the gson
+     * @param fields the offer fields to decode, null for all the fields
      *
      * @see IResponse
      * @see OfferResponse
+     * @see LazyOfferResponse
+     * @see RawResponseBody
      * @see JsonResponseBody
      *
      * @return the generic single
      */
     @SuppressLint("CheckResult")
     @Suppress("UNCHECKED_CAST")
-    fun <T : IResponse, Z> convertResponseBodyBasedOnType(
-        id: Z,
+    @JvmOverloads
+    fun <T : IResponse> convertResponseBodyBasedOnType(
         obs1: Single<ResponseBody>,
         clazz: Class<T>,
-        gson: Gson
+        gson: Gson,
+        fields: Set<OfferField>? = null
     ): Single<T> {
-        val obs2 = Single.just(id)
-
-        return Single
-            .zip(obs1, obs2) { responseBody: ResponseBody, _: Z ->
-                val strResponse = responseBody.string()
-                val typeOfferResponse = OfferResponse::class.java
-                if (typeOfferResponse.name == clazz.name) {
-                    val offerResponse = gson.fromJson(strResponse, OfferResponse::class.java)
-                    offerResponse as T
-                } else {
-                    val jsonResponse = JsonResponseBody(strResponse)
-                    jsonResponse as T
+        if (isOneShot(clazz)) {
+            // Closed by the caller once it is read
+            return obs1.map { responseBody -> RawResponseBody(responseBody) as T }
+        }
+        return obs1.flatMap { responseBody: ResponseBody ->
+            Single.create<T> { emitter ->
+                val response = try {
+                    decode(responseBody, clazz, gson, fields)
+                } catch (e: Exception) {
+                    // The read of a cancelled call fails, the error is dropped once the caller disposed
+                    emitter.tryOnError(e)
+                    return@create
                 }
+                emitter.onSuccess(response)
+            }
+        }
+    }
+
+    /**
+     * Convert Response Body
+     * The counterpart of convertResponseBodyBasedOnType for a response body that is already received, it is
+     * decoded on the calling thread. The RawResponseBody hands the unread response body to the caller.
+     *
+     * @param responseBody the streamed response body
+     * @param clazz the class
+     * @param gson the gson
+     * @param fields the offer fields to decode, null for all the fields
+     * @return the response
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <T : IResponse> convertResponseBody(
+        responseBody: ResponseBody,
+        clazz: Class<T>,
+        gson: Gson,
+        fields: Set<OfferField>?
+    ): T {
+        if (isOneShot(clazz)) {
+            return RawResponseBody(responseBody) as T
+        }
+        return decode(responseBody, clazz, gson, fields)
+    }
+
+    /**
+     * Decode the response body to the response class and close it
+     */
+    @Suppress("UNCHECKED_CAST")
+    private fun <T : IResponse> decode(
+        responseBody: ResponseBody,
+        clazz: Class<T>,
+        gson: Gson,
+        fields: Set<OfferField>?
+    ): T {
+        return responseBody.use {
+            val typeOfferResponse = OfferResponse::class.java
+            if (typeOfferResponse.name == clazz.name && fields != null) {
+                val offerResponseAdapter = OfferResponseTypeAdapter(offerAdapter(gson, fields))
+                val offerResponse = offerResponseAdapter.fromJson(it.charStream())
+                offerResponse as T
+            } else if (typeOfferResponse.name == clazz.name) {
+                val offerResponse = gson.fromJson(it.charStream(), OfferResponse::class.java)
+                offerResponse as T
+            } else if (LazyOfferResponse::class.java.name == clazz.name) {
+                val lazyOfferResponse = LazyOfferResponse.parse(it.bytes(), offerAdapter(gson, fields))
+                lazyOfferResponse as T
+            } else {
+                val jsonResponse = JsonResponseBody(it.string())
+                jsonResponse as T
             }
+        }
+    }
+
+    /**
+     * Convert Response Body To Offers
+     * This method reads the results of a streamed response body and emits each offer once it is decoded.
+     * Offers are read only when they are requested, cancelling closes the response body and aborts the
+     * download. The offers are read and decoded on the io scheduler, never on the thread that requests them.
+     *
+     * @param obs1 the single streamed response body
+     * @param gson the gson
+     * @param summaryListener the listener of the request level fields
+     * @param fields the offer fields to decode, null for all the fields
+     *
+     * @see OfferStreamReader
+     *
+     * @return the offers flowable
+     */
+    @JvmOverloads
+    fun convertResponseBodyToOffers(
+        obs1: Single<ResponseBody>,
+        gson: Gson,
+        summaryListener: OfferResponseSummaryListener?,
+        fields: Set<OfferField>? = null
+    ): Flowable<Offer> {
+        val offerAdapter = offerAdapter(gson, fields)
+        return obs1.flatMapPublisher { responseBody ->
+            // The body is owned by using, so it is closed on cancellation even before the reader is created.
+            // generate reads on the thread that requests, the requests are moved to one io worker.
+            Flowable.using(
+                { responseBody },
+                { body ->
+                    Flowable.generate(
+                        { OfferStreamReader(body, offerAdapter, summaryListener) },
+                        BiConsumer<OfferStreamReader, Emitter<Offer>> { reader, emitter -> reader.next(emitter) },
+                        Consumer { it.close() }
+                    ).subscribeOn(Schedulers.io())
+                },
+                Consumer { it.close() }
+            )
+        }
+    }
+
+    /**
+     * With Deadline
+     * Fail the single with NyrisTimeoutException when it does not complete before the deadline. The deadline
+     * covers the retries, the subscription to the http call is disposed, so the call is cancelled.
+     *
+     * @param single the single to bound
+     * @param deadlineMillis the deadline in milliseconds, null for no deadline
+     * @return the bounded single
+     */
+    fun <T> withDeadline(single: Single<T>, deadlineMillis: Long?): Single<T> {
+        if (deadlineMillis == null) {
+            return single
+        }
+        return single.timeout(
+            deadlineMillis,
+            TimeUnit.MILLISECONDS,
+            Single.error<T> { NyrisTimeoutException(deadlineMillis) }
+        )
+    }
+
+    /**
+     * Await Call
+     * Enqueue the call and suspend until its response, no thread is blocked while waiting. The response is
+     * converted on the callback thread of the call before the coroutine is resumed. Cancelling the coroutine
+     * cancels the call, even while its body is uploading, and a closeable result converted after the
+     * cancellation is closed instead of being dropped.
+     *
+     * @param call the retrofit call, its callback must run on the http thread
+     * @param convert the conversion of the response body
+     * @return the converted response
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    suspend fun <R : Any, T : Any> awaitCall(call: Call<R>, convert: (R) -> T): T {
+        return suspendCancellableCoroutine { continuation ->
+            continuation.invokeOnCancellation { call.cancel() }
+            call.enqueue(object : Callback<R> {
+                override fun onResponse(call: Call<R>, response: Response<R>) {
+                    val value = try {
+                        if (!response.isSuccessful) {
+                            throw HttpException(response)
+                        }
+                        convert(response.body() ?: throw NullPointerException("The response has no body"))
+                    } catch (e: Exception) {
+                        // The read of a cancelled call fails, the error is dropped once the coroutine is cancelled
+                        continuation.resumeWithException(e)
+                        return
+                    }
+                    continuation.resume(value) { (value as? Closeable)?.close() }
+                }
+
+                override fun onFailure(call: Call<R>, t: Throwable) {
+                    continuation.resumeWithException(t)
+                }
+            })
+        }
+    }
+
+    /**
+     * Await With Deadline
+     * The counterpart of withDeadline for the suspend calls, the block is cancelled at the deadline, so its call
+     * is cancelled, and NyrisTimeoutException is thrown.
+     *
+     * @param deadlineMillis the deadline in milliseconds, null for no deadline
+     * @param block the suspend call to bound
+     * @return the result of the block
+     */
+    suspend fun <T : Any> awaitWithDeadline(deadlineMillis: Long?, block: suspend () -> T): T {
+        if (deadlineMillis == null) {
+            return block()
+        }
+        return withTimeoutOrNull(deadlineMillis) { block() } ?: throw NyrisTimeoutException(deadlineMillis)
+    }
+
+    /**
+     * Is One Shot
+     * One-shot responses are read once by the caller, so they can't be shared by identical calls or cached.
+     *
+     * @param clazz the response class
+     * @return true when the response is one-shot
+     */
+    fun isOneShot(clazz: Class<*>): Boolean {
+        return RawResponseBody::class.java.name == clazz.name
+    }
+
+    /**
+     * Get the offer type adapter of the field mask, or the gson adapter for all the fields
+     */
+    private fun offerAdapter(gson: Gson, fields: Set<OfferField>?): TypeAdapter<Offer> {
+        return OfferTypeAdapter.of(gson, fields)
     }
 }
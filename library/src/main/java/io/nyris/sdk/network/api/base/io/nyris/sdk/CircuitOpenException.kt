@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import java.io.IOException
+
+/**
+ * CircuitOpenException.kt - exception of a call rejected without being sent, because the circuit of its
+ * endpoint is open.
+ *
+ * @param endpoint the endpoint of the open circuit
+ * @param retryAfterMillis the time in milliseconds before the circuit allows probe calls
+ */
+class CircuitOpenException(
+    val endpoint: ApiEndpoint,
+    val retryAfterMillis: Long
+) : IOException("The circuit of $endpoint is open, retry after $retryAfterMillis ms")
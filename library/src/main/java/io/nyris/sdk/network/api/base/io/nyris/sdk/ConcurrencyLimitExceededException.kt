@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import java.io.IOException
+
+/**
+ * ConcurrencyLimitExceededException.kt - exception of a call rejected without being sent, because the
+ * concurrency limit of its endpoint is reached and its queue is full or the call waited too long.
+ *
+ * @param endpoint the endpoint of the call
+ * @param limit the concurrency limit when the call was rejected
+ */
+class ConcurrencyLimitExceededException(
+    val endpoint: ApiEndpoint,
+    val limit: Int
+) : IOException("The concurrency limit $limit of $endpoint is reached")
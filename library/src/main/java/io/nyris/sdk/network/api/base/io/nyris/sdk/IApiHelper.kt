@@ -16,6 +16,8 @@
 
 package io.nyris.sdk
 
+import io.reactivex.Completable
+
 /**
  * IApiHelper.kt - interface facade for the api classes.
  *
@@ -86,4 +88,25 @@ interface IApiHelper {
      * @return the similarity api
      */
     fun feedback(): IFeedbackApi
+
+    /**
+     * Warm Up
+     * Resolve the host and open a connection kept by the http client, and load the response decoders and the
+     * service methods off the main thread, so the first request doesn't pay for them. A connection failure is
+     * ignored. Call it when the camera screen opens.
+     *
+     * @return the completable
+     */
+    fun warmUp(): Completable
+
+    /**
+     * Get Concurrency Stats
+     * Get the adaptive concurrency limit of an endpoint, its calls in flight and queued, and the calls
+     * rejected because the limit was reached.
+     *
+     * @param endpoint the endpoint
+     * @see ConcurrencyLimitConfig
+     * @return the concurrency limit stats, empty when the limits are disabled
+     */
+    fun concurrencyStats(endpoint: ApiEndpoint): ConcurrencyLimitStats
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import java.io.InterruptedIOException
+
+/**
+ * NyrisTimeoutException.kt - exception of a call that did not complete before its deadline or its call
+ * timeout, the retries included. The http call is cancelled.
+ *
+ * @param timeoutMillis the deadline or the call timeout in milliseconds
+ */
+class NyrisTimeoutException @JvmOverloads constructor(
+    val timeoutMillis: Long,
+    cause: Throwable? = null
+) : InterruptedIOException("The call did not complete within $timeoutMillis ms") {
+    init {
+        cause?.let { initCause(it) }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import io.reactivex.Emitter
+import okhttp3.ResponseBody
+import java.io.Closeable
+
+/**
+ * OfferStreamReader.kt - class that reads the offers of a response one by one while the response body
+ * is downloaded. The request level fields are collected into a summary delivered when the response ends.
+ *
+ * @param responseBody the streamed response body
+ * @param offerAdapter the offer type adapter
+ * @param summaryListener the listener of the response without its offers
+ */
+internal class OfferStreamReader(
+    private val responseBody: ResponseBody,
+    private val offerAdapter: TypeAdapter<Offer>,
+    private val summaryListener: OfferResponseSummaryListener?
+) : Closeable {
+    private val reader = JsonReader(responseBody.charStream())
+    private var requestId: String? = null
+    private var sessionId: String? = null
+    private var predictedCategories: Map<String, Float>? = null
+    private var started = false
+    private var inResults = false
+
+    /**
+     * Emit the next offer, or the completion after the last field of the response
+     * Called by Flowable.generate once per requested item.
+     *
+     * @param emitter the generator emitter
+     */
+    fun next(emitter: Emitter<Offer>) {
+        if (!started) {
+            started = true
+            reader.beginObject()
+        }
+        while (true) {
+            if (inResults) {
+                if (reader.hasNext()) {
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull()
+                        continue
+                    }
+                    emitter.onNext(offerAdapter.read(reader))
+                    return
+                }
+                reader.endArray()
+                inResults = false
+            }
+            if (!reader.hasNext()) {
+                reader.endObject()
+                summaryListener?.onSummary(
+                    OfferResponse(
+                        requestId = requestId,
+                        sessionId = sessionId,
+                        predictedCategories = predictedCategories ?: mapOf()
+                    )
+                )
+                emitter.onComplete()
+                return
+            }
+            when (reader.nextName()) {
+                "id" -> requestId = reader.nextStringOrNull()
+                "session" -> sessionId = reader.nextStringOrNull()
+                "predicted_category" -> predictedCategories = reader.nextMapOrNull { nextFloatOrNull() }
+                "results" -> if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull()
+                } else {
+                    reader.beginArray()
+                    inResults = true
+                }
+                else -> reader.skipValue()
+            }
+        }
+    }
+
+    /**
+     * Close the response body, which aborts the download when the response is not fully read
+     */
+    override fun close() {
+        responseBody.close()
+    }
+}
+
+/**
+ * OfferResponseSummaryListener.kt - listener notified with the request level fields of a streamed response.
+ */
+fun interface OfferResponseSummaryListener {
+    /**
+     * On Summary
+     * Called after the last offer and before the completion of the offers flowable.
+     *
+     * @param summary the response with the request id, the session and the predicted categories, without offers
+     */
+    fun onSummary(summary: OfferResponse)
+}
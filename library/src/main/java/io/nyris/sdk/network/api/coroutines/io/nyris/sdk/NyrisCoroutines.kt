@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import io.reactivex.Flowable
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.reactive.asFlow
+import kotlinx.coroutines.reactive.asPublisher
+import okhttp3.ResponseBody
+import java.io.File
+
+/**
+ * NyrisCoroutines.kt - suspend and Flow extensions of the apis for kotlin callers.
+ * The suspend calls enqueue a retrofit call on the dispatcher of its request pool and the coroutine is resumed by
+ * its callback, without the Rx singles, no thread is blocked while waiting. Cancelling the coroutine cancels the
+ * http call, even while the image is uploading. The result cache, the single flight and the hedging are built on
+ * the singles, the suspend calls don't apply them. The flows are the streamed and batch singles of the apis,
+ * cancelling their collection cancels the http calls.
+ */
+
+/**
+ * Match image byte array with request
+ *
+ * @param request the match request
+ * @param image the image byte array
+ * @return the offer response
+ * @see IImageMatchingApi#match(MatchRequest, ByteArray)
+ */
+suspend fun IImageMatchingApi.awaitMatch(request: MatchRequest, image: ByteArray): OfferResponse {
+    return sdkApi<ImageMatchingApi>().awaitMatch(request, image, OfferResponse::class.java)
+}
+
+/**
+ * Match image file with request
+ *
+ * @param request the match request
+ * @param image the image file
+ * @return the offer response
+ * @see IImageMatchingApi#match(MatchRequest, File, Class)
+ */
+suspend fun IImageMatchingApi.awaitMatch(request: MatchRequest, image: File): OfferResponse {
+    return sdkApi<ImageMatchingApi>().awaitMatch(request, image, OfferResponse::class.java)
+}
+
+/**
+ * Match image float array with request
+ *
+ * @param request the match request
+ * @param image the image float array
+ * @return the offer response
+ * @see IImageMatchingApi#match(MatchRequest, FloatArray, Class)
+ */
+suspend fun IImageMatchingApi.awaitMatch(request: MatchRequest, image: FloatArray): OfferResponse {
+    return sdkApi<ImageMatchingApi>().awaitMatch(request, image, OfferResponse::class.java)
+}
+
+/**
+ * Generic Match image byte array with request
+ *
+ * @param request the match request
+ * @param image the image byte array
+ * @param clazz the desired return response class
+ * @return the response
+ */
+suspend fun <T : IResponse> IImageMatchingApi.awaitMatch(request: MatchRequest, image: ByteArray, clazz: Class<T>): T {
+    return sdkApi<ImageMatchingApi>().awaitMatch(request, image, clazz)
+}
+
+/**
+ * Streaming Match image byte array with request
+ *
+ * @param request the match request
+ * @param image the image byte array
+ * @param summaryListener the listener of the request id, session and predicted categories
+ * @return the flow of offers, read from the network as they are collected
+ * @see IImageMatchingApi#matchStreaming(MatchRequest, ByteArray, OfferResponseSummaryListener)
+ */
+fun IImageMatchingApi.matchStreamingFlow(
+    request: MatchRequest,
+    image: ByteArray,
+    summaryListener: OfferResponseSummaryListener? = null
+): Flow<Offer> {
+    return matchStreaming(request, image, summaryListener).asFlow()
+}
+
+/**
+ * Batch Match images with request
+ * The images are collected as the results are emitted, at most parallelism images are sent at the same time.
+ *
+ * @param request the match request shared by the images
+ * @param images the flow of images
+ * @param parallelism the maximum number of images sent at the same time
+ * @param ordered true to emit the results in the order of the images, false to emit them as they complete
+ * @param statsListener the listener of the images and bytes per second of the batch
+ * @return the flow of results, tagged with the index of their image
+ * @see IImageMatchingApi#matchAll(MatchRequest, Flowable, Int, Boolean, Class, BatchStatsListener)
+ */
+fun IImageMatchingApi.matchAllFlow(
+    request: MatchRequest,
+    images: Flow<ImageInput>,
+    parallelism: Int,
+    ordered: Boolean,
+    statsListener: BatchStatsListener? = null
+): Flow<BatchResult<OfferResponse>> {
+    val imagesFlowable = Flowable.fromPublisher(images.asPublisher())
+    return matchAll(request, imagesFlowable, parallelism, ordered, OfferResponse::class.java, statsListener).asFlow()
+}
+
+/**
+ * Search Offers with request
+ *
+ * @param request the text search request
+ * @param keyword the keyword
+ * @return the offer response
+ * @see ITextSearchApi#searchOffers(TextSearchRequest, String)
+ */
+suspend fun ITextSearchApi.awaitSearchOffers(request: TextSearchRequest, keyword: String): OfferResponse {
+    return sdkApi<TextSearchApi>().awaitSearchOffers(request, keyword, OfferResponse::class.java)
+}
+
+/**
+ * Streaming Search Offers with request
+ *
+ * @param request the text search request
+ * @param keyword the keyword
+ * @param summaryListener the listener of the request id, session and predicted categories
+ * @return the flow of offers, read from the network as they are collected
+ * @see ITextSearchApi#searchOffersStreaming(TextSearchRequest, String, OfferResponseSummaryListener)
+ */
+fun ITextSearchApi.searchOffersStreamingFlow(
+    request: TextSearchRequest,
+    keyword: String,
+    summaryListener: OfferResponseSummaryListener? = null
+): Flow<Offer> {
+    return searchOffersStreaming(request, keyword, summaryListener).asFlow()
+}
+
+/**
+ * Extract objects from image byte array
+ *
+ * @param image the image byte array
+ * @param priority the priority of the call
+ * @return the detected objects
+ * @see IRegionsApi#detect(ByteArray, RequestPriority)
+ */
+suspend fun IRegionsApi.awaitDetect(
+    image: ByteArray,
+    priority: RequestPriority = RequestPriority.INTERACTIVE
+): ObjectList {
+    return sdkApi<RegionsApi>().awaitDetect(image, priority)
+}
+
+/**
+ * Get similar offers by sku
+ *
+ * @param sku the sku
+ * @return the offer response
+ * @see ISimilarityApi#getBySku(String)
+ */
+suspend fun ISimilarityApi.awaitGetBySku(sku: String): OfferResponse {
+    return awaitGetBySku(newRequest().build(), sku)
+}
+
+/**
+ * Get similar offers by sku with request
+ *
+ * @param request the similarity request
+ * @param sku the sku
+ * @return the offer response
+ * @see ISimilarityApi#getBySku(SimilarityRequest, String)
+ */
+suspend fun ISimilarityApi.awaitGetBySku(request: SimilarityRequest, sku: String): OfferResponse {
+    return sdkApi<SimilarityApi>().awaitGetBySku(request, sku, OfferResponse::class.java)
+}
+
+/**
+ * Send feedback event
+ *
+ * @param event the event
+ * @param priority the priority of the call
+ * @return the response body, to close by the caller
+ * @see IFeedbackApi#send(Event, RequestPriority)
+ */
+suspend fun IFeedbackApi.awaitSend(event: Event, priority: RequestPriority = RequestPriority.BACKGROUND): ResponseBody {
+    return sdkApi<FeedbackApi>().awaitSend(event, priority)
+}
+
+/**
+ * Mark image as not found
+ *
+ * @param imageRequestId the request id of the image
+ * @param priority the priority of the call
+ * @return the response body, to close by the caller
+ * @see INotFoundMatchingApi#markAsNotFound(String, RequestPriority)
+ */
+suspend fun INotFoundMatchingApi.awaitMarkAsNotFound(
+    imageRequestId: String,
+    priority: RequestPriority = RequestPriority.BACKGROUND
+): ResponseBody {
+    return sdkApi<NotFoundMatchingApi>().awaitMarkAsNotFound(imageRequestId, priority)
+}
+
+/**
+ * The sdk implementation of the api, the suspend calls enqueue its retrofit calls
+ */
+private inline fun <reified A : Api> Any.sdkApi(): A {
+    return this as? A ?: throw IllegalArgumentException("The suspend calls need the api of the sdk: ${javaClass.name}")
+}
@@ -14,8 +14,28 @@ internal class FeedbackApi(
     private val mapper: FeedbackRequestMapper,
     apiHeader: ApiHeader,
 ) : Api(apiHeader), IFeedbackApi {
-    override fun send(event: Event): Single<ResponseBody> = feedbackService.feedback(
-        headers = createDefaultHeadersMap(),
-        body = mapper.map(event)
-    )
+    override fun send(event: Event): Single<ResponseBody> {
+        return send(event, RequestPriority.BACKGROUND)
+    }
+
+    override fun send(event: Event, priority: RequestPriority): Single<ResponseBody> {
+        val headers = BulkheadCallFactory.headers(createDefaultHeadersMap(), priority)
+        return feedbackService.feedback(
+            headers = headers,
+            body = mapper.map(event)
+        )
+    }
+
+    /**
+     * Await Send
+     * The suspend counterpart of send, the call is enqueued without the Rx single.
+     *
+     * @param event the event
+     * @param priority the priority of the call
+     * @return the response body, to close by the caller
+     */
+    internal suspend fun awaitSend(event: Event, priority: RequestPriority): ResponseBody {
+        val headers = BulkheadCallFactory.headers(createDefaultHeadersMap(), priority)
+        return awaitCall(feedbackService.feedbackCall(headers, mapper.map(event))) { it }
+    }
 }
\ No newline at end of file
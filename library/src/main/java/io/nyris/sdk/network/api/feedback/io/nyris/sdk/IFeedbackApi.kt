@@ -17,4 +17,13 @@ interface IFeedbackApi {
      * @return the Single ResponseBody
      */
     fun send(event: Event): Single<ResponseBody>
+
+    /**
+     * Sent a feedback request with the request pool of a priority
+     * @param event the feedback event
+     * @param priority the priority of the call, background by default
+     * @return the Single ResponseBody
+     * @see RequestPriority
+     */
+    fun send(event: Event, priority: RequestPriority): Single<ResponseBody>
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import kotlin.math.abs
+import kotlin.math.max
+import kotlin.math.roundToInt
+
+/**
+ * EmbeddingEncoder.kt - interface that defines how the components of an embedding are encoded before
+ * they are sent Base64 encoded to the semantic search endpoint.
+ * The encoded payload is {"b64":"...","dtype":"...","scale":...}, dtype and scale are omitted when null.
+ *
+ * @see IImageMatchingApi.embeddingEncoder
+ */
+interface EmbeddingEncoder {
+    /**
+     * The data type name sent as "dtype", null to omit it
+     */
+    val dtype: String?
+
+    /**
+     * The size in bytes of one encoded component
+     */
+    val bytesPerComponent: Int
+
+    /**
+     * Compute the scale factor of the vector sent as "scale"
+     *
+     * @param vector the embedding
+     * @return the scale factor, null when the encoding doesn't use one
+     */
+    fun scale(vector: FloatArray): Float?
+
+    /**
+     * Encode one component as little-endian bytes
+     *
+     * @param value the component value
+     * @param scale the scale factor of the vector
+     * @param output the output byte array
+     * @param offset the offset of the first byte to write
+     */
+    fun encode(value: Float, scale: Float?, output: ByteArray, offset: Int)
+
+    /**
+     * Decode one component
+     *
+     * @param input the encoded byte array
+     * @param offset the offset of the first byte of the component
+     * @param scale the scale factor of the vector
+     * @return the component value
+     */
+    fun decode(input: ByteArray, offset: Int, scale: Float?): Float
+
+    companion object {
+        /**
+         * 32 bits floats, the default payload of the semantic search endpoint
+         */
+        @JvmField
+        val FLOAT32: EmbeddingEncoder = Float32EmbeddingEncoder()
+
+        /**
+         * 16 bits IEEE 754 half precision floats
+         */
+        @JvmField
+        val FLOAT16: EmbeddingEncoder = Float16EmbeddingEncoder()
+
+        /**
+         * 8 bits signed integers scaled by the largest absolute component of the vector
+         */
+        @JvmField
+        val INT8: EmbeddingEncoder = Int8EmbeddingEncoder()
+    }
+}
+
+private class Float32EmbeddingEncoder : EmbeddingEncoder {
+    override val dtype: String? = null
+
+    override val bytesPerComponent: Int = 4
+
+    override fun scale(vector: FloatArray): Float? = null
+
+    override fun encode(value: Float, scale: Float?, output: ByteArray, offset: Int) {
+        val bits = java.lang.Float.floatToRawIntBits(value)
+        output[offset] = bits.toByte()
+        output[offset + 1] = (bits ushr 8).toByte()
+        output[offset + 2] = (bits ushr 16).toByte()
+        output[offset + 3] = (bits ushr 24).toByte()
+    }
+
+    override fun decode(input: ByteArray, offset: Int, scale: Float?): Float {
+        val bits = (input[offset].toInt() and 0xff) or
+                (input[offset + 1].toInt() and 0xff shl 8) or
+                (input[offset + 2].toInt() and 0xff shl 16) or
+                (input[offset + 3].toInt() and 0xff shl 24)
+        return java.lang.Float.intBitsToFloat(bits)
+    }
+}
+
+private class Float16EmbeddingEncoder : EmbeddingEncoder {
+    override val dtype: String = "float16"
+
+    override val bytesPerComponent: Int = 2
+
+    override fun scale(vector: FloatArray): Float? = null
+
+    override fun encode(value: Float, scale: Float?, output: ByteArray, offset: Int) {
+        val half = toHalf(value)
+        output[offset] = half.toByte()
+        output[offset + 1] = (half ushr 8).toByte()
+    }
+
+    override fun decode(input: ByteArray, offset: Int, scale: Float?): Float {
+        val half = (input[offset].toInt() and 0xff) or (input[offset + 1].toInt() and 0xff shl 8)
+        return fromHalf(half)
+    }
+
+    /**
+     * Convert a float to half precision bits, rounding to nearest even
+     */
+    private fun toHalf(value: Float): Int {
+        val bits = java.lang.Float.floatToRawIntBits(value)
+        val sign = bits ushr 16 and 0x8000
+        val exponent = bits ushr 23 and 0xff
+        val mantissa = bits and 0x7fffff
+        // NaN and infinity
+        if (exponent == 0xff) {
+            return sign or 0x7c00 or (if (mantissa != 0) 0x200 else 0)
+        }
+        val halfExponent = exponent - 127 + 15
+        // Too large, round to infinity
+        if (halfExponent >= 0x1f) {
+            return sign or 0x7c00
+        }
+        // Subnormal half or zero
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                return sign
+            }
+            val fullMantissa = mantissa or 0x800000
+            val shift = 14 - halfExponent
+            var half = fullMantissa ushr shift
+            val remainder = fullMantissa and ((1 shl shift) - 1)
+            val halfway = 1 shl (shift - 1)
+            if (remainder > halfway || (remainder == halfway && half and 1 != 0)) {
+                half++
+            }
+            return sign or half
+        }
+        var half = (halfExponent shl 10) or (mantissa ushr 13)
+        val remainder = mantissa and 0x1fff
+        // A carry into the exponent is the correctly rounded result, up to infinity
+        if (remainder > 0x1000 || (remainder == 0x1000 && half and 1 != 0)) {
+            half++
+        }
+        return sign or half
+    }
+
+    private fun fromHalf(half: Int): Float {
+        val sign = half and 0x8000 shl 16
+        val exponent = half ushr 10 and 0x1f
+        val mantissa = half and 0x3ff
+        return when (exponent) {
+            0 -> {
+                val magnitude = mantissa * SUBNORMAL_UNIT
+                if (sign != 0) -magnitude else magnitude
+            }
+            0x1f -> java.lang.Float.intBitsToFloat(sign or 0x7f800000 or (mantissa shl 13))
+            else -> java.lang.Float.intBitsToFloat(sign or (exponent + 112 shl 23) or (mantissa shl 13))
+        }
+    }
+
+    private companion object {
+        // 2^-24, the value of the smallest subnormal half
+        const val SUBNORMAL_UNIT = 5.9604645E-8F
+    }
+}
+
+private class Int8EmbeddingEncoder : EmbeddingEncoder {
+    override val dtype: String = "int8"
+
+    override val bytesPerComponent: Int = 1
+
+    override fun scale(vector: FloatArray): Float {
+        var maxAbs = 0F
+        for (value in vector) {
+            maxAbs = max(maxAbs, abs(value))
+        }
+        // A zero vector is encoded as zeros with any scale
+        return if (maxAbs > 0F) maxAbs / 127F else 1F
+    }
+
+    override fun encode(value: Float, scale: Float?, output: ByteArray, offset: Int) {
+        output[offset] = (value / scale!!).roundToInt().coerceIn(-127, 127).toByte()
+    }
+
+    override fun decode(input: ByteArray, offset: Int, scale: Float?): Float {
+        return input[offset] * scale!!
+    }
+}
@@ -17,7 +17,12 @@
 package io.nyris.sdk
 
 import androidx.annotation.IntRange
+import io.reactivex.Flowable
 import io.reactivex.Single
+import okio.Source
+import java.io.File
+import java.io.InputStream
+import java.util.concurrent.TimeUnit
 
 /**
  * IImageMatchingApi.kt - interface for sending request to image matching api.
@@ -127,6 +132,72 @@ interface IImageMatchingApi {
         action: FiltersOptions.() -> Unit = {}
     ): IImageMatchingApi
 
+    /**
+     * Set Offer Fields
+     * Decode only these fields of the offers returned by the next call, the values of the other fields are
+     * skipped and keep their default value. Applies to OfferResponse and streamed offers.
+     *
+     * @param fields the offer fields to decode
+     * @return the current instance of IImageMatchingApi
+     * @see OfferField
+     */
+    fun fields(vararg fields: OfferField): IImageMatchingApi
+
+    /**
+     * Set Deadline
+     * Bound the next call, the retries included. When the deadline is reached the http call is cancelled
+     * and the call fails with NyrisTimeoutException. A streamed call is bounded until its response is
+     * received, the offers are then read at the pace of the subscriber.
+     *
+     * @param timeout the deadline of the next call
+     * @param unit the time unit of the timeout
+     * @return the current instance of IImageMatchingApi
+     * @see NyrisTimeoutException
+     */
+    fun deadline(timeout: Long, unit: TimeUnit): IImageMatchingApi
+
+    /**
+     * Set Priority
+     * Send the next call with the request pool of the priority, interactive by default.
+     *
+     * @param priority the priority of the next call
+     * @return the current instance of IImageMatchingApi
+     * @see RequestPriority
+     */
+    fun priority(priority: RequestPriority): IImageMatchingApi
+
+    /**
+     * Set Embedding Encoder
+     * Used to encode the float array sent by {@link #match(image : FloatArray) label}, e.g.
+     * {@link EmbeddingEncoder#FLOAT16} or {@link EmbeddingEncoder#INT8} to quantize the embedding.
+     *
+     * @param encoder the embedding encoder
+     * @return the current instance of IImageMatchingApi
+     * @see EmbeddingEncoder
+     */
+    fun embeddingEncoder(encoder: EmbeddingEncoder): IImageMatchingApi
+
+    /**
+     * Get Cache Stats
+     * Counters of the image matching result cache enabled by {@link NyrisConfig#matchCache}.
+     * Only byte array images are cached.
+     *
+     * @return the cache stats
+     * @see MatchCacheConfig
+     */
+    fun cacheStats(): CacheStats
+
+    /**
+     * New Request
+     * Start an immutable request seeded with the output format, the language and the embedding encoder of
+     * the api. Unlike the options set on the api, a built request isn't reset by the call, so it can be
+     * shared by concurrent calls, e.g. newRequest().similarity().limit(50).build()
+     *
+     * @return the request builder
+     * @see MatchRequest
+     */
+    fun newRequest(): MatchRequest.Builder
+
     /**
      * Match image byte array
      *
@@ -142,11 +213,42 @@ interface IImageMatchingApi {
      *
      * Default image matching method for the advanced response return, please use
      * {@link #match(image : ByteArray, clazz : Class<T>) label}
-     * @param image the image float array
+     * @param image the image float array, NaN and infinite components are rejected with IllegalArgumentException
      * @return the Single{Observable} OfferResponseBody
      */
     fun match(image: FloatArray): Single<OfferResponse>
 
+    /**
+     * Match image file
+     *
+     * The image is streamed from disk into the request, it is never fully loaded into memory.
+     * @param image the image file
+     * @return the Single{Observable} OfferResponseBody
+     */
+    fun match(image: File): Single<OfferResponse>
+
+    /**
+     * Match image input stream
+     *
+     * The image is streamed into the request and the stream is closed once it is consumed.
+     * The request body can be sent only once, so failed requests are not retried.
+     * Use {@link #match(image : File) label} when retries are needed.
+     * @param image the image input stream
+     * @return the Single{Observable} OfferResponseBody
+     */
+    fun match(image: InputStream): Single<OfferResponse>
+
+    /**
+     * Match image source
+     *
+     * The image is streamed into the request and the source is closed once it is consumed.
+     * The request body can be sent only once, so failed requests are not retried.
+     * Use {@link #match(image : File) label} when retries are needed.
+     * @param image the image source
+     * @return the Single{Observable} OfferResponseBody
+     */
+    fun match(image: Source): Single<OfferResponse>
+
     /**
      * Generic Match image byte array
      *
@@ -160,10 +262,188 @@ interface IImageMatchingApi {
     /**
      * Generic Match image float array
      *
-     * @param image the image float array
+     * @param image the image float array, NaN and infinite components are rejected with IllegalArgumentException
      * @param clazz the desired return response class
      * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
      * {@link OfferResponse} or {@link JsonResponseBody}
      */
     fun <T : IResponse> match(image: FloatArray, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image file
+     *
+     * @param image the image file
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(image: File, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image input stream
+     *
+     * @param image the image input stream
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(image: InputStream, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image source
+     *
+     * @param image the image source
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(image: Source, clazz: Class<T>): Single<T>
+
+    /**
+     * Streaming Match image byte array
+     * Emit each offer as soon as it is decoded, while the response is still downloading.
+     *
+     * @param image the image byte array
+     * @return the Flowable of offers
+     * @see #matchStreaming(ByteArray, OfferResponseSummaryListener)
+     */
+    fun matchStreaming(image: ByteArray): Flowable<Offer>
+
+    /**
+     * Streaming Match image byte array
+     * Emit each offer as soon as it is decoded, while the response is still downloading. Offers are read
+     * from the network as they are requested, cancelling the subscription aborts the request.
+     *
+     * @param image the image byte array
+     * @param summaryListener the listener of the request id, session and predicted categories, notified
+     * before the completion
+     * @return the Flowable of offers
+     */
+    fun matchStreaming(image: ByteArray, summaryListener: OfferResponseSummaryListener?): Flowable<Offer>
+
+    /**
+     * Match image byte array with request
+     * The options set on the api are ignored and kept for the next call.
+     *
+     * @param request the match request
+     * @param image the image byte array
+     * @return the Single{Observable} OfferResponseBody
+     * @see #newRequest()
+     */
+    fun match(request: MatchRequest, image: ByteArray): Single<OfferResponse>
+
+    /**
+     * Generic Match image byte array with request
+     *
+     * @param request the match request
+     * @param image the image byte array
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(request: MatchRequest, image: ByteArray, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image float array with request
+     * The float array is encoded with the embedding encoder of the request.
+     *
+     * @param request the match request
+     * @param image the image float array, NaN and infinite components are rejected with IllegalArgumentException
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(request: MatchRequest, image: FloatArray, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image file with request
+     *
+     * @param request the match request
+     * @param image the image file
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(request: MatchRequest, image: File, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image input stream with request
+     *
+     * @param request the match request
+     * @param image the image input stream
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(request: MatchRequest, image: InputStream, clazz: Class<T>): Single<T>
+
+    /**
+     * Generic Match image source with request
+     *
+     * @param request the match request
+     * @param image the image source
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> match(request: MatchRequest, image: Source, clazz: Class<T>): Single<T>
+
+    /**
+     * Streaming Match image byte array with request
+     *
+     * @param request the match request
+     * @param image the image byte array
+     * @param summaryListener the listener of the request id, session and predicted categories, notified
+     * before the completion
+     * @return the Flowable of offers
+     * @see #matchStreaming(ByteArray, OfferResponseSummaryListener)
+     */
+    fun matchStreaming(
+        request: MatchRequest,
+        image: ByteArray,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer>
+
+    /**
+     * Batch Match images
+     * Match the images with the options set on the api, at most parallelism images are sent at the same
+     * time and the next images are requested from the producer as the results are emitted. The error of an
+     * image is returned as its result, the batch goes on with the other images.
+     *
+     * @param images the flowable of images
+     * @param parallelism the maximum number of images sent at the same time
+     * @param ordered true to emit the results in the order of the images, false to emit them as they complete
+     * @return the Flowable of results, tagged with the index of their image
+     * @see BatchResult
+     */
+    fun matchAll(
+        images: Flowable<ImageInput>,
+        parallelism: Int,
+        ordered: Boolean
+    ): Flowable<BatchResult<OfferResponse>>
+
+    /**
+     * Generic Batch Match images with request
+     * Each image keeps its own retries and deadline of the request. An image rejected by the open circuit or
+     * the concurrency limit of the endpoint is returned as cancelled.
+     *
+     * @param request the match request shared by the images
+     * @param images the flowable of images
+     * @param parallelism the maximum number of images sent at the same time
+     * @param ordered true to emit the results in the order of the images, false to emit them as they complete
+     * @param clazz the desired return response class
+     * @param statsListener the listener of the images and bytes per second of the batch, notified before the
+     * completion
+     * @return the Flowable of results, tagged with the index of their image
+     * @see BatchResult
+     * @see BatchStats
+     */
+    fun <T : IResponse> matchAll(
+        request: MatchRequest,
+        images: Flowable<ImageInput>,
+        parallelism: Int,
+        ordered: Boolean,
+        clazz: Class<T>,
+        statsListener: BatchStatsListener?
+    ): Flowable<BatchResult<T>>
 }
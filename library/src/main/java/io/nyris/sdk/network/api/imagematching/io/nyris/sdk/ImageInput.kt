@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import java.io.File
+
+/**
+ * ImageInput.kt - image of a batch match, a byte array, a file or a float array embedding. The images
+ * of a batch can be sent again, so each image keeps its retries.
+ *
+ * @see IImageMatchingApi#matchAll
+ */
+sealed class ImageInput {
+    /**
+     * Image byte array
+     */
+    class Bytes(val image: ByteArray) : ImageInput()
+
+    /**
+     * Image file, read from disk when it is sent
+     */
+    class ImageFile(val image: File) : ImageInput()
+
+    /**
+     * Image float array embedding, encoded with the embedding encoder of the request
+     */
+    class Embedding(val image: FloatArray) : ImageInput()
+
+    companion object {
+        @JvmStatic
+        fun of(image: ByteArray): ImageInput = Bytes(image)
+
+        @JvmStatic
+        fun of(image: File): ImageInput = ImageFile(image)
+
+        @JvmStatic
+        fun of(image: FloatArray): ImageInput = Embedding(image)
+    }
+}
@@ -16,14 +16,22 @@
 
 package io.nyris.sdk
 
-import android.util.Base64
 import com.google.gson.Gson
+import io.reactivex.Flowable
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.MultipartBody
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.asRequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
-import java.nio.ByteBuffer
-import java.nio.ByteOrder
+import okio.Source
+import okio.source
+import java.io.File
+import java.io.InputStream
+import java.util.concurrent.TimeUnit
 
 /**
  * ImageMatchingApi.kt - class that implement IImageMatchingApi interface.
@@ -39,35 +47,24 @@ internal class ImageMatchingApi(
     private var language: String,
     private var gson: Gson,
     apiHeader: ApiHeader,
+    private val imagePreprocessor: ImagePreprocessor,
+    private var embeddingEncoder: EmbeddingEncoder,
+    private val matchResultCache: MatchResultCache,
+    private val singleFlight: SingleFlight,
+    private val hedging: Hedging,
 ) : Api(apiHeader), IImageMatchingApi {
 
-    private val exactOptions: ExactOptions = ExactOptions()
-    private val similarityOptions: SimilarityOptions = SimilarityOptions()
-    private val ocrOptions: OcrOptions = OcrOptions()
-    private val regroupOptions: RegroupOptions = RegroupOptions()
-    private val recommendationOptions: RecommendationOptions = RecommendationOptions()
-    private val categoryPredictionOptions: CategoryPredictionOptions = CategoryPredictionOptions()
-    private val filtersOptions: FiltersOptions = FiltersOptions()
-    private var limit: Int = 20
-
     /**
-     * Init local properties
+     * Options of the next call set on the api, taken by the calls without a request
      */
-    private fun reset() {
-        exactOptions.reset()
-        similarityOptions.reset()
-        ocrOptions.reset()
-        recommendationOptions.reset()
-        categoryPredictionOptions.reset()
-        filtersOptions.reset()
-        limit = 20
-    }
+    private var builder: MatchRequest.Builder = newRequest()
 
     /**
      * {@inheritDoc}
      */
     override fun outputFormat(outputFormat: String): ImageMatchingApi {
         this.outputFormat = outputFormat
+        builder.outputFormat(outputFormat)
         return this
     }
 
@@ -76,6 +73,7 @@ internal class ImageMatchingApi(
      */
     override fun language(language: String): ImageMatchingApi {
         this.language = language
+        builder.language(language)
         return this
     }
 
@@ -83,7 +81,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun exact(action: ExactOptions.() -> Unit): IImageMatchingApi {
-        action(exactOptions)
+        builder.exact(action)
         return this
     }
 
@@ -91,7 +89,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun similarity(action: SimilarityOptions.() -> Unit): IImageMatchingApi {
-        action(similarityOptions)
+        builder.similarity(action)
         return this
     }
 
@@ -99,7 +97,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun ocr(action: OcrOptions.() -> Unit): IImageMatchingApi {
-        action(ocrOptions)
+        builder.ocr(action)
         return this
     }
 
@@ -107,7 +105,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun limit(limit: Int): IImageMatchingApi {
-        this.limit = limit
+        builder.limit(limit)
         return this
     }
 
@@ -115,7 +113,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun regroup(action: RegroupOptions.() -> Unit): IImageMatchingApi {
-        action(regroupOptions)
+        builder.regroup(action)
         return this
     }
 
@@ -123,7 +121,7 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun recommendations(action: RecommendationOptions.() -> Unit): IImageMatchingApi {
-        action(recommendationOptions)
+        builder.recommendations(action)
         return this
     }
 
@@ -133,7 +131,7 @@ internal class ImageMatchingApi(
     override fun categoryPrediction(
         action: CategoryPredictionOptions.() -> Unit
     ): IImageMatchingApi {
-        action(categoryPredictionOptions)
+        builder.categoryPrediction(action)
         return this
     }
 
@@ -141,186 +139,549 @@ internal class ImageMatchingApi(
      * {@inheritDoc}
      */
     override fun filters(action: FiltersOptions.() -> Unit): IImageMatchingApi {
-        action(filtersOptions)
+        builder.filters(action)
+        return this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun fields(vararg fields: OfferField): IImageMatchingApi {
+        builder.fields(*fields)
+        return this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun deadline(timeout: Long, unit: TimeUnit): IImageMatchingApi {
+        builder.deadline(timeout, unit)
+        return this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun priority(priority: RequestPriority): IImageMatchingApi {
+        builder.priority(priority)
+        return this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun embeddingEncoder(encoder: EmbeddingEncoder): IImageMatchingApi {
+        this.embeddingEncoder = encoder
+        builder.embeddingEncoder(encoder)
         return this
     }
 
     /**
      * {@inheritDoc}
      */
+    override fun cacheStats(): CacheStats {
+        return matchResultCache.stats()
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    override fun newRequest(): MatchRequest.Builder {
+        return MatchRequest.Builder(outputFormat, language, embeddingEncoder)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
     override fun buildXOptions(): String {
-        var xOptions = ""
+        return builder.xOptions()
+    }
 
-        if (exactOptions.enabled && xOptions.isEmpty()) {
-            xOptions = "exact"
-        }
+    /**
+     * Build the request of the options set on the api, the options of the next call start from the defaults
+     *
+     * @return the match request
+     * @throws IllegalStateException when the options are not valid
+     */
+    private fun takeRequest(): MatchRequest {
+        val builder = builder
+        // you need to reset the options before send the query to allow the 2nd request to be executed
+        this.builder = newRequest()
+        return builder.build()
+    }
 
-        if (similarityOptions.enabled && xOptions.isEmpty()) {
-            xOptions = "similarity"
-        } else if (similarityOptions.enabled) {
-            xOptions += " +similarity"
+    /**
+     * Send the call with the request of the options set on the api
+     */
+    private fun <T : IResponse> withRequest(call: (MatchRequest) -> Single<T>): Single<T> {
+        val request = try {
+            takeRequest()
+        } catch (e: IllegalStateException) {
+            return Single.error(e)
         }
+        return call(request)
+    }
 
-        if (ocrOptions.enabled && xOptions.isEmpty()) {
-            xOptions = "ocr"
-        } else if (ocrOptions.enabled) {
-            xOptions += " +ocr"
-        }
+    /**
+     * Build Headers of the request for image matching endpoint
+     */
+    private fun buildHeaders(request: MatchRequest): HashMap<String, String> {
+        val headers = createDefaultHeadersMap()
+        headers.putAll(request.headers)
+        return headers
+    }
 
-        if (similarityOptions.enabled && similarityOptions.limit != -1) {
-            xOptions += " similarity.limit=${similarityOptions.limit}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun match(image: ByteArray): Single<OfferResponse> {
+        return match(image, OfferResponse::class.java)
+    }
 
-        if (similarityOptions.enabled && similarityOptions.threshold != -1F) {
-            xOptions += " similarity.threshold=${similarityOptions.threshold}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun match(image: FloatArray): Single<OfferResponse> {
+        return match(image, OfferResponse::class.java)
+    }
 
-        if (regroupOptions.enabled) {
-            xOptions += " +regroup"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun match(image: File): Single<OfferResponse> {
+        return match(image, OfferResponse::class.java)
+    }
 
-        if (regroupOptions.enabled && regroupOptions.threshold != -1F) {
-            xOptions += " regroup.threshold=${regroupOptions.threshold}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun match(image: InputStream): Single<OfferResponse> {
+        return match(image, OfferResponse::class.java)
+    }
 
-        if (limit != 20) {
-            xOptions += " limit=$limit"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun match(image: Source): Single<OfferResponse> {
+        return match(image, OfferResponse::class.java)
+    }
 
-        if (recommendationOptions.enabled) {
-            xOptions += " +recommendations"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(image: ByteArray, clazz: Class<T>): Single<T> {
+        return withRequest { request -> match(request, image, clazz) }
+    }
 
-        if (categoryPredictionOptions.enabled) {
-            xOptions += " +category-prediction"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(image: FloatArray, clazz: Class<T>): Single<T> {
+        return withRequest { request -> match(request, image, clazz) }
+    }
 
-        if (categoryPredictionOptions.enabled && categoryPredictionOptions.limit != -1) {
-            xOptions += " category-prediction.limit=${categoryPredictionOptions.limit}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(image: File, clazz: Class<T>): Single<T> {
+        return withRequest { request -> match(request, image, clazz) }
+    }
 
-        if (categoryPredictionOptions.enabled && categoryPredictionOptions.threshold != -1F) {
-            xOptions += " category-prediction.threshold=${categoryPredictionOptions.threshold}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(image: InputStream, clazz: Class<T>): Single<T> {
+        return withRequest { request -> match(request, image, clazz) }
+    }
 
-        return xOptions
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(image: Source, clazz: Class<T>): Single<T> {
+        return withRequest { request -> match(request, image, clazz) }
     }
 
     /**
-     * Build Headers for image matching endpoint
+     * {@inheritDoc}
      */
-    private fun buildHeaders(contentSize: Int): HashMap<String, String> {
-        val headers = createDefaultHeadersMap()
-        val xoptions = buildXOptions()
-        headers["Accept"] = "$outputFormat; charset=UTF-8"
-        headers["Accept-Language"] = language
-        headers["Content-Length"] = contentSize.toString()
-        if (xoptions.isNotEmpty()) {
-            headers["X-Options"] = xoptions
+    override fun matchStreaming(image: ByteArray): Flowable<Offer> {
+        return matchStreaming(image, null)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun matchStreaming(
+        image: ByteArray,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer> {
+        val request = try {
+            takeRequest()
+        } catch (e: IllegalStateException) {
+            return Flowable.error(e)
         }
-        return headers
+        return matchStreaming(request, image, summaryListener)
     }
 
     /**
      * {@inheritDoc}
      */
-    override fun match(image: ByteArray): Single<OfferResponse> {
-        return match(image, OfferResponse::class.java)
+    override fun match(request: MatchRequest, image: ByteArray): Single<OfferResponse> {
+        return match(request, image, OfferResponse::class.java)
     }
 
     /**
      * {@inheritDoc}
      */
-    override fun match(image: FloatArray): Single<OfferResponse> {
-        return match(image, OfferResponse::class.java)
+    override fun <T : IResponse> match(request: MatchRequest, image: ByteArray, clazz: Class<T>): Single<T> {
+        return matchImagePart(request, imagePart(image), clazz, image) { image }
     }
 
-    private fun encodeFloatArray(floatArray: FloatArray): String {
-        val buf = ByteBuffer
-            .allocate(java.lang.Float.SIZE / java.lang.Byte.SIZE * floatArray.size)
-            .order(ByteOrder.LITTLE_ENDIAN)
-        buf.asFloatBuffer().put(floatArray)
-        return Base64.encodeToString(buf.array(), Base64.NO_WRAP)
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(request: MatchRequest, image: File, clazz: Class<T>): Single<T> {
+        // File bodies are read from disk on every write, so they can be replayed on retry
+        val imagePart = if (imagePreprocessor.isEnabled) {
+            Single
+                .fromCallable {
+                    imagePreprocessor.process(image)?.toRequestBody(IMAGE_MEDIA_TYPE)
+                        ?: image.asRequestBody(IMAGE_MEDIA_TYPE)
+                }
+                .subscribeOn(Schedulers.computation())
+        } else {
+            Single.just(image.asRequestBody(IMAGE_MEDIA_TYPE))
+        }
+        // The file is identified by its path and version, so the key doesn't need to read it
+        return matchImagePart(request, imagePart, clazz) {
+            "${image.absolutePath}:${image.length()}:${image.lastModified()}"
+        }
     }
 
     /**
      * {@inheritDoc}
      */
-    override fun <T : IResponse> match(image: ByteArray, clazz: Class<T>): Single<T> {
-        if (recommendationOptions.enabled &&
-            !ternaryOr(exactOptions.enabled, similarityOptions.enabled, ocrOptions.enabled)
-        ) {
-            val exception =
-                Exception(
-                    "To use the recommendation feature, you need to enable one of this stages : " +
-                            "exact, similarity, ocr."
-                )
-            return Single.error(exception)
+    override fun <T : IResponse> match(request: MatchRequest, image: InputStream, clazz: Class<T>): Single<T> {
+        return match(request, image.source(), clazz)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(request: MatchRequest, image: Source, clazz: Class<T>): Single<T> {
+        return matchImagePart(request, Single.just(StreamingRequestBody(image, IMAGE_MEDIA_TYPE)), clazz)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> match(request: MatchRequest, image: FloatArray, clazz: Class<T>): Single<T> {
+        // The float array is encoded while the body is written, the length is counted in bytes
+        val body = try {
+            EmbeddingRequestBody(image, request.embeddingEncoder)
+        } catch (e: IllegalArgumentException) {
+            return Single.error(e)
         }
+        return matchEmbedding(request, image, body, clazz)
+    }
 
-        if (regroupOptions.enabled &&
-            !ternaryOr(exactOptions.enabled, similarityOptions.enabled, ocrOptions.enabled)
-        ) {
-            val exception =
-                Exception(
-                    "To use the regrouping feature, you need to enable one of this stages : " +
-                            "exact, similarity, ocr."
-                )
-            return Single.error(exception)
+    /**
+     * Match the embedding request body on the semantic search endpoint
+     */
+    private fun <T : IResponse> matchEmbedding(
+        request: MatchRequest,
+        image: FloatArray,
+        body: EmbeddingRequestBody,
+        clazz: Class<T>
+    ): Single<T> {
+        val headers = buildHeaders(request)
+        val dtype = request.embeddingEncoder.dtype
+        val fields = request.fields
+        val requestHeaders = withContentLength(BulkheadCallFactory.headers(headers, request.priority), body)
+
+        // A raw response is handed to the caller, a hedged duplicate would be left unread
+        val obs1 = if (isOneShot(clazz)) {
+            imageMatchingService.semanticSearch2(requestHeaders, body)
+        } else {
+            hedging.execute(true) { isHedged ->
+                imageMatchingService.semanticSearch2(Hedging.headers(requestHeaders, isHedged), body)
+            }
+        }
+        val response = convertResponseBodyBasedOnType(obs1, clazz, gson, fields)
+        if (isOneShot(clazz)) {
+            return withDeadline(response, request.deadlineMillis)
         }
+        val shared = singleFlight.execute(
+            { SingleFlight.key(ENDPOINT_SEMANTIC_SEARCH, headers, image, dtype, clazz.name, fields) },
+            response
+        )
+        return withDeadline(shared, request.deadlineMillis)
+    }
 
-        val headers = buildHeaders(image.size)
-        val imagePart = image.toRequestBody("image/jpg".toMediaTypeOrNull())
-        val multiPartBody = MultipartBody.Builder().setType(MultipartBody.FORM)
-            .buildFiltersParts()
-            .addFormDataPart("image", "image.jpg", imagePart)
-            .build()
+    /**
+     * {@inheritDoc}
+     */
+    override fun matchStreaming(
+        request: MatchRequest,
+        image: ByteArray,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer> {
+        val requestHeaders = BulkheadCallFactory.headers(buildHeaders(request), request.priority)
+        val network = imagePart(image)
+            .map { part -> buildMatchBody(part, request.filters) }
+            .flatMap { body -> imageMatchingService.matchStreaming(withContentLength(requestHeaders, body), body) }
+        return convertResponseBodyToOffers(
+            withDeadline(network, request.deadlineMillis),
+            gson,
+            summaryListener,
+            request.fields
+        )
+    }
 
-        // you need to call reset before send the query to allow the 2nd request to be executed
-        reset()
-        val obs1 = imageMatchingService.match(headers, multiPartBody)
-        return convertResponseBodyBasedOnType(image, obs1, clazz, gson)
+    /**
+     * {@inheritDoc}
+     */
+    override fun matchAll(
+        images: Flowable<ImageInput>,
+        parallelism: Int,
+        ordered: Boolean
+    ): Flowable<BatchResult<OfferResponse>> {
+        val request = try {
+            takeRequest()
+        } catch (e: IllegalStateException) {
+            return Flowable.error(e)
+        }
+        return matchAll(request, images, parallelism, ordered, OfferResponse::class.java, null)
     }
 
     /**
      * {@inheritDoc}
      */
-    override fun <T : IResponse> match(image: FloatArray, clazz: Class<T>): Single<T> {
-        if (recommendationOptions.enabled &&
-            !ternaryOr(exactOptions.enabled, similarityOptions.enabled, ocrOptions.enabled)
-        ) {
-            val exception =
-                Exception(
-                    "To use the recommendation feature, you need to enable one of this stages : " +
-                            "exact, similarity."
+    override fun <T : IResponse> matchAll(
+        request: MatchRequest,
+        images: Flowable<ImageInput>,
+        parallelism: Int,
+        ordered: Boolean,
+        clazz: Class<T>,
+        statsListener: BatchStatsListener?
+    ): Flowable<BatchResult<T>> {
+        if (parallelism <= 0) {
+            return Flowable.error(IllegalArgumentException("The parallelism must be positive: $parallelism"))
+        }
+        return Flowable.defer {
+            val counter = BatchStatsCounter()
+            var index = 0L
+            val indexed = images.map { image -> index++ to image }
+            // Both operators request at most parallelism images from the producer, then one per result
+            val results = if (ordered) {
+                indexed.concatMapEager(
+                    { (i, image) -> matchBatchImage(request, i, image, clazz, counter).toFlowable() },
+                    parallelism,
+                    parallelism
+                )
+            } else {
+                indexed.flatMapSingle(
+                    { (i, image) -> matchBatchImage(request, i, image, clazz, counter) },
+                    false,
+                    parallelism
                 )
-            return Single.error(exception)
+            }
+            results.doOnComplete { statsListener?.onStats(counter.stats()) }
         }
+    }
 
-        if (regroupOptions.enabled &&
-            !ternaryOr(exactOptions.enabled, similarityOptions.enabled, ocrOptions.enabled)
-        ) {
-            val exception =
-                Exception(
-                    "To use the regrouping feature, you need to enable one of this stages : " +
-                            "exact, similarity, ocr."
-                )
-            return Single.error(exception)
+    /**
+     * Match an image of a batch, its errors are returned as its result so they don't end the batch
+     */
+    private fun <T : IResponse> matchBatchImage(
+        request: MatchRequest,
+        index: Long,
+        image: ImageInput,
+        clazz: Class<T>,
+        counter: BatchStatsCounter
+    ): Single<BatchResult<T>> {
+        return Single.defer {
+            // The size of an embedding is the length of its request body, an invalid embedding sends nothing
+            var size = 0L
+            val response = when (image) {
+                is ImageInput.Bytes -> {
+                    size = image.image.size.toLong()
+                    match(request, image.image, clazz)
+                }
+                is ImageInput.ImageFile -> {
+                    size = image.image.length()
+                    match(request, image.image, clazz)
+                }
+                is ImageInput.Embedding -> try {
+                    val body = EmbeddingRequestBody(image.image, request.embeddingEncoder)
+                    size = body.contentLength()
+                    matchEmbedding(request, image.image, body, clazz)
+                } catch (e: IllegalArgumentException) {
+                    Single.error(e)
+                }
+            }
+            response
+                .map { BatchResult(index, BatchStatus.SUCCESS, it) }
+                .onErrorReturn { error ->
+                    val isRejected = error is CircuitOpenException || error is ConcurrencyLimitExceededException
+                    BatchResult(index, if (isRejected) BatchStatus.REJECTED else BatchStatus.ERROR, error = error)
+                }
+                .doOnSuccess { result -> counter.record(result.status, size) }
         }
+    }
+
+    /**
+     * Await Match
+     * The suspend counterpart of match, the call is enqueued and its response is decoded by its callback without
+     * the Rx singles. The result cache, the single flight and the hedging are built on the singles, so they are
+     * not applied to the suspend calls.
+     *
+     * @param request the match request
+     * @param image the image byte array
+     * @param clazz the desired return response class
+     * @return the response
+     */
+    internal suspend fun <T : IResponse> awaitMatch(request: MatchRequest, image: ByteArray, clazz: Class<T>): T {
+        return awaitWithDeadline(request.deadlineMillis) {
+            val part = if (imagePreprocessor.isEnabled) {
+                withContext(Dispatchers.Default) { imagePreprocessor.process(image) }.toRequestBody(IMAGE_MEDIA_TYPE)
+            } else {
+                image.toRequestBody(IMAGE_MEDIA_TYPE)
+            }
+            awaitMatchBody(request, buildMatchBody(part, request.filters), clazz)
+        }
+    }
 
-        val b64 = encodeFloatArray(image)
-        val json = "{\"b64\":\"$b64\"}"
-        val headers = buildHeaders(json.length)
-        val body = json.toRequestBody("application/json".toMediaTypeOrNull())
+    /**
+     * Await Match of an image file
+     * @see awaitMatch
+     */
+    internal suspend fun <T : IResponse> awaitMatch(request: MatchRequest, image: File, clazz: Class<T>): T {
+        return awaitWithDeadline(request.deadlineMillis) {
+            val part = if (imagePreprocessor.isEnabled) {
+                withContext(Dispatchers.Default) { imagePreprocessor.process(image) }?.toRequestBody(IMAGE_MEDIA_TYPE)
+                    ?: image.asRequestBody(IMAGE_MEDIA_TYPE)
+            } else {
+                image.asRequestBody(IMAGE_MEDIA_TYPE)
+            }
+            awaitMatchBody(request, buildMatchBody(part, request.filters), clazz)
+        }
+    }
 
+    /**
+     * Await Match of an embedding on the semantic search endpoint
+     * @see awaitMatch
+     */
+    internal suspend fun <T : IResponse> awaitMatch(request: MatchRequest, image: FloatArray, clazz: Class<T>): T {
+        val body = EmbeddingRequestBody(image, request.embeddingEncoder)
+        val headers = withContentLength(BulkheadCallFactory.headers(buildHeaders(request), request.priority), body)
+        return awaitWithDeadline(request.deadlineMillis) {
+            awaitCall(imageMatchingService.semanticSearchCall(headers, body)) { responseBody ->
+                convertResponseBody(responseBody, clazz, gson, request.fields)
+            }
+        }
+    }
 
-        val obs1 = imageMatchingService.semanticSearch2(headers, body)
-        return convertResponseBodyBasedOnType(image, obs1, clazz, gson)
+    /**
+     * Send the multipart body to the image matching endpoint and decode its response
+     */
+    private suspend fun <T : IResponse> awaitMatchBody(request: MatchRequest, body: RequestBody, clazz: Class<T>): T {
+        val headers = withContentLength(BulkheadCallFactory.headers(buildHeaders(request), request.priority), body)
+        return awaitCall(imageMatchingService.matchCall(headers, body)) { responseBody ->
+            convertResponseBody(responseBody, clazz, gson, request.fields)
+        }
     }
 
-    private fun MultipartBody.Builder.buildFiltersParts(): MultipartBody.Builder {
-        filtersOptions.list.forEachIndexed { i, filter ->
+    /**
+     * Image part of byte array image, preprocessed on the computation scheduler when it is enabled
+     */
+    private fun imagePart(image: ByteArray): Single<RequestBody> {
+        return if (imagePreprocessor.isEnabled) {
+            Single
+                .fromCallable { imagePreprocessor.process(image).toRequestBody(IMAGE_MEDIA_TYPE) }
+                .subscribeOn(Schedulers.computation())
+        } else {
+            Single.just(image.toRequestBody(IMAGE_MEDIA_TYPE))
+        }
+    }
+
+    /**
+     * Match image part
+     * Wrap the image request body into the multipart form and send it to the image matching endpoint.
+     * The image part may be produced later on another scheduler.
+     *
+     * @param request the match request
+     * @param imagePart the single image request body
+     * @param clazz the desired return response class
+     * @param cacheImage the image bytes used as cache key, null to bypass the result cache
+     * @param flightKey the function that computes the image identity shared by identical in flight
+     * requests, called on subscription, null for one-shot images
+     * @return the generic single
+     */
+    private fun <T : IResponse> matchImagePart(
+        request: MatchRequest,
+        imagePart: Single<RequestBody>,
+        clazz: Class<T>,
+        cacheImage: ByteArray? = null,
+        flightKey: (() -> Any)? = null
+    ): Single<T> {
+        val headers = buildHeaders(request)
+        val filters = request.filters
+        val fields = request.fields
+        val requestHeaders = BulkheadCallFactory.headers(headers, request.priority)
+
+        val network = imagePart.flatMap { part ->
+            val body = buildMatchBody(part, filters)
+            val callHeaders = withContentLength(requestHeaders, body)
+            // A raw response is streamed to the caller instead of being buffered by retrofit
+            if (isOneShot(clazz)) {
+                imageMatchingService.matchStreaming(callHeaders, body)
+            } else {
+                // A one-shot image body can't be sent twice
+                hedging.execute(!body.isOneShot()) { isHedged ->
+                    imageMatchingService.match(Hedging.headers(callHeaders, isHedged), body)
+                }
+            }
+        }
+        // The image part is only prepared on cache miss
+        val obs1 = if (cacheImage != null && matchResultCache.isEnabled) {
+            matchResultCache.getOrFetch(cacheImage, headers, filters, network)
+        } else {
+            network
+        }
+        val response = convertResponseBodyBasedOnType(obs1, clazz, gson, fields)
+        if (flightKey == null || isOneShot(clazz)) {
+            return withDeadline(response, request.deadlineMillis)
+        }
+        val filtersKey = filters.joinToString { "${it.filterType}=${it.filterValue}" }
+        val shared = singleFlight.execute(
+            { SingleFlight.key(ENDPOINT_MATCH, headers, flightKey(), filtersKey, clazz.name, fields) },
+            response
+        )
+        return withDeadline(shared, request.deadlineMillis)
+    }
+
+    /**
+     * Build the multipart body of the image part and the filters
+     */
+    private fun buildMatchBody(part: RequestBody, filters: List<Filter>): RequestBody {
+        val multiPartBody = MultipartBody.Builder().setType(MultipartBody.FORM)
+            .buildFiltersParts(filters)
+            .addFormDataPart("image", "image.jpg", part)
+            .build()
+        return if (part.isOneShot()) multiPartBody.asOneShot() else multiPartBody
+    }
+
+    /**
+     * Headers with the Content-Length of the body, unknown for streamed images that are sent chunked
+     */
+    private fun withContentLength(headers: Map<String, String>, body: RequestBody): Map<String, String> {
+        val contentLength = body.contentLength()
+        return if (contentLength >= 0) headers + ("Content-Length" to contentLength.toString()) else headers
+    }
+
+    private fun MultipartBody.Builder.buildFiltersParts(filters: List<Filter>): MultipartBody.Builder {
+        filters.forEachIndexed { i, filter ->
             addFormDataPart("filters[$i].filterType", filter.filterType)
             filter.filterValue.forEachIndexed { j, value ->
                 addFormDataPart("filters[$i].filterValues[$j]", value)
@@ -328,4 +689,10 @@ internal class ImageMatchingApi(
         }
         return this
     }
+
+    companion object {
+        private val IMAGE_MEDIA_TYPE = "image/jpg".toMediaTypeOrNull()
+        private const val ENDPOINT_MATCH = "match"
+        private const val ENDPOINT_SEMANTIC_SEARCH = "semanticSearch"
+    }
 }
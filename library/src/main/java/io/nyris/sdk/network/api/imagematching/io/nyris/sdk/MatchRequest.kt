@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import androidx.annotation.IntRange
+import java.util.Collections
+import java.util.EnumSet
+import java.util.concurrent.TimeUnit
+
+/**
+ * MatchRequest.kt - immutable options of an image matching call, built by {@link IImageMatchingApi#newRequest}.
+ * The X-Options and the headers of the options are computed once when the request is built, so the same request
+ * can be sent many times and from many threads.
+ *
+ * @see IImageMatchingApi#match(MatchRequest, ByteArray)
+ */
+class MatchRequest private constructor(builder: Builder) {
+    val outputFormat: String = builder.outputFormat
+    val language: String = builder.language
+    val xOptions: String = builder.xOptions()
+    val filters: List<Filter> = Collections.unmodifiableList(builder.filtersOptions.list.toList())
+    val fields: Set<OfferField>? = builder.fields?.let { Collections.unmodifiableSet(EnumSet.copyOf(it)) }
+    val deadlineMillis: Long? = builder.deadlineMillis
+    val priority: RequestPriority = builder.priority
+    val embeddingEncoder: EmbeddingEncoder = builder.embeddingEncoder
+
+    /**
+     * The Accept, Accept-Language and X-Options headers, the api key headers are added when the request is sent
+     */
+    val headers: Map<String, String> = HashMap<String, String>().let { headers ->
+        headers["Accept"] = "$outputFormat; charset=UTF-8"
+        headers["Accept-Language"] = language
+        if (xOptions.isNotEmpty()) {
+            headers["X-Options"] = xOptions
+        }
+        Collections.unmodifiableMap(headers)
+    }
+
+    /**
+     * Builder of MatchRequest, seeded with the output format, the language and the embedding encoder of the
+     * api. A builder is not thread safe, each call builds its own request.
+     */
+    @Suppress("DEPRECATION")
+    class Builder internal constructor(
+        internal var outputFormat: String,
+        internal var language: String,
+        internal var embeddingEncoder: EmbeddingEncoder
+    ) {
+        private val exactOptions: ExactOptions = ExactOptions()
+        private val similarityOptions: SimilarityOptions = SimilarityOptions()
+        private val ocrOptions: OcrOptions = OcrOptions()
+        private val regroupOptions: RegroupOptions = RegroupOptions()
+        private val recommendationOptions: RecommendationOptions = RecommendationOptions()
+        private val categoryPredictionOptions: CategoryPredictionOptions = CategoryPredictionOptions()
+        internal val filtersOptions: FiltersOptions = FiltersOptions()
+        internal var limit: Int = DEFAULT_LIMIT
+        internal var fields: Set<OfferField>? = null
+        internal var deadlineMillis: Long? = null
+        internal var priority: RequestPriority = RequestPriority.INTERACTIVE
+
+        /**
+         * Set Output Format
+         *
+         * @param outputFormat the output format
+         * @return the current instance of the builder
+         */
+        fun outputFormat(outputFormat: String): Builder {
+            this.outputFormat = outputFormat
+            return this
+        }
+
+        /**
+         * Set Filter Language
+         *
+         * @param language the language
+         * @return the current instance of the builder
+         */
+        fun language(language: String): Builder {
+            this.language = language
+            return this
+        }
+
+        /**
+         * Enable exact matching phase
+         *
+         * @param action parameter function function type with ExactOptions receiver.
+         * @return the current instance of the builder
+         * @see ExactOptions
+         */
+        @JvmOverloads
+        fun exact(action: ExactOptions.() -> Unit = { enabled = true }): Builder {
+            action(exactOptions)
+            return this
+        }
+
+        /**
+         * Enable similarity phase
+         *
+         * @param action parameter function function type with SimilarityOptions receiver.
+         * @return the current instance of the builder
+         * @see SimilarityOptions
+         */
+        @JvmOverloads
+        fun similarity(action: SimilarityOptions.() -> Unit = { enabled = true }): Builder {
+            action(similarityOptions)
+            return this
+        }
+
+        /**
+         * Enable OCR phase
+         *
+         * @param action parameter function function type with OcrOptions receiver.
+         * @return the current instance of the builder
+         * @see OcrOptions
+         */
+        @JvmOverloads
+        fun ocr(action: OcrOptions.() -> Unit = { enabled = true }): Builder {
+            action(ocrOptions)
+            return this
+        }
+
+        /**
+         * Set Return Limit
+         *
+         * @param limit limit int value between 1-100 helps to limit returned response.
+         * @return the current instance of the builder
+         */
+        fun limit(@IntRange(from = 1, to = 100) limit: Int): Builder {
+            this.limit = limit
+            return this
+        }
+
+        /**
+         * Enable Offers Regroup
+         *
+         * @param action parameter function function type with RegroupOptions receiver.
+         * @return the current instance of the builder
+         * @see RegroupOptions
+         */
+        @JvmOverloads
+        fun regroup(action: RegroupOptions.() -> Unit = { enabled = true }): Builder {
+            action(regroupOptions)
+            return this
+        }
+
+        /**
+         * Enable Offer Recommendation
+         *
+         * @param action parameter function function type with RecommendationOptions receiver.
+         * @return the current instance of the builder
+         * @see RecommendationOptions
+         */
+        @JvmOverloads
+        fun recommendations(action: RecommendationOptions.() -> Unit = { enabled = true }): Builder {
+            action(recommendationOptions)
+            return this
+        }
+
+        /**
+         * Enable the output of predicted categories.
+         *
+         * @param action parameter function function type with CategoryPredictionOptions receiver.
+         * @return the current instance of the builder
+         * @see CategoryPredictionOptions
+         */
+        @JvmOverloads
+        fun categoryPrediction(action: CategoryPredictionOptions.() -> Unit = { enabled = true }): Builder {
+            action(categoryPredictionOptions)
+            return this
+        }
+
+        /**
+         * Set filter options, that allow to have a prefiltered results
+         *
+         * @param action parameter function function type with FiltersOptions receiver.
+         * @return the current instance of the builder
+         * @see FiltersOptions
+         */
+        fun filters(action: FiltersOptions.() -> Unit): Builder {
+            action(filtersOptions)
+            return this
+        }
+
+        /**
+         * Set Offer Fields
+         * Decode only these fields of the returned offers, the values of the other fields are skipped and
+         * keep their default value.
+         *
+         * @param fields the offer fields to decode
+         * @return the current instance of the builder
+         * @see OfferField
+         */
+        fun fields(vararg fields: OfferField): Builder {
+            this.fields = fields.toCollection(EnumSet.noneOf(OfferField::class.java))
+            return this
+        }
+
+        /**
+         * Set Deadline
+         * Bound the call, the retries included. When the deadline is reached the call fails with
+         * NyrisTimeoutException.
+         *
+         * @param timeout the deadline of the call
+         * @param unit the time unit of the timeout
+         * @return the current instance of the builder
+         * @see NyrisTimeoutException
+         */
+        fun deadline(timeout: Long, unit: TimeUnit): Builder {
+            deadlineMillis = unit.toMillis(timeout)
+            return this
+        }
+
+        /**
+         * Set Priority
+         * Send the call with the request pool of the priority, interactive by default.
+         *
+         * @param priority the priority of the call
+         * @return the current instance of the builder
+         * @see RequestPriority
+         */
+        fun priority(priority: RequestPriority): Builder {
+            this.priority = priority
+            return this
+        }
+
+        /**
+         * Set Embedding Encoder
+         * Used to encode the float array image of the call.
+         *
+         * @param encoder the embedding encoder
+         * @return the current instance of the builder
+         * @see EmbeddingEncoder
+         */
+        fun embeddingEncoder(encoder: EmbeddingEncoder): Builder {
+            this.embeddingEncoder = encoder
+            return this
+        }
+
+        /**
+         * Build the immutable request, the builder can be changed afterwards without changing the request
+         *
+         * @return the match request
+         * @throws IllegalStateException when the recommendation or the regroup feature is enabled without
+         * a matching stage
+         */
+        fun build(): MatchRequest {
+            val hasStage = exactOptions.enabled || similarityOptions.enabled || ocrOptions.enabled
+            check(!recommendationOptions.enabled || hasStage) {
+                "To use the recommendation feature, you need to enable one of this stages : exact, similarity, ocr."
+            }
+            check(!regroupOptions.enabled || hasStage) {
+                "To use the regrouping feature, you need to enable one of this stages : exact, similarity, ocr."
+            }
+            return MatchRequest(this)
+        }
+
+        /**
+         * Build the X-Options of the enabled stages and features
+         */
+        internal fun xOptions(): String {
+            var xOptions = ""
+
+            if (exactOptions.enabled && xOptions.isEmpty()) {
+                xOptions = "exact"
+            }
+
+            if (similarityOptions.enabled && xOptions.isEmpty()) {
+                xOptions = "similarity"
+            } else if (similarityOptions.enabled) {
+                xOptions += " +similarity"
+            }
+
+            if (ocrOptions.enabled && xOptions.isEmpty()) {
+                xOptions = "ocr"
+            } else if (ocrOptions.enabled) {
+                xOptions += " +ocr"
+            }
+
+            if (similarityOptions.enabled && similarityOptions.limit != -1) {
+                xOptions += " similarity.limit=${similarityOptions.limit}"
+            }
+
+            if (similarityOptions.enabled && similarityOptions.threshold != -1F) {
+                xOptions += " similarity.threshold=${similarityOptions.threshold}"
+            }
+
+            if (regroupOptions.enabled) {
+                xOptions += " +regroup"
+            }
+
+            if (regroupOptions.enabled && regroupOptions.threshold != -1F) {
+                xOptions += " regroup.threshold=${regroupOptions.threshold}"
+            }
+
+            if (limit != DEFAULT_LIMIT) {
+                xOptions += " limit=$limit"
+            }
+
+            if (recommendationOptions.enabled) {
+                xOptions += " +recommendations"
+            }
+
+            if (categoryPredictionOptions.enabled) {
+                xOptions += " +category-prediction"
+            }
+
+            if (categoryPredictionOptions.enabled && categoryPredictionOptions.limit != -1) {
+                xOptions += " category-prediction.limit=${categoryPredictionOptions.limit}"
+            }
+
+            if (categoryPredictionOptions.enabled && categoryPredictionOptions.threshold != -1F) {
+                xOptions += " category-prediction.threshold=${categoryPredictionOptions.threshold}"
+            }
+
+            return xOptions
+        }
+    }
+
+    internal companion object {
+        const val DEFAULT_LIMIT: Int = 20
+    }
+}
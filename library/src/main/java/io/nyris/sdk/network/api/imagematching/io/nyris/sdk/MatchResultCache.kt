@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okio.ByteString.Companion.toByteString
+import java.io.File
+import java.security.MessageDigest
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * MatchResultCache.kt - class that caches image matching responses by the content of the image and
+ * the request options. Responses are kept in a memory tier and an optional disk tier.
+ *
+ * @see MatchCacheConfig
+ */
+@Singleton
+internal class MatchResultCache @Inject constructor(config: NyrisConfig) {
+    private val config: MatchCacheConfig? = config.matchCache
+    private val memory: WeightedLruCache<String, Entry>? = this.config?.let {
+        WeightedLruCache(it.maxMemoryBytes) { entry -> entry.bytes.size.toLong() }
+    }
+    private val disk: DiskCache? = this.config?.let { matchCache ->
+        config.cacheDirectory
+            ?.takeIf { matchCache.maxDiskBytes > 0 }
+            ?.let { DiskCache(File(it, DIRECTORY_NAME), matchCache.maxDiskBytes) }
+    }
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+
+    /**
+     * Is the cache enabled
+     */
+    val isEnabled: Boolean
+        get() = config != null
+
+    /**
+     * Get the cached response of the image or fetch it from the network
+     * The key is computed and the tiers are read on the io scheduler, successful network responses
+     * are stored in both tiers.
+     *
+     * @param image the image byte array, before preprocessing
+     * @param headers the request headers
+     * @param filters the request filters
+     * @param network the single network response
+     * @return the single response body
+     */
+    fun getOrFetch(
+        image: ByteArray,
+        headers: Map<String, String>,
+        filters: List<Filter>,
+        network: Single<ResponseBody>
+    ): Single<ResponseBody> {
+        return Single
+            .fromCallable { key(image, headers, filters) }
+            .subscribeOn(Schedulers.io())
+            .flatMap { key ->
+                val cached = get(key)
+                if (cached != null) {
+                    hitCount.incrementAndGet()
+                    Single.just(cached.toResponseBody(JSON_MEDIA_TYPE))
+                } else {
+                    missCount.incrementAndGet()
+                    network.map { responseBody ->
+                        val contentType = responseBody.contentType()
+                        val bytes = responseBody.use { it.bytes() }
+                        put(key, bytes)
+                        bytes.toResponseBody(contentType)
+                    }
+                }
+            }
+    }
+
+    /**
+     * Get cache stats
+     *
+     * @return the cache counters
+     */
+    fun stats(): CacheStats = CacheStats(
+        hitCount = hitCount.get(),
+        missCount = missCount.get(),
+        memoryBytes = memory?.weight ?: 0L,
+        diskBytes = disk?.size ?: 0L
+    )
+
+    /**
+     * Clear both tiers
+     */
+    fun clear() {
+        memory?.clear()
+        disk?.clear()
+    }
+
+    private fun get(key: String): ByteArray? {
+        val ttlMillis = config?.ttlMillis ?: return null
+        memory?.get(key)?.let { entry ->
+            if (System.currentTimeMillis() - entry.createdAt <= ttlMillis) {
+                return entry.bytes
+            }
+            memory.remove(key)
+        }
+        return disk?.get(key, ttlMillis)?.let { (bytes, writtenAt) ->
+            memory?.put(key, Entry(bytes, writtenAt))
+            bytes
+        }
+    }
+
+    private fun put(key: String, bytes: ByteArray) {
+        memory?.put(key, Entry(bytes, System.currentTimeMillis()))
+        disk?.put(key, bytes)
+    }
+
+    /**
+     * Hash the image bytes with the options that change the response
+     */
+    private fun key(image: ByteArray, headers: Map<String, String>, filters: List<Filter>): String {
+        val digest = MessageDigest.getInstance("MD5")
+        digest.update(image)
+        KEY_HEADERS.forEach { name ->
+            digest.update("\n$name:${headers[name].orEmpty()}".toByteArray())
+        }
+        filters.forEach { filter ->
+            digest.update("\n${filter.filterType}=${filter.filterValue.joinToString(",")}".toByteArray())
+        }
+        return digest.digest().toByteString().hex()
+    }
+
+    private class Entry(val bytes: ByteArray, val createdAt: Long)
+
+    private companion object {
+        const val DIRECTORY_NAME = "nyris-match"
+        val KEY_HEADERS = listOf("X-Api-Key", "X-Options", "Accept", "Accept-Language")
+        val JSON_MEDIA_TYPE = "application/json".toMediaTypeOrNull()
+    }
+}
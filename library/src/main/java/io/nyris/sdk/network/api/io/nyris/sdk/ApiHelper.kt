@@ -16,6 +16,7 @@
 
 package io.nyris.sdk
 
+import io.reactivex.Completable
 import javax.inject.Inject
 
 /**
@@ -35,6 +36,8 @@ internal class ApiHelper(apiKey: String, config: NyrisConfig) : IApiHelper {
     private lateinit var textSearch: ITextSearchApi
     private lateinit var similarity: ISimilarityApi
     private lateinit var feedback: IFeedbackApi
+    private lateinit var sdkWarmer: SdkWarmer
+    private lateinit var concurrencyLimiter: ConcurrencyLimiter
 
     /**
      * Create instance of SdkComponent
@@ -170,4 +173,36 @@ internal class ApiHelper(apiKey: String, config: NyrisConfig) : IApiHelper {
     override fun feedback(): IFeedbackApi {
         return feedback
     }
+
+    /**
+     * Set Sdk Warmer
+     * @param sdkWarmer the sdk warmer
+     */
+    @Inject
+    fun setSdkWarmer(sdkWarmer: SdkWarmer) {
+        this.sdkWarmer = sdkWarmer
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun warmUp(): Completable {
+        return sdkWarmer.warmUp()
+    }
+
+    /**
+     * Set Concurrency Limiter
+     * @param concurrencyLimiter the concurrency limiter
+     */
+    @Inject
+    fun setConcurrencyLimiter(concurrencyLimiter: ConcurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun concurrencyStats(endpoint: ApiEndpoint): ConcurrencyLimitStats {
+        return concurrencyLimiter.stats(endpoint)
+    }
 }
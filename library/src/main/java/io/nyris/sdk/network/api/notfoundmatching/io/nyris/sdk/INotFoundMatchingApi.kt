@@ -34,4 +34,14 @@ interface INotFoundMatchingApi {
      * @return the Single ResponseBody
      */
     fun markAsNotFound(imageRequestId: String): Single<ResponseBody>
+
+    /**
+     * Mark Image for Manual Match with the request pool of a priority
+     *
+     * @param imageRequestId the request id
+     * @param priority the priority of the call, background by default
+     * @return the Single ResponseBody
+     * @see RequestPriority
+     */
+    fun markAsNotFound(imageRequestId: String, priority: RequestPriority): Single<ResponseBody>
 }
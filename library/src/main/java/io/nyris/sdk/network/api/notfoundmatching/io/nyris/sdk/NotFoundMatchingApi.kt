@@ -31,13 +31,32 @@ internal class NotFoundMatchingApi(
     private val notFoundMatchingService: NotFoundMatchingService,
     apiHeader: ApiHeader,
 ) : Api(apiHeader), INotFoundMatchingApi {
-
     /**
      * {@inheritDoc}
      */
     override fun markAsNotFound(imageRequestId: String): Single<ResponseBody> {
-        val headers = createDefaultHeadersMap()
+        return markAsNotFound(imageRequestId, RequestPriority.BACKGROUND)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun markAsNotFound(imageRequestId: String, priority: RequestPriority): Single<ResponseBody> {
+        val headers = BulkheadCallFactory.headers(createDefaultHeadersMap(), priority)
         return notFoundMatchingService
             .markAsNotFound(imageRequestId, headers)
     }
+
+    /**
+     * Await Mark As Not Found
+     * The suspend counterpart of markAsNotFound, the call is enqueued without the Rx single.
+     *
+     * @param imageRequestId the request id of the image
+     * @param priority the priority of the call
+     * @return the response body, to close by the caller
+     */
+    internal suspend fun awaitMarkAsNotFound(imageRequestId: String, priority: RequestPriority): ResponseBody {
+        val headers = BulkheadCallFactory.headers(createDefaultHeadersMap(), priority)
+        return awaitCall(notFoundMatchingService.markAsNotFoundCall(imageRequestId, headers)) { it }
+    }
 }
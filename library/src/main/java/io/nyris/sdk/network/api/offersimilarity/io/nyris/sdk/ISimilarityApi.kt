@@ -61,4 +61,44 @@ interface ISimilarityApi {
      * {@link OfferResponse} or {@link JsonResponseBody}
      */
     fun <T : IResponse> getBySku(sku: String, clazz: Class<T>): Single<T>
+
+    /**
+     * New Request
+     * Start an immutable request seeded with the output format and the language of the api, for the options
+     * of a single call like the offer fields, the deadline and the priority,
+     * e.g. newRequest().priority(RequestPriority.BACKGROUND).build() to prefetch the recommendations
+     *
+     * @return the request builder
+     * @see SimilarityRequest
+     */
+    fun newRequest(): SimilarityRequest.Builder
+
+    /**
+     * Get Similar offer by sku with request
+     *
+     * @param request the similarity request
+     * @param sku the offer sku
+     * @return the Single{Observable} OfferResponseBody
+     * @see #newRequest()
+     */
+    fun getBySku(request: SimilarityRequest, sku: String): Single<OfferResponse>
+
+    /**
+     * Generic Get Similar offer by sku with request
+     *
+     * @param request the similarity request
+     * @param sku the offer sku
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> getBySku(request: SimilarityRequest, sku: String, clazz: Class<T>): Single<T>
+
+    /**
+     * Clear Cache
+     * Remove the responses kept by the cache enabled by {@link NyrisConfig#similarityCache}.
+     *
+     * @see SimilarityCacheConfig
+     */
+    fun clearCache()
 }
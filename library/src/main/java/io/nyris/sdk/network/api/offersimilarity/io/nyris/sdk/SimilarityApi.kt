@@ -33,6 +33,9 @@ internal class SimilarityApi(
     private var language: String,
     private var gson: Gson,
     apiHeader: ApiHeader,
+    private val responseCache: StaleWhileRevalidateCache<String, IResponse>?,
+    private val singleFlight: SingleFlight,
+    private val hedging: Hedging,
 ) : Api(apiHeader), ISimilarityApi {
     /**
      * {@inheritDoc}
@@ -61,10 +64,87 @@ internal class SimilarityApi(
      * {@inheritDoc}
      */
     override fun <T : IResponse> getBySku(sku: String, clazz: Class<T>): Single<T> {
+        return getBySku(newRequest().build(), sku, clazz)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun newRequest(): SimilarityRequest.Builder {
+        return SimilarityRequest.Builder(outputFormat, language)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun getBySku(request: SimilarityRequest, sku: String): Single<OfferResponse> {
+        return getBySku(request, sku, OfferResponse::class.java)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> getBySku(request: SimilarityRequest, sku: String, clazz: Class<T>): Single<T> {
         val headers = createDefaultHeadersMap()
-        headers["Accept"] = "$outputFormat; charset=UTF-8"
-        headers["Accept-Language"] = language
-        val obs1 = similarityService.getBySku(sku, headers)
-        return convertResponseBodyBasedOnType(sku, obs1, clazz, gson)
+        headers.putAll(request.headers)
+        val fields = request.fields
+        val requestHeaders = BulkheadCallFactory.headers(headers, request.priority)
+        // Deferred so the request is only created on cache miss or refresh
+        val call = Single.defer {
+            val obs1 = if (isOneShot(clazz)) {
+                similarityService.getBySku(sku, requestHeaders)
+            } else {
+                hedging.execute(true) { isHedged ->
+                    similarityService.getBySku(sku, Hedging.headers(requestHeaders, isHedged))
+                }
+            }
+            convertResponseBodyBasedOnType(obs1, clazz, gson, fields)
+        }
+        if (isOneShot(clazz)) {
+            return withDeadline(call, request.deadlineMillis)
+        }
+        val response = singleFlight.execute(
+            { SingleFlight.key(ENDPOINT_GET_BY_SKU, headers, sku, clazz.name, fields) },
+            call
+        )
+        val cache = responseCache ?: return withDeadline(response, request.deadlineMillis)
+        val key = "$sku\n${request.language}\n${request.outputFormat}\n${clazz.name}\n$fields"
+        @Suppress("UNCHECKED_CAST")
+        val cached = cache.get(key, response as Single<IResponse>)
+            .map { it as T }
+        return withDeadline(cached, request.deadlineMillis)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    /**
+     * Await Get By Sku
+     * The suspend counterpart of getBySku, the call is enqueued and its response is decoded by its callback
+     * without the Rx singles. The response cache, the single flight and the hedging are built on the singles, so
+     * they are not applied.
+     *
+     * @param request the similarity request
+     * @param sku the sku
+     * @param clazz the desired return response class
+     * @return the response
+     */
+    internal suspend fun <T : IResponse> awaitGetBySku(request: SimilarityRequest, sku: String, clazz: Class<T>): T {
+        val headers = createDefaultHeadersMap()
+        headers.putAll(request.headers)
+        val requestHeaders = BulkheadCallFactory.headers(headers, request.priority)
+        return awaitWithDeadline(request.deadlineMillis) {
+            awaitCall(similarityService.getBySkuCall(sku, requestHeaders)) { responseBody ->
+                convertResponseBody(responseBody, clazz, gson, request.fields)
+            }
+        }
+    }
+
+    override fun clearCache() {
+        responseCache?.clear()
+    }
+
+    private companion object {
+        const val ENDPOINT_GET_BY_SKU = "getBySku"
     }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import java.util.Collections
+import java.util.EnumSet
+import java.util.concurrent.TimeUnit
+
+/**
+ * SimilarityRequest.kt - immutable options of a similarity call, built by {@link ISimilarityApi#newRequest}.
+ * The headers of the options are computed once when the request is built, so the same request can be sent
+ * many times and from many threads.
+ *
+ * @see ISimilarityApi#getBySku(SimilarityRequest, String)
+ */
+class SimilarityRequest private constructor(builder: Builder) {
+    val outputFormat: String = builder.outputFormat
+    val language: String = builder.language
+    val fields: Set<OfferField>? = builder.fields?.let { Collections.unmodifiableSet(EnumSet.copyOf(it)) }
+    val deadlineMillis: Long? = builder.deadlineMillis
+    val priority: RequestPriority = builder.priority
+
+    /**
+     * The Accept and Accept-Language headers, the api key headers are added when the request is sent
+     */
+    val headers: Map<String, String> = HashMap<String, String>().let { headers ->
+        headers["Accept"] = "$outputFormat; charset=UTF-8"
+        headers["Accept-Language"] = language
+        Collections.unmodifiableMap(headers)
+    }
+
+    /**
+     * Builder of SimilarityRequest, seeded with the output format and the language of the api.
+     * A builder is not thread safe, each call builds its own request.
+     */
+    class Builder internal constructor(
+        internal var outputFormat: String,
+        internal var language: String
+    ) {
+        internal var fields: Set<OfferField>? = null
+        internal var deadlineMillis: Long? = null
+        internal var priority: RequestPriority = RequestPriority.INTERACTIVE
+
+        /**
+         * Set Output Format
+         *
+         * @param outputFormat the output format
+         * @return the current instance of the builder
+         */
+        fun outputFormat(outputFormat: String): Builder {
+            this.outputFormat = outputFormat
+            return this
+        }
+
+        /**
+         * Set Filter Language
+         *
+         * @param language the language
+         * @return the current instance of the builder
+         */
+        fun language(language: String): Builder {
+            this.language = language
+            return this
+        }
+
+        /**
+         * Set Offer Fields
+         * Decode only these fields of the returned offers, the values of the other fields are skipped and
+         * keep their default value.
+         *
+         * @param fields the offer fields to decode
+         * @return the current instance of the builder
+         * @see OfferField
+         */
+        fun fields(vararg fields: OfferField): Builder {
+            this.fields = fields.toCollection(EnumSet.noneOf(OfferField::class.java))
+            return this
+        }
+
+        /**
+         * Set Deadline
+         * Bound the call, the retries included. When the deadline is reached the http call is cancelled and
+         * the call fails with NyrisTimeoutException.
+         *
+         * @param timeout the deadline of the call
+         * @param unit the time unit of the timeout
+         * @return the current instance of the builder
+         * @see NyrisTimeoutException
+         */
+        fun deadline(timeout: Long, unit: TimeUnit): Builder {
+            deadlineMillis = unit.toMillis(timeout)
+            return this
+        }
+
+        /**
+         * Set Priority
+         * Send the call with the request pool of the priority, interactive by default. Use the background
+         * priority to prefetch the recommendations.
+         *
+         * @param priority the priority of the call
+         * @return the current instance of the builder
+         * @see RequestPriority
+         */
+        fun priority(priority: RequestPriority): Builder {
+            this.priority = priority
+            return this
+        }
+
+        /**
+         * Build the immutable request, the builder can be changed afterwards without changing the request
+         *
+         * @return the similarity request
+         */
+        fun build(): SimilarityRequest {
+            return SimilarityRequest(this)
+        }
+    }
+}
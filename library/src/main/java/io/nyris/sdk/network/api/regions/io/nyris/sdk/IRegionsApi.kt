@@ -33,4 +33,14 @@ interface IRegionsApi {
      * @return the Single ObjectList
      */
     fun detect(image: ByteArray): Single<ObjectList>
+
+    /**
+     * Extract Objects from Image with the request pool of a priority
+     *
+     * @param image the image byte array
+     * @param priority the priority of the call, interactive by default
+     * @return the Single ObjectList
+     * @see RequestPriority
+     */
+    fun detect(image: ByteArray, priority: RequestPriority): Single<ObjectList>
 }
@@ -17,6 +17,9 @@
 package io.nyris.sdk
 
 import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.RequestBody.Companion.toRequestBody
 
@@ -30,18 +33,63 @@ import okhttp3.RequestBody.Companion.toRequestBody
  */
 internal class RegionsApi(
     private val regionsService: RegionsService,
-    apiHeader: ApiHeader
+    apiHeader: ApiHeader,
+    private val imagePreprocessor: ImagePreprocessor,
+    private val singleFlight: SingleFlight,
 ) : Api(apiHeader), IRegionsApi {
-
     /**
      * {@inheritDoc}
      */
     override fun detect(image: ByteArray): Single<ObjectList> {
+        return detect(image, RequestPriority.INTERACTIVE)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun detect(image: ByteArray, priority: RequestPriority): Single<ObjectList> {
+        val detect = if (!imagePreprocessor.isEnabled) {
+            Single.defer { detectImage(image, priority) }
+        } else {
+            Single
+                .fromCallable { imagePreprocessor.process(image) }
+                .subscribeOn(Schedulers.computation())
+                .flatMap { detectImage(it, priority) }
+        }
+        return singleFlight.execute({ SingleFlight.key(ENDPOINT_DETECT, createDefaultHeadersMap(), image) }, detect)
+    }
+
+    /**
+     * Await Detect
+     * The suspend counterpart of detect, the call is enqueued without the Rx single. The single flight is built on
+     * the singles, so it is not applied.
+     *
+     * @param image the image byte array
+     * @param priority the priority of the call
+     * @return the detected objects
+     */
+    internal suspend fun awaitDetect(image: ByteArray, priority: RequestPriority): ObjectList {
+        val processed = if (imagePreprocessor.isEnabled) {
+            withContext(Dispatchers.Default) { imagePreprocessor.process(image) }
+        } else {
+            image
+        }
+        val headers = createDefaultHeadersMap()
+        headers["Content-Length"] = processed.size.toString()
+        val body = processed.toRequestBody("image/jpg".toMediaTypeOrNull())
+        return awaitCall(regionsService.detectCall(BulkheadCallFactory.headers(headers, priority), body)) { it }
+    }
+
+    private fun detectImage(image: ByteArray, priority: RequestPriority): Single<ObjectList> {
         val headers = createDefaultHeadersMap()
         headers["Content-Length"] = image.size.toString()
         val body = image.toRequestBody("image/jpg".toMediaTypeOrNull())
 
         return regionsService
-            .detect(headers, body)
+            .detect(BulkheadCallFactory.headers(headers, priority), body)
+    }
+
+    private companion object {
+        const val ENDPOINT_DETECT = "detect"
     }
 }
@@ -17,7 +17,9 @@
 package io.nyris.sdk
 
 import androidx.annotation.IntRange
+import io.reactivex.Flowable
 import io.reactivex.Single
+import java.util.concurrent.TimeUnit
 
 /**
  * ITextSearchApi.kt - interface for searching offer based on text using text search api.
@@ -61,6 +63,51 @@ interface ITextSearchApi {
     @Deprecated("Need to be removed with the next release 1.8.0")
     fun regroup(action: RegroupOptions.() -> Unit = { enabled = true }): ITextSearchApi
 
+    /**
+     * Set Offer Fields
+     * Decode only these fields of the offers returned by the next call, the values of the other fields are
+     * skipped and keep their default value.
+     *
+     * @param fields the offer fields to decode
+     * @return the current instance of ITextSearchApi
+     * @see OfferField
+     */
+    fun fields(vararg fields: OfferField): ITextSearchApi
+
+    /**
+     * Set Deadline
+     * Bound the next call, the retries included. When the deadline is reached the http call is cancelled
+     * and the call fails with NyrisTimeoutException. A streamed call is bounded until its response is
+     * received, the offers are then read at the pace of the subscriber.
+     *
+     * @param timeout the deadline of the next call
+     * @param unit the time unit of the timeout
+     * @return the current instance of ITextSearchApi
+     * @see NyrisTimeoutException
+     */
+    fun deadline(timeout: Long, unit: TimeUnit): ITextSearchApi
+
+    /**
+     * Set Priority
+     * Send the next call with the request pool of the priority, interactive by default.
+     *
+     * @param priority the priority of the next call
+     * @return the current instance of ITextSearchApi
+     * @see RequestPriority
+     */
+    fun priority(priority: RequestPriority): ITextSearchApi
+
+    /**
+     * New Request
+     * Start an immutable request seeded with the output format and the language of the api. Unlike the
+     * options set on the api, a built request isn't reset by the call, so it can be shared by concurrent
+     * calls, e.g. newRequest().limit(50).build()
+     *
+     * @return the request builder
+     * @see TextSearchRequest
+     */
+    fun newRequest(): TextSearchRequest.Builder
+
     /**
      * Search Offers
      *
@@ -80,4 +127,64 @@ interface ITextSearchApi {
      * {@link OfferResponse} or {@link JsonResponseBody}
      */
     fun <T : IResponse> searchOffers(keyword: String, clazz: Class<T>): Single<T>
+
+    /**
+     * Streaming Search Offers
+     * Emit each offer as soon as it is decoded, while the response is still downloading.
+     *
+     * @param keyword the keyword
+     * @return the Flowable of offers
+     * @see #searchOffersStreaming(String, OfferResponseSummaryListener)
+     */
+    fun searchOffersStreaming(keyword: String): Flowable<Offer>
+
+    /**
+     * Streaming Search Offers
+     * Emit each offer as soon as it is decoded, while the response is still downloading. Offers are read
+     * from the network as they are requested, cancelling the subscription aborts the request.
+     *
+     * @param keyword the keyword
+     * @param summaryListener the listener of the request id, session and predicted categories, notified
+     * before the completion
+     * @return the Flowable of offers
+     */
+    fun searchOffersStreaming(keyword: String, summaryListener: OfferResponseSummaryListener?): Flowable<Offer>
+
+    /**
+     * Search Offers with request
+     * The options set on the api are ignored and kept for the next call.
+     *
+     * @param request the text search request
+     * @param keyword the keyword
+     * @return the Single{Observable} OfferResponseBody
+     * @see #newRequest()
+     */
+    fun searchOffers(request: TextSearchRequest, keyword: String): Single<OfferResponse>
+
+    /**
+     * Generic Search Offers with request
+     *
+     * @param request the text search request
+     * @param keyword the keyword
+     * @param clazz the desired return response class
+     * @return the Single{Observable} IResponse {Could be {@link OfferResponseBody},
+     * {@link OfferResponse} or {@link JsonResponseBody}
+     */
+    fun <T : IResponse> searchOffers(request: TextSearchRequest, keyword: String, clazz: Class<T>): Single<T>
+
+    /**
+     * Streaming Search Offers with request
+     *
+     * @param request the text search request
+     * @param keyword the keyword
+     * @param summaryListener the listener of the request id, session and predicted categories, notified
+     * before the completion
+     * @return the Flowable of offers
+     * @see #searchOffersStreaming(String, OfferResponseSummaryListener)
+     */
+    fun searchOffersStreaming(
+        request: TextSearchRequest,
+        keyword: String,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer>
 }
@@ -17,9 +17,12 @@
 package io.nyris.sdk
 
 import com.google.gson.Gson
+import io.reactivex.Flowable
 import io.reactivex.Single
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.RequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
+import java.util.concurrent.TimeUnit
 
 /**
  * TextSearchApi.kt - class that implement ITextSearchApi interface.
@@ -34,25 +37,22 @@ internal class TextSearchApi(
     private var outputFormat: String,
     private var language: String,
     private var gson: Gson,
-    apiHeader: ApiHeader
+    apiHeader: ApiHeader,
+    private val singleFlight: SingleFlight,
+    private val hedging: Hedging
 ) : Api(apiHeader), ITextSearchApi {
 
-    private var regroupOptions: RegroupOptions = RegroupOptions()
-    private var limit: Int = DEFAULT_LIMIT
-
     /**
-     * Init local properties
+     * Options of the next call set on the api, taken by the calls without a request
      */
-    private fun reset() {
-        regroupOptions.reset()
-        limit = DEFAULT_LIMIT
-    }
+    private var builder: TextSearchRequest.Builder = newRequest()
 
     /**
      * {@inheritDoc}
      */
     override fun outputFormat(outputFormat: String): ITextSearchApi {
         this.outputFormat = outputFormat
+        builder.outputFormat(outputFormat)
         return this
     }
 
@@ -61,6 +61,7 @@ internal class TextSearchApi(
      */
     override fun language(language: String): ITextSearchApi {
         this.language = language
+        builder.language(language)
         return this
     }
 
@@ -68,7 +69,7 @@ internal class TextSearchApi(
      * {@inheritDoc}
      */
     override fun limit(limit: Int): ITextSearchApi {
-        this.limit = limit
+        builder.limit(limit)
         return this
     }
 
@@ -76,26 +77,52 @@ internal class TextSearchApi(
      * {@inheritDoc}
      */
     override fun regroup(action: RegroupOptions.() -> Unit): ITextSearchApi {
-        action(regroupOptions)
+        builder.regroup(action)
         return this
     }
 
-    override fun buildXOptions(): String {
-        var xOptions = ""
-        if (regroupOptions.enabled) {
-            xOptions += "regroup"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun fields(vararg fields: OfferField): ITextSearchApi {
+        builder.fields(*fields)
+        return this
+    }
 
-        if (regroupOptions.enabled && regroupOptions.threshold != -1F) {
-            xOptions += " regroup.threshold=${regroupOptions.threshold}"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun deadline(timeout: Long, unit: TimeUnit): ITextSearchApi {
+        builder.deadline(timeout, unit)
+        return this
+    }
 
-        if (limit != DEFAULT_LIMIT) {
-            xOptions += " limit=$limit"
-        }
+    /**
+     * {@inheritDoc}
+     */
+    override fun priority(priority: RequestPriority): ITextSearchApi {
+        builder.priority(priority)
+        return this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun newRequest(): TextSearchRequest.Builder {
+        return TextSearchRequest.Builder(outputFormat, language)
+    }
+
+    override fun buildXOptions(): String {
+        return builder.xOptions()
+    }
 
-        reset()
-        return xOptions
+    /**
+     * Build the request of the options set on the api, the options of the next call start from the defaults
+     */
+    private fun takeRequest(): TextSearchRequest {
+        val builder = builder
+        this.builder = newRequest()
+        return builder.build()
     }
 
     /**
@@ -109,20 +136,121 @@ internal class TextSearchApi(
      * {@inheritDoc}
      */
     override fun <T : IResponse> searchOffers(keyword: String, clazz: Class<T>): Single<T> {
-        val headers = createDefaultHeadersMap()
-        val xOptions = buildXOptions()
-        headers["Accept"] = "$outputFormat; charset=UTF-8"
-        headers["Accept-Language"] = language
-        headers["Content-Length"] = keyword.length.toString()
-        if (xOptions.isNotEmpty()) {
-            headers["X-Options"] = xOptions
+        return searchOffers(takeRequest(), keyword, clazz)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun searchOffersStreaming(keyword: String): Flowable<Offer> {
+        return searchOffersStreaming(keyword, null)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun searchOffersStreaming(
+        keyword: String,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer> {
+        return searchOffersStreaming(takeRequest(), keyword, summaryListener)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun searchOffers(request: TextSearchRequest, keyword: String): Single<OfferResponse> {
+        return searchOffers(request, keyword, OfferResponse::class.java)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun <T : IResponse> searchOffers(
+        request: TextSearchRequest,
+        keyword: String,
+        clazz: Class<T>
+    ): Single<T> {
+        val fields = request.fields
+        val headers = buildHeaders(request)
+        val body = keyword.toRequestBody(TEXT_MEDIA_TYPE)
+        val requestHeaders = BulkheadCallFactory.headers(withContentLength(headers, body), request.priority)
+        if (isOneShot(clazz)) {
+            // A raw response is streamed to the caller instead of being buffered by retrofit
+            val obs1 = textSearchService.searchOffersStreaming(requestHeaders, body)
+            return withDeadline(convertResponseBodyBasedOnType(obs1, clazz, gson, fields), request.deadlineMillis)
+        }
+        val obs1 = hedging.execute(true) { isHedged ->
+            textSearchService.searchOffers(Hedging.headers(requestHeaders, isHedged), body)
+        }
+        val shared = singleFlight.execute(
+            { SingleFlight.key(ENDPOINT_SEARCH_OFFERS, headers, keyword, clazz.name, fields) },
+            convertResponseBodyBasedOnType(obs1, clazz, gson, fields)
+        )
+        return withDeadline(shared, request.deadlineMillis)
+    }
+
+    /**
+     * Await Search Offers
+     * The suspend counterpart of searchOffers, the call is enqueued and its response is decoded by its callback
+     * without the Rx singles. The single flight and the hedging are built on the singles, so they are not applied.
+     *
+     * @param request the text search request
+     * @param keyword the keyword
+     * @param clazz the desired return response class
+     * @return the response
+     */
+    internal suspend fun <T : IResponse> awaitSearchOffers(
+        request: TextSearchRequest,
+        keyword: String,
+        clazz: Class<T>
+    ): T {
+        val body = keyword.toRequestBody(TEXT_MEDIA_TYPE)
+        val headers = BulkheadCallFactory.headers(withContentLength(buildHeaders(request), body), request.priority)
+        return awaitWithDeadline(request.deadlineMillis) {
+            awaitCall(textSearchService.searchOffersCall(headers, body)) { responseBody ->
+                convertResponseBody(responseBody, clazz, gson, request.fields)
+            }
         }
-        val body = keyword.toRequestBody("text/plain; charset=utf-8".toMediaTypeOrNull())
-        val obs1 = textSearchService.searchOffers(headers, body)
-        return convertResponseBodyBasedOnType(keyword, obs1, clazz, gson)
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    override fun searchOffersStreaming(
+        request: TextSearchRequest,
+        keyword: String,
+        summaryListener: OfferResponseSummaryListener?
+    ): Flowable<Offer> {
+        val body = keyword.toRequestBody(TEXT_MEDIA_TYPE)
+        val headers = withContentLength(buildHeaders(request), body)
+        val obs1 = textSearchService.searchOffersStreaming(BulkheadCallFactory.headers(headers, request.priority), body)
+        return convertResponseBodyToOffers(
+            withDeadline(obs1, request.deadlineMillis),
+            gson,
+            summaryListener,
+            request.fields
+        )
+    }
+
+    /**
+     * Build Headers of the request for text search endpoint
+     */
+    private fun buildHeaders(request: TextSearchRequest): HashMap<String, String> {
+        val headers = createDefaultHeadersMap()
+        headers.putAll(request.headers)
+        return headers
+    }
+
+    /**
+     * Headers with the Content-Length of the encoded keyword
+     */
+    private fun withContentLength(headers: Map<String, String>, body: RequestBody): Map<String, String> {
+        return headers + ("Content-Length" to body.contentLength().toString())
     }
 
     companion object {
-        private const val DEFAULT_LIMIT: Int = 20
+        private const val ENDPOINT_SEARCH_OFFERS = "searchOffers"
+        private val TEXT_MEDIA_TYPE = "text/plain; charset=utf-8".toMediaTypeOrNull()
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+/**
+ * ApiEndpoint.kt - enum of the api endpoints that can have their own timeouts.
+ *
+ * @see NyrisConfig.endpointTimeouts
+ */
+enum class ApiEndpoint(internal val serviceClass: Class<*>) {
+    IMAGE_MATCHING(ImageMatchingService::class.java),
+    REGIONS(RegionsService::class.java),
+    NOT_FOUND_MATCHING(NotFoundMatchingService::class.java),
+    TEXT_SEARCH(TextSearchService::class.java),
+    SIMILARITY(SimilarityService::class.java),
+    FEEDBACK(FeedbackService::class.java);
+
+    internal companion object {
+        /**
+         * Get the endpoint of a retrofit service
+         *
+         * @param serviceClass the retrofit service interface
+         * @return the endpoint, null for unknown services
+         */
+        fun of(serviceClass: Class<*>): ApiEndpoint? = values().firstOrNull { it.serviceClass == serviceClass }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+
+/**
+ * BatchResult.kt - class model of the outcome of an image of a batch match
+ *
+ * @param index the index of the image in the input flowable
+ * @param status the outcome of the match
+ * @param response the response of a successful match, null otherwise
+ * @param error the error of a failed or cancelled match, null otherwise
+ *
+ * @see IImageMatchingApi#matchAll
+ */
+@Keep
+data class BatchResult<T : IResponse>(
+    val index: Long,
+    val status: BatchStatus,
+    val response: T? = null,
+    val error: Throwable? = null,
+)
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+
+/**
+ * BatchStats.kt - class model of the throughput of a batch match
+ *
+ * @param imageCount the number of images of the batch
+ * @param successCount the number of matched images
+ * @param errorCount the number of failed images
+ * @param rejectedCount the number of images rejected by the circuit breaker or the concurrency limit
+ * @param bytes the size in bytes of the sent images
+ * @param elapsedMillis the duration of the batch, from the subscription to the last result
+ */
+@Keep
+data class BatchStats(
+    val imageCount: Long = 0,
+    val successCount: Long = 0,
+    val errorCount: Long = 0,
+    val rejectedCount: Long = 0,
+    val bytes: Long = 0,
+    val elapsedMillis: Long = 0,
+) {
+    /**
+     * The number of images handled per second
+     */
+    val imagesPerSecond: Double
+        get() = if (elapsedMillis > 0) imageCount * 1000.0 / elapsedMillis else 0.0
+
+    /**
+     * The number of image bytes sent per second
+     */
+    val bytesPerSecond: Double
+        get() = if (elapsedMillis > 0) bytes * 1000.0 / elapsedMillis else 0.0
+}
+
+/**
+ * BatchStatsListener.kt - listener notified with the throughput of a batch match.
+ */
+fun interface BatchStatsListener {
+    /**
+     * On Stats
+     * Called after the last result and before the completion of the results flowable.
+     *
+     * @param stats the throughput of the batch
+     */
+    fun onStats(stats: BatchStats)
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+/**
+ * BatchStatus.kt - enum of the outcomes of an image of a batch match.
+ *
+ * @see BatchResult
+ */
+enum class BatchStatus {
+    /**
+     * The image was matched, the result has the response
+     */
+    SUCCESS,
+
+    /**
+     * The match of the image failed after its retries, the result has the error
+     */
+    ERROR,
+
+    /**
+     * The image wasn't sent because the circuit of the endpoint was open or its concurrency limit rejected
+     * the call, the result has the rejection error and the image can be matched again later
+     */
+    REJECTED
+}
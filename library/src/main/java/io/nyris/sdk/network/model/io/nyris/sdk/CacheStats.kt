@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+
+/**
+ * CacheStats.kt - class model of a response cache counters
+ *
+ * @param hitCount the number of requests served from the cache
+ * @param missCount the number of requests sent to the network
+ * @param memoryBytes the size in bytes of the responses kept in memory
+ * @param diskBytes the size in bytes of the responses kept on disk
+ */
+@Keep
+data class CacheStats(
+    val hitCount: Long = 0,
+    val missCount: Long = 0,
+    val memoryBytes: Long = 0,
+    val diskBytes: Long = 0,
+)
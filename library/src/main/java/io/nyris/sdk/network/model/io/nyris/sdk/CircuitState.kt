@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * CircuitState.kt - enum of the states of the circuit breaker of an endpoint.
+ *
+ * @see CircuitBreakerConfig
+ */
+enum class CircuitState {
+    /**
+     * The calls are sent and their outcomes recorded
+     */
+    CLOSED,
+
+    /**
+     * The calls fail fast with CircuitOpenException
+     */
+    OPEN,
+
+    /**
+     * A few probe calls are sent to decide whether the circuit closes
+     */
+    HALF_OPEN
+}
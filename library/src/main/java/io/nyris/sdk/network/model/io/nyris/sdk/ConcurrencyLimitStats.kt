@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+
+/**
+ * ConcurrencyLimitStats.kt - class model of the concurrency limit counters of an endpoint
+ *
+ * @param limit the current number of concurrent calls allowed
+ * @param inFlight the number of calls in flight
+ * @param queued the number of calls waiting for a slot
+ * @param acceptedCount the number of calls that got a slot
+ * @param rejectedCount the number of calls rejected because the queue was full or the wait elapsed
+ */
+@Keep
+data class ConcurrencyLimitStats(
+    val limit: Int = 0,
+    val inFlight: Int = 0,
+    val queued: Int = 0,
+    val acceptedCount: Long = 0,
+    val rejectedCount: Long = 0,
+)
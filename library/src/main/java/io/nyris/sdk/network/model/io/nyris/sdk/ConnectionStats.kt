@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+
+/**
+ * ConnectionStats.kt - class model of the connection counters of the transport shared by the nyris instances
+ *
+ * @param callCount the number of started http calls, a call retried by the retry interceptor is counted once
+ * @param connectionCount the number of opened connections, the failed attempts included
+ * @param reusedConnectionCount the number of requests served by an already opened connection, the retries included
+ * @param tlsHandshakeCount the number of TLS handshakes
+ */
+@Keep
+data class ConnectionStats(
+    val callCount: Long = 0,
+    val connectionCount: Long = 0,
+    val reusedConnectionCount: Long = 0,
+    val tlsHandshakeCount: Long = 0,
+)
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * LazyOfferResponse.kt - class model implement IResponse, that keeps the raw response bytes and the byte
+ * offsets of each offer. An offer is decoded the first time it is read and then cached, so the offers
+ * that are never displayed are never decoded.
+ * @see IResponse
+ * @see OfferResponse
+ */
+class LazyOfferResponse internal constructor(
+    private val bytes: ByteArray,
+    private val offsets: IntArray,
+    private val offerAdapter: TypeAdapter<Offer>,
+    val requestId: String?,
+    val sessionId: String?,
+    val predictedCategories: Map<String, Float>,
+) : IResponse {
+    private val decoded = AtomicReferenceArray<Offer>(offsets.size / 2)
+
+    /**
+     * The number of offers
+     */
+    val size: Int
+        get() = offsets.size / 2
+
+    /**
+     * The offers as a list, each offer is decoded on access
+     */
+    val offers: List<Offer> = object : AbstractList<Offer>() {
+        override val size: Int
+            get() = this@LazyOfferResponse.size
+
+        override fun get(index: Int): Offer = this@LazyOfferResponse[index]
+    }
+
+    /**
+     * Get the offer at the index, decoded on the first access
+     *
+     * @param index the offer index
+     * @return the offer
+     */
+    operator fun get(index: Int): Offer {
+        decoded.get(index)?.let { return it }
+        val start = offsets[index * 2]
+        val end = offsets[index * 2 + 1]
+        val offer = JsonByteScanner(bytes).reader(start, end).use { offerAdapter.read(it) }
+        // Concurrent readers may decode the same offer, the first decoded instance is kept
+        return if (decoded.compareAndSet(index, null, offer)) offer else decoded.get(index)
+    }
+
+    /**
+     * Decode all the offers
+     *
+     * @return the offer response
+     */
+    fun toOfferResponse(): OfferResponse = OfferResponse(
+        requestId = requestId,
+        sessionId = sessionId,
+        predictedCategories = predictedCategories,
+        offers = offers.toList()
+    )
+
+    internal companion object {
+        /**
+         * Index the offers of a response and decode its request level fields
+         *
+         * @param bytes the UTF-8 response bytes
+         * @param offerAdapter the adapter of the offers
+         * @return the lazy offer response
+         */
+        fun parse(bytes: ByteArray, offerAdapter: TypeAdapter<Offer>): LazyOfferResponse {
+            val scanner = JsonByteScanner(bytes)
+            var offsets = IntArray(0)
+            var requestId: String? = null
+            var sessionId: String? = null
+            var predictedCategories: Map<String, Float>? = null
+            scanner.consume('{')
+            if (!scanner.consumeIf('}')) {
+                do {
+                    val name = scanner.nextName()
+                    scanner.consume(':')
+                    if (name == "results" && scanner.peek() == '[') {
+                        offsets = indexResults(scanner)
+                        continue
+                    }
+                    val range = scanner.skipValue()
+                    when (name) {
+                        "id" -> requestId = scanner.read(range) { nextStringOrNull() }
+                        "session" -> sessionId = scanner.read(range) { nextStringOrNull() }
+                        "predicted_category" -> predictedCategories = scanner.read(range) {
+                            nextMapOrNull { nextFloatOrNull() }
+                        }
+                    }
+                } while (scanner.consumeIf(','))
+                scanner.consume('}')
+            }
+            return LazyOfferResponse(
+                bytes,
+                offsets,
+                offerAdapter,
+                requestId,
+                sessionId,
+                predictedCategories ?: mapOf()
+            )
+        }
+
+        /**
+         * Index the start and end offsets of the non null results elements
+         */
+        private fun indexResults(scanner: JsonByteScanner): IntArray {
+            var offsets = IntArray(INITIAL_OFFSETS_SIZE)
+            var count = 0
+            scanner.consume('[')
+            if (scanner.consumeIf(']')) {
+                return IntArray(0)
+            }
+            do {
+                // Null elements are skipped like the offer response decoding does
+                val isNull = scanner.peek() == 'n'
+                val range = scanner.skipValue()
+                if (isNull) {
+                    continue
+                }
+                if (count + 2 > offsets.size) {
+                    offsets = offsets.copyOf(offsets.size * 2)
+                }
+                offsets[count++] = range.first
+                offsets[count++] = range.last + 1
+            } while (scanner.consumeIf(','))
+            scanner.consume(']')
+            return offsets.copyOf(count)
+        }
+
+        private inline fun <T> JsonByteScanner.read(range: IntRange, block: JsonReader.() -> T): T {
+            return reader(range.first, range.last + 1).use { it.block() }
+        }
+
+        private const val INITIAL_OFFSETS_SIZE = 64
+    }
+}
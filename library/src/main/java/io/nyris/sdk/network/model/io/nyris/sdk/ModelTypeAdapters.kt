@@ -0,0 +1,497 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import com.google.gson.TypeAdapterFactory
+import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+
+/**
+ * ModelTypeAdapters.kt - type adapter factory of the response models, so they are decoded without
+ * the reflective type adapter of Gson.
+ * Absent or null values keep the default value of the model, unknown fields are skipped.
+ *
+ * @param stringPool the pool of the repeated offer values, null to not share them
+ *
+ * @see OfferResponse
+ * @see ObjectList
+ */
+internal class ModelTypeAdapterFactory @JvmOverloads constructor(
+    stringPool: StringPool? = null
+) : TypeAdapterFactory {
+    private val offerAdapter = stringPool?.let { OfferTypeAdapter(null, it) } ?: OfferTypeAdapter.ALL_FIELDS
+    private val offerResponseAdapter = stringPool?.let { OfferResponseTypeAdapter(offerAdapter) }
+        ?: OfferResponseTypeAdapter.ALL_FIELDS
+
+    override fun <T> create(gson: Gson, type: TypeToken<T>): TypeAdapter<T>? {
+        val adapter: TypeAdapter<*> = when (type.rawType) {
+            OfferResponse::class.java -> offerResponseAdapter
+            // Null safe itself, so the field masks can get its string pool
+            Offer::class.java -> {
+                @Suppress("UNCHECKED_CAST")
+                return offerAdapter as TypeAdapter<T>
+            }
+            Links::class.java -> LinksTypeAdapter
+            ObjectList::class.java -> ObjectListTypeAdapter
+            Object::class.java -> ObjectTypeAdapter
+            Region::class.java -> RegionTypeAdapter
+            else -> return null
+        }
+        @Suppress("UNCHECKED_CAST")
+        return adapter.nullSafe() as TypeAdapter<T>
+    }
+
+    companion object {
+        private const val WARM_UP_OFFER_RESPONSE = "{\"id\":\"\",\"session\":\"\",\"predicted_category\":{\"\":0}," +
+                "\"results\":[{\"oid\":\"\",\"customIds\":{\"\":\"\"},\"links\":{\"main\":\"\"},\"images\":[\"\"]," +
+                "\"score\":0}]}"
+        private const val WARM_UP_OBJECT_LIST = "{\"regions\":[{\"confidence\":0,\"region\":{\"left\":0}}]}"
+
+        /**
+         * Warm Up
+         * Decode small responses, so the adapters and the JSON reader are loaded before the first request.
+         *
+         * @param gson the gson
+         */
+        @JvmStatic
+        fun warmUp(gson: Gson) {
+            gson.fromJson(WARM_UP_OFFER_RESPONSE, OfferResponse::class.java)
+            gson.fromJson(WARM_UP_OBJECT_LIST, ObjectList::class.java)
+        }
+    }
+}
+
+/**
+ * Offer response type adapter
+ *
+ * @param offerAdapter the adapter of the offers
+ */
+internal class OfferResponseTypeAdapter(
+    private val offerAdapter: TypeAdapter<Offer>
+) : TypeAdapter<OfferResponse>() {
+    override fun read(reader: JsonReader): OfferResponse {
+        var requestId: String? = null
+        var sessionId: String? = null
+        var predictedCategories: Map<String, Float>? = null
+        var offers: List<Offer>? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "id" -> requestId = reader.nextStringOrNull()
+                "session" -> sessionId = reader.nextStringOrNull()
+                "predicted_category" -> predictedCategories = reader.nextMapOrNull { nextFloatOrNull() }
+                "results" -> offers = reader.nextListOrNull { offerAdapter.readOrNull(this) }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return OfferResponse(
+            requestId = requestId,
+            sessionId = sessionId,
+            predictedCategories = predictedCategories ?: mapOf(),
+            offers = offers ?: emptyList()
+        )
+    }
+
+    override fun write(writer: JsonWriter, value: OfferResponse) {
+        writer.beginObject()
+        writer.name("id").value(value.requestId)
+        writer.name("session").value(value.sessionId)
+        writer.name("predicted_category").beginObject()
+        value.predictedCategories.forEach { (category, score) -> writer.name(category).value(score) }
+        writer.endObject()
+        writer.name("results").beginArray()
+        value.offers.forEach { offerAdapter.write(writer, it) }
+        writer.endArray()
+        writer.endObject()
+    }
+
+    companion object {
+        @JvmField
+        val ALL_FIELDS = OfferResponseTypeAdapter(OfferTypeAdapter.ALL_FIELDS)
+
+        /**
+         * Get the adapter that decodes only the fields of the mask
+         *
+         * @param fields the field mask, null for all the fields
+         * @return the offer response type adapter
+         */
+        fun of(fields: Set<OfferField>?): OfferResponseTypeAdapter {
+            return if (fields == null) ALL_FIELDS else OfferResponseTypeAdapter(OfferTypeAdapter(fields))
+        }
+    }
+}
+
+/**
+ * Offer type adapter
+ * The values of the fields outside of the mask are skipped, they keep their default value.
+ * The values that repeat across offers, like the brand or the categories, are shared through the pool.
+ *
+ * @param fields the field mask, null to decode all the fields
+ * @param stringPool the pool of the repeated values, null to not share them
+ */
+internal class OfferTypeAdapter @JvmOverloads constructor(
+    private val fields: Set<OfferField>? = null,
+    private val stringPool: StringPool? = null
+) : TypeAdapter<Offer>() {
+    override fun read(reader: JsonReader): Offer? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        var id: String? = null
+        var title: String? = null
+        var description: String? = null
+        var descriptionLong: String? = null
+        var language: String? = null
+        var brand: String? = null
+        var catalogNumbers: List<String>? = null
+        var customIds: Map<String, String>? = null
+        var keywords: List<String>? = null
+        var categories: List<String>? = null
+        var availability: String? = null
+        var feedId: String? = null
+        var groupId: String? = null
+        var priceStr: String? = null
+        var salePrice: String? = null
+        var links: Links? = null
+        var images: List<String>? = null
+        var metadata: String? = null
+        var sku: String? = null
+        var score = 0F
+        reader.beginObject()
+        while (reader.hasNext()) {
+            val field = OfferField.of(reader.nextName())
+            if (field == null || (fields != null && field !in fields)) {
+                reader.skipValue()
+                continue
+            }
+            when (field) {
+                OfferField.ID -> id = reader.nextStringOrNull()
+                OfferField.TITLE -> title = reader.nextStringOrNull()
+                OfferField.DESCRIPTION -> description = reader.nextStringOrNull()
+                OfferField.DESCRIPTION_LONG -> descriptionLong = reader.nextStringOrNull()
+                OfferField.LANGUAGE -> language = stringPool.internOrSelf(reader.nextStringOrNull())
+                OfferField.BRAND -> brand = stringPool.internOrSelf(reader.nextStringOrNull())
+                OfferField.CATALOG_NUMBERS -> catalogNumbers = reader.nextListOrNull { nextStringOrNull() }
+                OfferField.CUSTOM_IDS -> customIds = reader.nextMapOrNull(stringPool) { nextStringOrNull() }
+                OfferField.KEYWORDS -> keywords = reader.nextListOrNull { nextStringOrNull() }
+                OfferField.CATEGORIES -> categories = reader.nextListOrNull {
+                    stringPool.internOrSelf(nextStringOrNull())
+                }
+                OfferField.AVAILABILITY -> availability = stringPool.internOrSelf(reader.nextStringOrNull())
+                OfferField.FEED_ID -> feedId = stringPool.internOrSelf(reader.nextStringOrNull())
+                OfferField.GROUP_ID -> groupId = reader.nextStringOrNull()
+                OfferField.PRICE -> priceStr = reader.nextStringOrNull()
+                OfferField.SALE_PRICE -> salePrice = reader.nextStringOrNull()
+                OfferField.LINKS -> links = LinksTypeAdapter.readOrNull(reader)
+                OfferField.IMAGES -> images = reader.nextListOrNull { nextStringOrNull() }
+                OfferField.METADATA -> metadata = reader.nextStringOrNull()
+                OfferField.SKU -> sku = reader.nextStringOrNull()
+                OfferField.SCORE -> reader.nextFloatOrNull()?.let { score = it }
+            }
+        }
+        reader.endObject()
+        return Offer(
+            id = id,
+            title = title,
+            description = description,
+            descriptionLong = descriptionLong,
+            language = language,
+            brand = brand,
+            catalogNumbers = catalogNumbers,
+            customIds = customIds,
+            keywords = keywords,
+            categories = categories,
+            availability = availability,
+            feedId = feedId,
+            groupId = groupId,
+            priceStr = priceStr,
+            salePrice = salePrice,
+            links = links,
+            images = images,
+            metadata = metadata,
+            sku = sku,
+            score = score
+        )
+    }
+
+    override fun write(writer: JsonWriter, value: Offer?) {
+        if (value == null) {
+            writer.nullValue()
+            return
+        }
+        writer.beginObject()
+        writer.name("oid").value(value.id)
+        writer.name("title").value(value.title)
+        writer.name("descriptionShort").value(value.description)
+        writer.name("descriptionLong").value(value.descriptionLong)
+        writer.name("language").value(value.language)
+        writer.name("brand").value(value.brand)
+        writer.name("catalogNumbers").valueList(value.catalogNumbers)
+        writer.name("customIds").valueMap(value.customIds)
+        writer.name("keywords").valueList(value.keywords)
+        writer.name("categories").valueList(value.categories)
+        writer.name("availability").value(value.availability)
+        writer.name("feedId").value(value.feedId)
+        writer.name("groupId").value(value.groupId)
+        writer.name("price").value(value.priceStr)
+        writer.name("salePrice").value(value.salePrice)
+        writer.name("links")
+        value.links?.let { LinksTypeAdapter.write(writer, it) } ?: writer.nullValue()
+        writer.name("images").valueList(value.images)
+        writer.name("metadata").value(value.metadata)
+        writer.name("sku").value(value.sku)
+        writer.name("score").value(value.score)
+        writer.endObject()
+    }
+
+    companion object {
+        @JvmField
+        val ALL_FIELDS = OfferTypeAdapter()
+
+        /**
+         * Get the adapter that decodes only the fields of the mask, sharing the string pool of the gson
+         * offer adapter
+         *
+         * @param gson the gson
+         * @param fields the field mask, null for all the fields
+         * @return the offer type adapter
+         */
+        fun of(gson: Gson, fields: Set<OfferField>?): TypeAdapter<Offer> {
+            val adapter = gson.getAdapter(Offer::class.java)
+            if (fields == null) {
+                return adapter
+            }
+            return OfferTypeAdapter(fields, (adapter as? OfferTypeAdapter)?.stringPool)
+        }
+    }
+}
+
+internal object LinksTypeAdapter : TypeAdapter<Links>() {
+    override fun read(reader: JsonReader): Links {
+        var main: String? = null
+        var mobile: String? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "main" -> main = reader.nextStringOrNull()
+                "mobile" -> mobile = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return Links(main = main, mobile = mobile)
+    }
+
+    override fun write(writer: JsonWriter, value: Links) {
+        writer.beginObject()
+        writer.name("main").value(value.main)
+        writer.name("mobile").value(value.mobile)
+        writer.endObject()
+    }
+}
+
+internal object ObjectListTypeAdapter : TypeAdapter<ObjectList>() {
+    override fun read(reader: JsonReader): ObjectList {
+        var regions: List<Object>? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "regions" -> regions = reader.nextListOrNull { ObjectTypeAdapter.readOrNull(this) }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return ObjectList(regions = regions)
+    }
+
+    override fun write(writer: JsonWriter, value: ObjectList) {
+        writer.beginObject()
+        writer.name("regions")
+        val regions = value.regions
+        if (regions == null) {
+            writer.nullValue()
+        } else {
+            writer.beginArray()
+            regions.forEach { ObjectTypeAdapter.write(writer, it) }
+            writer.endArray()
+        }
+        writer.endObject()
+    }
+}
+
+internal object ObjectTypeAdapter : TypeAdapter<Object>() {
+    override fun read(reader: JsonReader): Object {
+        var confidence = 0F
+        var region: Region? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "confidence" -> reader.nextFloatOrNull()?.let { confidence = it }
+                "region" -> region = RegionTypeAdapter.readOrNull(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return Object(confidence = confidence, region = region)
+    }
+
+    override fun write(writer: JsonWriter, value: Object) {
+        writer.beginObject()
+        writer.name("confidence").value(value.confidence)
+        writer.name("region")
+        value.region?.let { RegionTypeAdapter.write(writer, it) } ?: writer.nullValue()
+        writer.endObject()
+    }
+}
+
+internal object RegionTypeAdapter : TypeAdapter<Region>() {
+    override fun read(reader: JsonReader): Region {
+        var left = 0F
+        var top = 0F
+        var right = 0F
+        var bottom = 0F
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "left" -> reader.nextFloatOrNull()?.let { left = it }
+                "top" -> reader.nextFloatOrNull()?.let { top = it }
+                "right" -> reader.nextFloatOrNull()?.let { right = it }
+                "bottom" -> reader.nextFloatOrNull()?.let { bottom = it }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return Region(left = left, top = top, right = right, bottom = bottom)
+    }
+
+    override fun write(writer: JsonWriter, value: Region) {
+        writer.beginObject()
+        writer.name("left").value(value.left)
+        writer.name("top").value(value.top)
+        writer.name("right").value(value.right)
+        writer.name("bottom").value(value.bottom)
+        writer.endObject()
+    }
+}
+
+/**
+ * Read the value or null
+ */
+internal fun <T> TypeAdapter<T>.readOrNull(reader: JsonReader): T? {
+    if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull()
+        return null
+    }
+    return read(reader)
+}
+
+/**
+ * Read a string like the Gson string adapter, numbers and booleans are read as strings
+ */
+internal fun JsonReader.nextStringOrNull(): String? = when (peek()) {
+    JsonToken.NULL -> {
+        nextNull()
+        null
+    }
+    JsonToken.BOOLEAN -> nextBoolean().toString()
+    else -> nextString()
+}
+
+/**
+ * Read a float like the Gson float adapter, numeric strings are parsed
+ */
+internal fun JsonReader.nextFloatOrNull(): Float? {
+    if (peek() == JsonToken.NULL) {
+        nextNull()
+        return null
+    }
+    return nextDouble().toFloat()
+}
+
+/**
+ * Read an array, null items are skipped and an empty array is read as the shared empty list
+ */
+internal inline fun <T> JsonReader.nextListOrNull(readItem: JsonReader.() -> T?): List<T>? {
+    if (peek() == JsonToken.NULL) {
+        nextNull()
+        return null
+    }
+    beginArray()
+    if (!hasNext()) {
+        endArray()
+        return emptyList()
+    }
+    val list = ArrayList<T>()
+    while (hasNext()) {
+        readItem()?.let { list.add(it) }
+    }
+    endArray()
+    return list
+}
+
+/**
+ * Read an object as a map, null values are skipped and an empty object is read as the shared empty map
+ *
+ * @param keyPool the pool of the keys, null to not share them
+ */
+internal inline fun <V> JsonReader.nextMapOrNull(
+    keyPool: StringPool? = null,
+    readValue: JsonReader.() -> V?
+): Map<String, V>? {
+    if (peek() == JsonToken.NULL) {
+        nextNull()
+        return null
+    }
+    beginObject()
+    if (!hasNext()) {
+        endObject()
+        return emptyMap()
+    }
+    val map = LinkedHashMap<String, V>()
+    while (hasNext()) {
+        val key = keyPool?.intern(nextName()) ?: nextName()
+        readValue()?.let { map[key] = it }
+    }
+    endObject()
+    return map
+}
+
+private fun JsonWriter.valueList(values: List<String>?) {
+    if (values == null) {
+        nullValue()
+        return
+    }
+    beginArray()
+    values.forEach { value(it) }
+    endArray()
+}
+
+private fun JsonWriter.valueMap(values: Map<String, String>?) {
+    if (values == null) {
+        nullValue()
+        return
+    }
+    beginObject()
+    values.forEach { (key, value) -> name(key).value(value) }
+    endObject()
+}
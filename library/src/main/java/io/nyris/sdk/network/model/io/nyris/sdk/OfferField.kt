@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * OfferField.kt - enum of the offer fields that can be decoded.
+ * Used as field mask to decode only the fields needed by a screen, the other values of the response
+ * are skipped without being allocated.
+ *
+ * @param jsonName the name of the field in the response
+ */
+enum class OfferField(val jsonName: String) {
+    ID("oid"),
+    TITLE("title"),
+    DESCRIPTION("descriptionShort"),
+    DESCRIPTION_LONG("descriptionLong"),
+    LANGUAGE("language"),
+    BRAND("brand"),
+    CATALOG_NUMBERS("catalogNumbers"),
+    CUSTOM_IDS("customIds"),
+    KEYWORDS("keywords"),
+    CATEGORIES("categories"),
+    AVAILABILITY("availability"),
+    FEED_ID("feedId"),
+    GROUP_ID("groupId"),
+    PRICE("price"),
+    SALE_PRICE("salePrice"),
+    LINKS("links"),
+    IMAGES("images"),
+    METADATA("metadata"),
+    SKU("sku"),
+    SCORE("score");
+
+    internal companion object {
+        private val BY_JSON_NAME = values().associateBy { it.jsonName }
+
+        /**
+         * Get the field of a json name
+         *
+         * @param jsonName the name of the field in the response
+         * @return the field, null for unknown names
+         */
+        fun of(jsonName: String): OfferField? = BY_JSON_NAME[jsonName]
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import androidx.annotation.Keep
+import okhttp3.MediaType
+import okhttp3.ResponseBody
+import okio.BufferedSource
+import okio.ByteString
+import okio.Sink
+import java.io.Closeable
+import java.io.InputStream
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * RawResponseBody.kt - class model implement IResponse, that exposes the response bytes without decoding
+ * them to a string. The body can be read only once, as a source, an input stream, a byte string or by
+ * writing it to a sink, the reading call closes it. A body that is not read must be closed.
+ * The responses of this type are never shared by identical calls nor cached.
+ * @see IResponse
+ * @see JsonResponseBody
+ */
+@Keep
+class RawResponseBody internal constructor(
+    private val body: ResponseBody
+) : IResponse, Closeable {
+    private val isConsumed = AtomicBoolean()
+
+    /**
+     * The response media type, null when it is unknown
+     */
+    val contentType: MediaType?
+        get() = body.contentType()
+
+    /**
+     * The response length in bytes, -1 when it is unknown
+     */
+    val contentLength: Long
+        get() = body.contentLength()
+
+    /**
+     * Get the response source, the caller has to close it
+     *
+     * @return the one-shot buffered source
+     * @throws IllegalStateException when the body was already read
+     */
+    fun source(): BufferedSource {
+        check(isConsumed.compareAndSet(false, true)) { "The response body can be read only once" }
+        return body.source()
+    }
+
+    /**
+     * Get the response input stream, the caller has to close it
+     *
+     * @return the one-shot input stream
+     * @throws IllegalStateException when the body was already read
+     */
+    fun inputStream(): InputStream = source().inputStream()
+
+    /**
+     * Read the whole response
+     *
+     * @return the response bytes
+     * @throws IllegalStateException when the body was already read
+     */
+    fun byteString(): ByteString = source().use { it.readByteString() }
+
+    /**
+     * Write the whole response to the sink, for example a file sink, without keeping it in memory
+     *
+     * @param sink the sink, not closed by this method
+     * @return the number of written bytes
+     * @throws IllegalStateException when the body was already read
+     */
+    fun writeTo(sink: Sink): Long = source().use { it.readAll(sink) }
+
+    /**
+     * Close the response body without reading it
+     */
+    override fun close() {
+        body.close()
+    }
+}
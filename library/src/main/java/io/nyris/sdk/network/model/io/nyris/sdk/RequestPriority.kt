@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * RequestPriority.kt - enum of the request pools a call is sent with.
+ *
+ * @see BulkheadConfig
+ */
+enum class RequestPriority {
+    /**
+     * A call the user waits for, like a match, a regions detection or a text search
+     */
+    INTERACTIVE,
+
+    /**
+     * A call nobody waits for, like a feedback event, a not found mark or a recommendation prefetch
+     */
+    BACKGROUND
+}
@@ -2,6 +2,8 @@ package io.nyris.sdk
 
 import io.reactivex.Single
 import okhttp3.ResponseBody
+import retrofit2.Call
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.Body
 import retrofit2.http.HeaderMap
 import retrofit2.http.POST
@@ -24,4 +26,18 @@ internal interface FeedbackService {
         @HeaderMap headers: Map<String, String>,
         @Body body: FeedbackRequest
     ): Single<ResponseBody>
+
+    /**
+     * Http Post feedback request
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param body the request body
+     * @return the Call of the Response Body
+     */
+    @SkipCallbackExecutor
+    @POST("feedback/v1")
+    fun feedbackCall(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: FeedbackRequest
+    ): Call<ResponseBody>
 }
\ No newline at end of file
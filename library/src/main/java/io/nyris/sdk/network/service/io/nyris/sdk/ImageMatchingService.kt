@@ -19,10 +19,13 @@ package io.nyris.sdk
 import io.reactivex.Single
 import okhttp3.RequestBody
 import okhttp3.ResponseBody
+import retrofit2.Call
 import retrofit2.Response
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.Body
 import retrofit2.http.HeaderMap
 import retrofit2.http.POST
+import retrofit2.http.Streaming
 
 /**
  * ImageMatchingService.kt - http interface of Image Matching Service
@@ -38,14 +41,46 @@ internal interface ImageMatchingService {
      * @param url the url
      * @param headers the headers
      * @param body the body
-     * @return the Single Response Body
+     * @return the Single Response Body, streamed so it is decoded while it is read
      */
+    @Streaming
     @POST("find/v1.1")
     fun match(
         @HeaderMap headers: Map<String, String>,
         @Body body: RequestBody
     ): Single<ResponseBody>
 
+    /**
+     * Http Post Match image byte Array
+     * The response body is streamed, it is not buffered before it is returned.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Single streamed Response Body
+     */
+    @Streaming
+    @POST("find/v1.1")
+    fun matchStreaming(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Single<ResponseBody>
+
+    /**
+     * Http Post Match image byte Array
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Call of the streamed Response Body
+     */
+    @Streaming
+    @SkipCallbackExecutor
+    @POST("find/v1.1")
+    fun matchCall(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Call<ResponseBody>
+
     /**
      * http Post Match image byte Array
      *
@@ -80,11 +115,28 @@ internal interface ImageMatchingService {
      * @param url the url
      * @param headers the headers
      * @param body the body
-     * @return the Single Response Body
+     * @return the Single Response Body, streamed so it is decoded while it is read
      */
+    @Streaming
     @POST("find/v1/fingerprint/semantic")
     fun semanticSearch2(
         @HeaderMap headers: Map<String, String>,
         @Body body: RequestBody
     ): Single<ResponseBody>
+
+    /**
+     * Http Post Match embedding
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Call of the streamed Response Body
+     */
+    @Streaming
+    @SkipCallbackExecutor
+    @POST("find/v1/fingerprint/semantic")
+    fun semanticSearchCall(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Call<ResponseBody>
 }
@@ -18,6 +18,8 @@ package io.nyris.sdk
 
 import io.reactivex.Single
 import okhttp3.ResponseBody
+import retrofit2.Call
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.HeaderMap
 import retrofit2.http.POST
 import retrofit2.http.Path
@@ -43,4 +45,19 @@ internal interface NotFoundMatchingService {
         @Path("imageRequestId") imageRequestId: String,
         @HeaderMap headers: Map<String, String>
     ): Single<ResponseBody>
+
+    /**
+     * Http Post Mark For Manual Match
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param imageRequestId the request id of the image
+     * @param headers the headers
+     * @return the Call of the ResponseBody
+     */
+    @SkipCallbackExecutor
+    @POST("find/v1/manual/{imageRequestId}")
+    fun markAsNotFoundCall(
+        @Path("imageRequestId") imageRequestId: String,
+        @HeaderMap headers: Map<String, String>
+    ): Call<ResponseBody>
 }
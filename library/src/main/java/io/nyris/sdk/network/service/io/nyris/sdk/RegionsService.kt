@@ -18,6 +18,8 @@ package io.nyris.sdk
 
 import io.reactivex.Single
 import okhttp3.RequestBody
+import retrofit2.Call
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.Body
 import retrofit2.http.HeaderMap
 import retrofit2.http.POST
@@ -43,4 +45,19 @@ internal interface RegionsService {
         @HeaderMap headers: Map<String, String>,
         @Body body: RequestBody
     ): Single<ObjectList>
+
+    /**
+     * Http Post Extract Objects
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Call of the List Object Proposal
+     */
+    @SkipCallbackExecutor
+    @POST("find/v2/regions")
+    fun detectCall(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Call<ObjectList>
 }
@@ -18,9 +18,12 @@ package io.nyris.sdk
 
 import io.reactivex.Single
 import okhttp3.ResponseBody
+import retrofit2.Call
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.GET
 import retrofit2.http.HeaderMap
 import retrofit2.http.Path
+import retrofit2.http.Streaming
 import retrofit2.http.Url
 
 /**
@@ -33,7 +36,18 @@ import retrofit2.http.Url
 internal interface SimilarityService {
     /**
      * Http Get By SKU
+     * The response body is streamed, so it is decoded while it is read.
      */
+    @Streaming
     @GET("recommend/v1/{sku}")
     fun getBySku(@Path("sku") sku: String, @HeaderMap headers: Map<String, String>): Single<ResponseBody>
+
+    /**
+     * Http Get By SKU
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     */
+    @Streaming
+    @SkipCallbackExecutor
+    @GET("recommend/v1/{sku}")
+    fun getBySkuCall(@Path("sku") sku: String, @HeaderMap headers: Map<String, String>): Call<ResponseBody>
 }
@@ -19,9 +19,12 @@ package io.nyris.sdk
 import io.reactivex.Single
 import okhttp3.RequestBody
 import okhttp3.ResponseBody
+import retrofit2.Call
+import retrofit2.SkipCallbackExecutor
 import retrofit2.http.Body
 import retrofit2.http.HeaderMap
 import retrofit2.http.POST
+import retrofit2.http.Streaming
 import retrofit2.http.Url
 
 /**
@@ -38,11 +41,43 @@ internal interface TextSearchService {
      * @param url the url
      * @param headers the headers
      * @param body the body
-     * @return the Single Response Body
+     * @return the Single Response Body, streamed so it is decoded while it is read
      */
+    @Streaming
     @POST("find/v1/text")
     fun searchOffers(
         @HeaderMap headers: Map<String, String>,
         @Body body: RequestBody
     ): Single<ResponseBody>
+
+    /**
+     * Http Post Search Offers
+     * The response body is streamed, it is not buffered before it is returned.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Single streamed Response Body
+     */
+    @Streaming
+    @POST("find/v1/text")
+    fun searchOffersStreaming(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Single<ResponseBody>
+
+    /**
+     * Http Post Search Offers
+     * The call is enqueued by the suspend calls, its callback runs on the http thread.
+     *
+     * @param headers the headers
+     * @param body the body
+     * @return the Call of the streamed Response Body
+     */
+    @Streaming
+    @SkipCallbackExecutor
+    @POST("find/v1/text")
+    fun searchOffersCall(
+        @HeaderMap headers: Map<String, String>,
+        @Body body: RequestBody
+    ): Call<ResponseBody>
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * BatchStatsCounter.kt - counters of a batch match, updated by the concurrent matches of its images.
+ *
+ * @param clock the monotonic clock in nanoseconds
+ *
+ * @see BatchStats
+ */
+internal class BatchStatsCounter(private val clock: () -> Long = System::nanoTime) {
+    private val startNanos = clock()
+    private val successCount = AtomicLong()
+    private val errorCount = AtomicLong()
+    private val rejectedCount = AtomicLong()
+    private val bytes = AtomicLong()
+
+    /**
+     * Count the result of an image
+     *
+     * @param status the outcome of the match
+     * @param size the size in bytes of the image, not counted when the image wasn't sent
+     */
+    fun record(status: BatchStatus, size: Long) {
+        when (status) {
+            BatchStatus.SUCCESS -> successCount.incrementAndGet()
+            BatchStatus.ERROR -> errorCount.incrementAndGet()
+            BatchStatus.REJECTED -> rejectedCount.incrementAndGet()
+        }
+        if (status != BatchStatus.REJECTED && size > 0) {
+            bytes.addAndGet(size)
+        }
+    }
+
+    /**
+     * Snapshot of the counters
+     *
+     * @return the batch stats
+     */
+    fun stats(): BatchStats {
+        val successCount = successCount.get()
+        val errorCount = errorCount.get()
+        val rejectedCount = rejectedCount.get()
+        return BatchStats(
+            imageCount = successCount + errorCount + rejectedCount,
+            successCount = successCount,
+            errorCount = errorCount,
+            rejectedCount = rejectedCount,
+            bytes = bytes.get(),
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(clock() - startNanos)
+        )
+    }
+}
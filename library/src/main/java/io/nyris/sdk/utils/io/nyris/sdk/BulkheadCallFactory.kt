@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.Call
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.util.concurrent.SynchronousQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * BulkheadCallFactory.kt - retrofit call factory that sends the interactive and the background calls with
+ * clients that have their own dispatcher limits and threads. The clients share the connection pool.
+ * The background calls are marked by the {@link BulkheadCallFactory#HEADER} header, removed before they are
+ * sent, the other calls are interactive. Each pool hedges its own calls.
+ * The calls are enqueued, so their responses are delivered and decoded on the dispatcher thread of their pool.
+ *
+ * @param client the http client
+ * @param pools the dispatchers of the request pools, shared by the nyris instances
+ *
+ * @see HedgingCallFactory
+ * @see SharedTransport.requestPools
+ */
+internal class BulkheadCallFactory(client: OkHttpClient, pools: RequestPools) : Call.Factory {
+    private val interactive: Call.Factory = HedgingCallFactory(
+        client.newBuilder().dispatcher(pools.interactive).build(),
+        pools.hedgingConnectionPool
+    )
+    private val background: Call.Factory = HedgingCallFactory(
+        client.newBuilder().dispatcher(pools.background).build(),
+        pools.hedgingConnectionPool
+    )
+
+    override fun newCall(request: Request): Call {
+        if (request.header(HEADER) == null) {
+            return interactive.newCall(request)
+        }
+        return background.newCall(request.newBuilder().removeHeader(HEADER).build())
+    }
+
+    /**
+     * The dispatchers and threads of the interactive and the background calls, and the connection pool of
+     * their hedged requests
+     *
+     * @param config the bulkhead config
+     */
+    class RequestPools(config: BulkheadConfig) {
+        val interactive: Dispatcher = dispatcher(
+            INTERACTIVE_THREAD_NAME,
+            Thread.NORM_PRIORITY,
+            config.interactiveMaxRequests,
+            config.interactiveMaxRequestsPerHost
+        )
+        val background: Dispatcher = dispatcher(
+            BACKGROUND_THREAD_NAME,
+            Thread.MIN_PRIORITY,
+            config.backgroundMaxRequests,
+            config.backgroundMaxRequestsPerHost
+        )
+        val hedgingConnectionPool: ConnectionPool = ConnectionPool()
+    }
+
+    internal companion object {
+        /**
+         * The header that marks a background call
+         */
+        const val HEADER = "X-Nyris-Background-Request"
+
+        private const val INTERACTIVE_THREAD_NAME = "nyris interactive"
+        private const val BACKGROUND_THREAD_NAME = "nyris background"
+        private const val KEEP_ALIVE_SECONDS = 60L
+
+        /**
+         * Add the background call header
+         *
+         * @param headers the request headers
+         * @param priority the priority of the call
+         * @return the headers of the request
+         */
+        @JvmStatic
+        fun headers(headers: Map<String, String>, priority: RequestPriority): Map<String, String> {
+            return if (priority == RequestPriority.BACKGROUND) headers + (HEADER to "true") else headers
+        }
+
+        /**
+         * Dispatcher with its own threads, the idle threads are released
+         */
+        private fun dispatcher(
+            name: String,
+            threadPriority: Int,
+            maxRequests: Int,
+            maxRequestsPerHost: Int
+        ): Dispatcher {
+            val threadFactory = ThreadFactory { runnable ->
+                Thread(runnable, name).apply {
+                    isDaemon = true
+                    priority = threadPriority
+                }
+            }
+            val executor = ThreadPoolExecutor(
+                0,
+                Int.MAX_VALUE,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                SynchronousQueue(),
+                threadFactory
+            )
+            return Dispatcher(executor).apply {
+                this.maxRequests = maxRequests
+                this.maxRequestsPerHost = maxRequestsPerHost
+            }
+        }
+    }
+}
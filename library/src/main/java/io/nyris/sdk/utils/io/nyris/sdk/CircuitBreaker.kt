@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * CircuitBreaker.kt - thread safe circuit breaker of one endpoint.
+ * The outcomes of the recent calls are kept in a ring buffer, the circuit opens when the rate of the failed
+ * or of the slow calls reaches its threshold. The calls are rejected while it is open, then the half open
+ * circuit allows a few probe calls that close it when they all succeed.
+ *
+ * @param endpoint the endpoint of the circuit
+ * @param config the circuit breaker config
+ * @param clock the monotonic clock in milliseconds
+ *
+ * @see CircuitBreakerConfig
+ */
+internal class CircuitBreaker(
+    private val endpoint: ApiEndpoint,
+    private val config: CircuitBreakerConfig,
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) {
+    private val outcomes = IntArray(config.windowSize.coerceAtLeast(1))
+    private var recorded = 0
+    private var next = 0
+    private var failures = 0
+    private var slowCalls = 0
+    private var openedAt = 0L
+    private var probes = 0
+    private var probeSuccesses = 0
+
+    /**
+     * The current state of the circuit
+     */
+    @get:Synchronized
+    var state: CircuitState = CircuitState.CLOSED
+        private set
+
+    /**
+     * Try to acquire the permission to send a call
+     *
+     * @return the permit of the call, null when the circuit rejects it
+     */
+    fun tryAcquire(): Permit? {
+        var transition: CircuitState? = null
+        val permit = synchronized(this) {
+            if (state == CircuitState.OPEN && clock() - openedAt >= config.openDurationMillis) {
+                transition = moveTo(CircuitState.HALF_OPEN)
+            }
+            when (state) {
+                CircuitState.CLOSED -> Permit(false, clock)
+                CircuitState.OPEN -> null
+                CircuitState.HALF_OPEN -> if (probes < config.halfOpenProbes) {
+                    probes++
+                    Permit(true, clock)
+                } else {
+                    null
+                }
+            }
+        }
+        notify(transition, CircuitState.HALF_OPEN)
+        return permit
+    }
+
+    /**
+     * The time in milliseconds before the open circuit allows probe calls
+     */
+    @Synchronized
+    fun retryAfterMillis(): Long {
+        return (openedAt + config.openDurationMillis - clock()).coerceAtLeast(0L)
+    }
+
+    /**
+     * Record the outcome of a call
+     *
+     * @param permit the permit of the call
+     * @param isFailure true when the call failed
+     */
+    fun onResult(permit: Permit, isFailure: Boolean) {
+        var transition: CircuitState? = null
+        var to: CircuitState? = null
+        synchronized(this) {
+            val isSlow = clock() - permit.startMillis >= config.slowCallDurationMillis
+            if (permit.isProbe) {
+                // A probe outcome is only meaningful while its circuit is still half open
+                if (state != CircuitState.HALF_OPEN) {
+                    return@synchronized
+                }
+                if (isFailure || isSlow) {
+                    to = CircuitState.OPEN
+                } else if (++probeSuccesses >= config.halfOpenProbes) {
+                    to = CircuitState.CLOSED
+                }
+            } else if (state == CircuitState.CLOSED) {
+                record(isFailure, isSlow)
+                if (isTripped()) {
+                    to = CircuitState.OPEN
+                }
+            }
+            to?.let { transition = moveTo(it) }
+        }
+        notify(transition, to)
+    }
+
+    /**
+     * Release the permit of a call that has no outcome, like a cancelled call
+     *
+     * @param permit the permit of the call
+     */
+    @Synchronized
+    fun onIgnored(permit: Permit) {
+        if (permit.isProbe && state == CircuitState.HALF_OPEN) {
+            probes--
+        }
+    }
+
+    private fun record(isFailure: Boolean, isSlow: Boolean) {
+        if (recorded == outcomes.size) {
+            val evicted = outcomes[next]
+            if (evicted and FAILURE != 0) failures--
+            if (evicted and SLOW != 0) slowCalls--
+        } else {
+            recorded++
+        }
+        var outcome = 0
+        if (isFailure) {
+            outcome = outcome or FAILURE
+            failures++
+        }
+        if (isSlow) {
+            outcome = outcome or SLOW
+            slowCalls++
+        }
+        outcomes[next] = outcome
+        next = (next + 1) % outcomes.size
+    }
+
+    private fun isTripped(): Boolean {
+        if (recorded < config.minimumCalls) {
+            return false
+        }
+        return failures >= config.failureRateThreshold * recorded ||
+                slowCalls >= config.slowCallRateThreshold * recorded
+    }
+
+    /**
+     * Move to the state and reset the counters of the new state
+     *
+     * @return the previous state
+     */
+    private fun moveTo(to: CircuitState): CircuitState {
+        val from = state
+        state = to
+        when (to) {
+            CircuitState.CLOSED -> {
+                recorded = 0
+                next = 0
+                failures = 0
+                slowCalls = 0
+            }
+            CircuitState.OPEN -> openedAt = clock()
+            CircuitState.HALF_OPEN -> {
+                probes = 0
+                probeSuccesses = 0
+            }
+        }
+        return from
+    }
+
+    /**
+     * Notify the listener out of the lock, so it can't block the other calls
+     */
+    private fun notify(from: CircuitState?, to: CircuitState?) {
+        if (from != null && to != null) {
+            config.listener?.onStateChanged(endpoint, from, to)
+        }
+    }
+
+    /**
+     * Permission to send a call
+     *
+     * @param isProbe true for a probe call of the half open circuit
+     * @param clock the clock of the circuit breaker
+     */
+    class Permit(val isProbe: Boolean, private val clock: () -> Long) {
+        /**
+         * The clock time when the call started
+         */
+        @Volatile
+        var startMillis: Long = clock()
+            private set
+
+        /**
+         * Restart the call duration, when the call is sent after waiting for its concurrency limit slot
+         */
+        fun restart() {
+            startMillis = clock()
+        }
+    }
+
+    private companion object {
+        const val FAILURE = 1
+        const val SLOW = 2
+    }
+}
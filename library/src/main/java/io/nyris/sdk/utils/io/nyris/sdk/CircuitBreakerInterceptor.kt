@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import retrofit2.Invocation
+import java.io.IOException
+import java.util.EnumMap
+
+/**
+ * CircuitBreakerInterceptor.kt - interceptor that wraps the calls of each retrofit service in the circuit
+ * breaker of its endpoint. While a circuit is open the calls fail fast with CircuitOpenException, without
+ * waiting for the connect timeouts and the retries. The cancelled calls, like the losing hedged requests,
+ * and the calls rejected by the concurrency limiter are not recorded. The permit is passed to the limiter as
+ * a request tag, the wait for a slot is not counted in the call duration.
+ *
+ * @param config the circuit breaker config
+ *
+ * @see CircuitBreaker
+ */
+internal class CircuitBreakerInterceptor(config: CircuitBreakerConfig) : Interceptor {
+    private val circuitBreakers = EnumMap<ApiEndpoint, CircuitBreaker>(ApiEndpoint::class.java).apply {
+        ApiEndpoint.values().forEach { put(it, CircuitBreaker(it, config)) }
+    }
+
+    /**
+     * The circuit breaker of the endpoint
+     *
+     * @param endpoint the endpoint
+     * @return the circuit breaker
+     */
+    fun circuitBreaker(endpoint: ApiEndpoint): CircuitBreaker = circuitBreakers.getValue(endpoint)
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        // The requests that are not sent by a retrofit service, like the warm up, are not guarded
+        val endpoint = request.tag(Invocation::class.java)
+            ?.let { ApiEndpoint.of(it.method().declaringClass) }
+            ?: return chain.proceed(request)
+        val circuitBreaker = circuitBreaker(endpoint)
+        val permit = circuitBreaker.tryAcquire()
+            ?: throw CircuitOpenException(endpoint, circuitBreaker.retryAfterMillis())
+        val response = try {
+            chain.proceed(request.newBuilder().tag(CircuitBreaker.Permit::class.java, permit).build())
+        } catch (e: ConcurrencyLimitExceededException) {
+            // Rejected locally, the endpoint was not called
+            circuitBreaker.onIgnored(permit)
+            throw e
+        } catch (e: IOException) {
+            if (chain.call().isCanceled() && e !is NyrisTimeoutException) {
+                circuitBreaker.onIgnored(permit)
+            } else {
+                circuitBreaker.onResult(permit, true)
+            }
+            throw e
+        } catch (e: RuntimeException) {
+            circuitBreaker.onIgnored(permit)
+            throw e
+        }
+        circuitBreaker.onResult(permit, response.code >= SERVER_ERROR)
+        return response
+    }
+
+    private companion object {
+        const val SERVER_ERROR = 500
+    }
+}
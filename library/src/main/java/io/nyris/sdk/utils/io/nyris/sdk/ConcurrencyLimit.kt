@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.ArrayDeque
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * ConcurrencyLimit.kt - thread safe adaptive limit of the concurrent calls of one endpoint (AIMD).
+ * The usual round trip time is a low percentile of the recent successful calls. A call that keeps it grows
+ * the limit by 1 / limit, so by one every round trip, while the limit is used. A call slower than the
+ * tolerance or an overloaded backend multiplies the limit by the backoff ratio. The calls over the limit
+ * wait in a FIFO queue.
+ *
+ * @param endpoint the endpoint of the limit
+ * @param config the concurrency limit config
+ * @param clock the monotonic clock in milliseconds
+ *
+ * @see ConcurrencyLimitConfig
+ */
+internal class ConcurrencyLimit @JvmOverloads constructor(
+    private val endpoint: ApiEndpoint,
+    private val config: ConcurrencyLimitConfig,
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) {
+    private val lock = ReentrantLock()
+    private val available = lock.newCondition()
+    private val waiters = ArrayDeque<Any>()
+    private val rtts = LatencyTracker(RTT_WINDOW)
+    private var limit = config.initialLimit.toDouble()
+    private var inFlight = 0
+    private var acceptedCount = 0L
+    private var rejectedCount = 0L
+
+    /**
+     * Acquire a slot, waiting in the queue while the limit is reached
+     *
+     * @param isCanceled the function that tells whether the call was cancelled while it waits
+     * @return the permit of the call
+     * @throws ConcurrencyLimitExceededException when the queue is full or the wait elapsed
+     */
+    @Throws(IOException::class)
+    fun acquire(isCanceled: () -> Boolean): Permit = lock.withLock {
+        if (waiters.isEmpty() && inFlight < currentLimit()) {
+            return admit()
+        }
+        if (waiters.size >= config.maxQueueSize) {
+            throw reject()
+        }
+        val waiter = Any()
+        waiters.addLast(waiter)
+        val deadline = clock() + config.maxQueueWaitMillis
+        try {
+            while (waiters.peekFirst() !== waiter || inFlight >= currentLimit()) {
+                if (isCanceled()) {
+                    throw IOException("Canceled")
+                }
+                val remaining = deadline - clock()
+                if (remaining <= 0) {
+                    throw reject()
+                }
+                // Waits in slices, so a cancelled call leaves the queue
+                available.await(min(remaining, WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS)
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw InterruptedIOException("Concurrency limit wait interrupted")
+        } finally {
+            waiters.remove(waiter)
+            available.signalAll()
+        }
+        admit()
+    }
+
+    /**
+     * Release the slot of a call and adapt the limit to its round trip time
+     *
+     * @param permit the permit of the call
+     * @param isOverloaded true when the call failed or the backend is overloaded
+     */
+    fun onResult(permit: Permit, isOverloaded: Boolean) = lock.withLock {
+        inFlight--
+        val rtt = clock() - permit.startMillis
+        val usualRtt = rtts.percentile(USUAL_RTT_PERCENTILE, MIN_SAMPLES)
+        if (isOverloaded || (usualRtt != null && rtt > usualRtt * config.rttToleranceRatio)) {
+            limit = max(config.minLimit.toDouble(), limit * config.backoffRatio)
+        } else if (permit.inFlight * 2 >= limit) {
+            // Grows only when the limit is used, an idle endpoint keeps its limit
+            limit = min(config.maxLimit.toDouble(), limit + 1.0 / limit)
+        }
+        // The round trip of a failed call is not the usual one
+        if (!isOverloaded) {
+            rtts.record(rtt)
+        }
+        available.signalAll()
+    }
+
+    /**
+     * Release the slot of a call that has no outcome, like a cancelled call
+     *
+     * @param permit the permit of the call
+     */
+    fun onIgnored(@Suppress("UNUSED_PARAMETER") permit: Permit) = lock.withLock {
+        inFlight--
+        available.signalAll()
+    }
+
+    /**
+     * Get the counters of the limit
+     *
+     * @return the concurrency limit stats
+     */
+    fun stats(): ConcurrencyLimitStats = lock.withLock {
+        ConcurrencyLimitStats(currentLimit(), inFlight, waiters.size, acceptedCount, rejectedCount)
+    }
+
+    private fun currentLimit(): Int = limit.toInt()
+
+    private fun admit(): Permit {
+        inFlight++
+        acceptedCount++
+        return Permit(clock(), inFlight)
+    }
+
+    private fun reject(): ConcurrencyLimitExceededException {
+        rejectedCount++
+        return ConcurrencyLimitExceededException(endpoint, currentLimit())
+    }
+
+    /**
+     * Slot of a call
+     *
+     * @param startMillis the clock time when the call got its slot
+     * @param inFlight the number of calls in flight when the call got its slot, itself included
+     */
+    class Permit(val startMillis: Long, val inFlight: Int)
+
+    private companion object {
+        const val RTT_WINDOW = 100
+        const val MIN_SAMPLES = 10
+        const val USUAL_RTT_PERCENTILE = 0.1
+        const val WAIT_SLICE_MILLIS = 50L
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import retrofit2.Invocation
+import java.io.IOException
+import java.util.EnumMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * ConcurrencyLimiter.kt - interceptor that bounds the concurrent calls of each retrofit service by the
+ * adaptive limit of its endpoint, so parallel uploads don't fight for the bandwidth of a weak network.
+ * A call holds its slot until its response headers are received, its retries included.
+ *
+ * @param config the concurrency limit config, null to disable the limits
+ *
+ * @see ConcurrencyLimit
+ */
+@Singleton
+internal class ConcurrencyLimiter(config: ConcurrencyLimitConfig?) : Interceptor {
+    private val limits: Map<ApiEndpoint, ConcurrencyLimit>? = config?.let {
+        EnumMap<ApiEndpoint, ConcurrencyLimit>(ApiEndpoint::class.java).apply {
+            ApiEndpoint.values().forEach { endpoint -> put(endpoint, ConcurrencyLimit(endpoint, it)) }
+        }
+    }
+
+    @Inject
+    constructor(config: NyrisConfig) : this(config.concurrencyLimit)
+
+    /**
+     * Get the counters of the limit of an endpoint
+     *
+     * @param endpoint the endpoint
+     * @return the concurrency limit stats, empty when the limits are disabled
+     */
+    fun stats(endpoint: ApiEndpoint): ConcurrencyLimitStats {
+        return limits?.get(endpoint)?.stats() ?: ConcurrencyLimitStats()
+    }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        // The requests that are not sent by a retrofit service, like the warm up, are not limited
+        val limit = request.tag(Invocation::class.java)
+            ?.let { ApiEndpoint.of(it.method().declaringClass) }
+            ?.let { limits?.get(it) }
+            ?: return chain.proceed(request)
+        val call = chain.call()
+        val permit = limit.acquire { call.isCanceled() }
+        // The circuit breaker times the call from here, the wait for the slot is not an endpoint latency
+        request.tag(CircuitBreaker.Permit::class.java)?.restart()
+        val response = try {
+            chain.proceed(request)
+        } catch (e: IOException) {
+            if (call.isCanceled()) {
+                limit.onIgnored(permit)
+            } else {
+                limit.onResult(permit, true)
+            }
+            throw e
+        } catch (e: RuntimeException) {
+            limit.onIgnored(permit)
+            throw e
+        }
+        limit.onResult(permit, response.code == TOO_MANY_REQUESTS || response.code >= SERVER_ERROR)
+        return response
+    }
+
+    private companion object {
+        const val TOO_MANY_REQUESTS = 429
+        const val SERVER_ERROR = 500
+    }
+}
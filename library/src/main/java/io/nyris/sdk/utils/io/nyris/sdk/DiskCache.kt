@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import java.io.File
+import java.io.IOException
+
+/**
+ * DiskCache.kt - file per entry cache bounded by the total size of its files.
+ * The entries are evicted by age, the file modification time is the time the entry was written.
+ *
+ * @param directory the cache directory
+ * @param maxBytes the maximum total size in bytes of the cached files
+ */
+internal class DiskCache(
+    private val directory: File,
+    private val maxBytes: Long
+) {
+    /**
+     * The total size in bytes of the cached files
+     */
+    val size: Long
+        @Synchronized
+        get() = files().sumOf { it.length() }
+
+    /**
+     * Get entry
+     *
+     * @param key the entry key, a valid file name
+     * @param maxAgeMillis the maximum age of the entry
+     * @return the cached bytes and their write time, or null when missing or expired
+     */
+    @Synchronized
+    fun get(key: String, maxAgeMillis: Long): Pair<ByteArray, Long>? {
+        val file = File(directory, key)
+        val writtenAt = file.lastModified()
+        if (writtenAt == 0L) {
+            return null
+        }
+        if (System.currentTimeMillis() - writtenAt > maxAgeMillis) {
+            file.delete()
+            return null
+        }
+        return try {
+            file.readBytes() to writtenAt
+        } catch (ignore: IOException) {
+            null
+        }
+    }
+
+    /**
+     * Put entry
+     * The cache is best effort, write failures are ignored.
+     *
+     * @param key the entry key, a valid file name
+     * @param bytes the bytes to cache
+     */
+    @Synchronized
+    fun put(key: String, bytes: ByteArray) {
+        try {
+            directory.mkdirs()
+            // Write to a temporary file first so a partially written entry is never read
+            val temp = File(directory, "$key$TEMP_SUFFIX")
+            temp.writeBytes(bytes)
+            if (!temp.renameTo(File(directory, key))) {
+                temp.delete()
+            }
+            trim()
+        } catch (ignore: IOException) {
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        files().forEach { it.delete() }
+    }
+
+    private fun files(): List<File> =
+        directory.listFiles()?.filter { !it.name.endsWith(TEMP_SUFFIX) }.orEmpty()
+
+    private fun trim() {
+        val files = files().sortedBy { it.lastModified() }
+        var total = files.sumOf { it.length() }
+        for (file in files) {
+            if (total <= maxBytes) {
+                break
+            }
+            total -= file.length()
+            file.delete()
+        }
+    }
+
+    private companion object {
+        const val TEMP_SUFFIX = ".tmp"
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.MediaType
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * EmbeddingRequestBody.kt - request body that writes the json {"b64":"..."} of an embedding.
+ * The components are encoded to bytes by the EmbeddingEncoder and Base64 encoded chunk by chunk
+ * straight into the request sink, without building the intermediate byte buffer and strings.
+ * NaN and infinite components have no json representation, such vectors are rejected.
+ *
+ * @see EmbeddingEncoder
+ */
+internal class EmbeddingRequestBody(
+    private val vector: FloatArray,
+    private val encoder: EmbeddingEncoder
+) : RequestBody() {
+    init {
+        require(encoder.bytesPerComponent > 0) { "The encoded components must have at least one byte" }
+        require(vector.all { it.isFinite() }) { "The embedding must only contain finite components" }
+    }
+
+    // A multiple of 3 components is a multiple of 3 bytes, so only the last chunk is padded whatever the
+    // component width
+    private val componentsPerChunk: Int = max(CHUNK_SIZE / (3 * encoder.bytesPerComponent), 1) * 3
+
+    private val scale: Float? = encoder.scale(vector)
+    private val suffix: String = buildString {
+        append('"')
+        encoder.dtype?.let { append(",\"dtype\":\"").append(it).append('"') }
+        scale?.let { append(",\"scale\":").append(it) }
+        append('}')
+    }
+
+    override fun contentType(): MediaType = JSON_MEDIA_TYPE
+
+    override fun contentLength(): Long =
+        PREFIX.length + base64Length(vector.size.toLong() * encoder.bytesPerComponent) + suffix.length
+
+    override fun writeTo(sink: BufferedSink) {
+        sink.writeUtf8(PREFIX)
+        val bytesPerComponent = encoder.bytesPerComponent
+        val input = ByteArray(componentsPerChunk * bytesPerComponent)
+        val output = ByteArray(input.size / 3 * 4)
+        var index = 0
+        while (index < vector.size) {
+            val count = min(componentsPerChunk, vector.size - index)
+            for (i in 0 until count) {
+                encoder.encode(vector[index + i], scale, input, i * bytesPerComponent)
+            }
+            val length = encodeBase64(input, count * bytesPerComponent, output)
+            sink.write(output, 0, length)
+            index += count
+        }
+        sink.writeUtf8(suffix)
+    }
+
+    companion object {
+        private val JSON_MEDIA_TYPE = "application/json".toMediaType()
+        private const val PREFIX = "{\"b64\":\""
+
+        // The chunk size in bytes of the 1, 2 and 4 bytes components, wider components get at least 3 per chunk
+        private const val CHUNK_SIZE = 3 * 4 * 256
+
+        private val ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toByteArray()
+
+        /**
+         * Length of the padded Base64 encoding of byteCount bytes
+         */
+        fun base64Length(byteCount: Long): Long = (byteCount + 2) / 3 * 4
+
+        /**
+         * Encode the first length bytes of input as padded Base64 without line wrapping
+         *
+         * @return the number of bytes written to output
+         */
+        fun encodeBase64(input: ByteArray, length: Int, output: ByteArray): Int {
+            var i = 0
+            var o = 0
+            while (i + 3 <= length) {
+                val bits = (input[i].toInt() and 0xff shl 16) or
+                        (input[i + 1].toInt() and 0xff shl 8) or
+                        (input[i + 2].toInt() and 0xff)
+                output[o++] = ALPHABET[bits ushr 18 and 0x3f]
+                output[o++] = ALPHABET[bits ushr 12 and 0x3f]
+                output[o++] = ALPHABET[bits ushr 6 and 0x3f]
+                output[o++] = ALPHABET[bits and 0x3f]
+                i += 3
+            }
+            when (length - i) {
+                1 -> {
+                    val bits = input[i].toInt() and 0xff shl 16
+                    output[o++] = ALPHABET[bits ushr 18 and 0x3f]
+                    output[o++] = ALPHABET[bits ushr 12 and 0x3f]
+                    output[o++] = '='.code.toByte()
+                    output[o++] = '='.code.toByte()
+                }
+                2 -> {
+                    val bits = (input[i].toInt() and 0xff shl 16) or (input[i + 1].toInt() and 0xff shl 8)
+                    output[o++] = ALPHABET[bits ushr 18 and 0x3f]
+                    output[o++] = ALPHABET[bits ushr 12 and 0x3f]
+                    output[o++] = ALPHABET[bits ushr 6 and 0x3f]
+                    output[o++] = '='.code.toByte()
+                }
+            }
+            return o
+        }
+    }
+}
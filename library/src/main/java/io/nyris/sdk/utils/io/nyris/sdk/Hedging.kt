@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Hedging.kt - class that hedges the requests to cut the tail latency.
+ * The request is sent, and when it has not answered after the hedging delay an identical hedged request
+ * is sent on another connection. The first response wins, the other request is cancelled. The hedged
+ * requests are capped to a fraction of the requests by a token bucket.
+ *
+ * @param config the hedging config, null to disable the hedging
+ * @param scheduler the scheduler of the hedging delay
+ *
+ * @see HedgingConfig
+ * @see HedgingCallFactory
+ */
+@Singleton
+internal class Hedging(
+    private val config: HedgingConfig?,
+    private val scheduler: Scheduler
+) {
+    private val latencies = LatencyTracker(LATENCY_WINDOW)
+    private val budget = RetryBudget(config?.maxExtraLoadRatio ?: 0.0, BUDGET_MAX_TOKENS)
+
+    @Inject
+    constructor(config: NyrisConfig) : this(config.hedging, Schedulers.io())
+
+    /**
+     * Execute the request, hedged when the hedging is enabled
+     *
+     * @param isHedgeable false when the request can't be sent twice, like a one-shot body
+     * @param request the function that creates the request, the parameter is true for the hedged request
+     * @return the single of the first response
+     */
+    fun <T : Any> execute(isHedgeable: Boolean, request: (Boolean) -> Single<T>): Single<T> {
+        val config = config
+        if (config == null || !isHedgeable) {
+            return request(false)
+        }
+        return Single.defer {
+            budget.onRequest()
+            val start = scheduler.now(TimeUnit.MILLISECONDS)
+            // The calls are enqueued, subscribing doesn't block, so the delay elapses while the primary is in flight
+            val primary = request(false)
+            val hedged = Single.timer(delayMillis(config), TimeUnit.MILLISECONDS, scheduler)
+                .flatMap { if (budget.tryRetry()) request(true) else Single.never() }
+            Single.ambArray(primary, hedged)
+                .doOnSuccess { latencies.record(scheduler.now(TimeUnit.MILLISECONDS) - start) }
+        }
+    }
+
+    /**
+     * The fixed delay, or the 95th percentile of the observed latencies
+     */
+    private fun delayMillis(config: HedgingConfig): Long {
+        val delay = config.delayMillis
+            ?: latencies.percentile(PERCENTILE, config.minSamples)
+            ?: config.initialDelayMillis
+        return delay.coerceAtLeast(config.minDelayMillis)
+    }
+
+    internal companion object {
+        /**
+         * The header that marks a hedged request
+         */
+        const val HEADER = "X-Nyris-Hedged-Request"
+
+        private const val LATENCY_WINDOW = 100
+        private const val BUDGET_MAX_TOKENS = 5
+        private const val PERCENTILE = 0.95
+
+        /**
+         * Add the hedged request header
+         *
+         * @param headers the request headers
+         * @param isHedged true for the hedged request
+         * @return the headers of the request
+         */
+        @JvmStatic
+        fun headers(headers: Map<String, String>, isHedged: Boolean): Map<String, String> {
+            return if (isHedged) headers + (HEADER to "true") else headers
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import okhttp3.Call
+import okhttp3.ConnectionPool
+import okhttp3.OkHttpClient
+import okhttp3.Request
+
+/**
+ * HedgingCallFactory.kt - retrofit call factory that sends the hedged requests with a client that has
+ * its own connection pool, so a hedged request never waits behind the slow connection of its original.
+ * The hedged requests are marked by the {@link Hedging#HEADER} header, removed before they are sent.
+ *
+ * @param client the http client
+ * @param connectionPool the connection pool of the hedged requests
+ */
+internal class HedgingCallFactory(
+    private val client: OkHttpClient,
+    private val connectionPool: ConnectionPool
+) : Call.Factory {
+    private val hedgingClient: OkHttpClient by lazy {
+        client.newBuilder()
+            .connectionPool(connectionPool)
+            .build()
+    }
+
+    override fun newCall(request: Request): Call {
+        if (request.header(Hedging.HEADER) == null) {
+            return client.newCall(request)
+        }
+        return hedgingClient.newCall(request.newBuilder().removeHeader(Hedging.HEADER).build())
+    }
+}
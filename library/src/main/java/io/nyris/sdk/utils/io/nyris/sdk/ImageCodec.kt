@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import androidx.exifinterface.media.ExifInterface
+import java.io.ByteArrayOutputStream
+import java.io.File
+import kotlin.math.max
+
+/**
+ * ImageCodec.kt - interface of the image decoding and encoding of the image preprocessor, so its decisions
+ * don't depend on the platform image classes.
+ *
+ * @see ImagePreprocessor
+ */
+internal interface ImageCodec {
+    /**
+     * Open image byte array, its EXIF orientation and its size are read without decoding its pixels
+     *
+     * @param image the image byte array
+     * @return the image
+     */
+    fun open(image: ByteArray): Image
+
+    /**
+     * Open image file
+     *
+     * @param image the image file
+     * @return the image
+     * @see open
+     */
+    fun open(image: File): Image
+
+    /**
+     * Write the EXIF orientation tag into the JPEG
+     *
+     * @param jpeg the JPEG byte array
+     * @param orientationTag the EXIF orientation tag
+     * @return the JPEG with the tag
+     */
+    fun withOrientationTag(jpeg: ByteArray, orientationTag: Int): ByteArray
+
+    /**
+     * Image opened by the codec
+     */
+    interface Image {
+        /**
+         * The EXIF orientation tag, [ExifInterface.ORIENTATION_UNDEFINED] when the image has none
+         */
+        val orientationTag: Int
+
+        /**
+         * The rotation in degrees of the EXIF orientation
+         */
+        val rotationDegrees: Int
+
+        /**
+         * The width, 0 when the image can't be decoded
+         */
+        val width: Int
+
+        /**
+         * The height, 0 when the image can't be decoded
+         */
+        val height: Int
+
+        /**
+         * Decode the image with subsampling, downscale it to the maximum edge length, rotate it and encode it
+         * as JPEG
+         *
+         * @param sampleSize the subsampling of the decode, a power of two
+         * @param maxEdgeLength the maximum length of the longest edge
+         * @param rotationDegrees the rotation in degrees
+         * @param jpegQuality the JPEG quality
+         * @return the JPEG byte array, null when the image can't be decoded
+         */
+        fun transcode(sampleSize: Int, maxEdgeLength: Int, rotationDegrees: Int, jpegQuality: Int): ByteArray?
+    }
+}
+
+/**
+ * Image codec of the android bitmaps
+ */
+internal object AndroidImageCodec : ImageCodec {
+    override fun open(image: ByteArray): ImageCodec.Image {
+        val exif = image.inputStream().use { ExifInterface(it) }
+        return BitmapImage(exif) { options -> BitmapFactory.decodeByteArray(image, 0, image.size, options) }
+    }
+
+    override fun open(image: File): ImageCodec.Image {
+        val exif = ExifInterface(image.absolutePath)
+        return BitmapImage(exif) { options -> BitmapFactory.decodeFile(image.absolutePath, options) }
+    }
+
+    /**
+     * [ExifInterface] can only save the attributes of a file, so the image goes through a temporary file
+     */
+    override fun withOrientationTag(jpeg: ByteArray, orientationTag: Int): ByteArray {
+        val file = File.createTempFile("nyris", ".jpg")
+        try {
+            file.writeBytes(jpeg)
+            ExifInterface(file.absolutePath).apply {
+                setAttribute(ExifInterface.TAG_ORIENTATION, orientationTag.toString())
+                saveAttributes()
+            }
+            return file.readBytes()
+        } finally {
+            file.delete()
+        }
+    }
+
+    private class BitmapImage(
+        exif: ExifInterface,
+        private val decode: (BitmapFactory.Options) -> Bitmap?
+    ) : ImageCodec.Image {
+        override val orientationTag: Int =
+            exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED)
+        override val rotationDegrees: Int = exif.rotationDegrees
+        override val width: Int
+        override val height: Int
+
+        init {
+            val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+            decode(bounds)
+            width = max(bounds.outWidth, 0)
+            height = max(bounds.outHeight, 0)
+        }
+
+        override fun transcode(
+            sampleSize: Int,
+            maxEdgeLength: Int,
+            rotationDegrees: Int,
+            jpegQuality: Int
+        ): ByteArray? {
+            val sampled = decode(BitmapFactory.Options().apply { inSampleSize = sampleSize }) ?: return null
+            val scale = maxEdgeLength.toFloat() / max(sampled.width, sampled.height)
+            val matrix = Matrix().apply {
+                if (scale < 1F) {
+                    postScale(scale, scale)
+                }
+                postRotate(rotationDegrees.toFloat())
+            }
+            val transformed = Bitmap.createBitmap(sampled, 0, 0, sampled.width, sampled.height, matrix, true)
+            val output = ByteArrayOutputStream()
+            transformed.compress(Bitmap.CompressFormat.JPEG, jpegQuality, output)
+            if (transformed !== sampled) {
+                transformed.recycle()
+            }
+            sampled.recycle()
+            return output.toByteArray()
+        }
+    }
+}
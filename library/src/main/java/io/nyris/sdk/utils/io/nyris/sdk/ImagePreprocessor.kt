@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import androidx.exifinterface.media.ExifInterface
+import java.io.File
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.max
+
+/**
+ * ImagePreprocessor.kt - class that downscales, rotates and re-encodes images before they are uploaded.
+ * The image is decoded with subsampling, so a large capture is never fully decoded into memory.
+ *
+ * @param config the nyris config
+ * @param codec the codec that decodes and encodes the images
+ *
+ * @see ImagePreprocessingConfig
+ */
+@Singleton
+internal class ImagePreprocessor(config: NyrisConfig, private val codec: ImageCodec) {
+    private val config: ImagePreprocessingConfig? = config.imagePreprocessing
+
+    @Inject
+    constructor(config: NyrisConfig) : this(config, AndroidImageCodec)
+
+    /**
+     * Is the preprocessing stage enabled
+     */
+    val isEnabled: Boolean
+        get() = config != null
+
+    /**
+     * Process image byte array
+     *
+     * @param image the image byte array
+     * @return the preprocessed image, or the same array when it doesn't need to be changed
+     */
+    fun process(image: ByteArray): ByteArray {
+        val config = config ?: return image
+        return process(config, codec.open(image), image.size.toLong()) ?: image
+    }
+
+    /**
+     * Process image file
+     *
+     * @param image the image file
+     * @return the preprocessed image, or null when the file can be uploaded as it is
+     */
+    fun process(image: File): ByteArray? {
+        val config = config ?: return null
+        return process(config, codec.open(image), image.length())
+    }
+
+    private fun process(config: ImagePreprocessingConfig, image: ImageCodec.Image, originalSize: Long): ByteArray? {
+        val orientation = if (config.applyExifOrientation) image.rotationDegrees else 0
+        val processed = transcode(config, image, orientation)
+        return report(config, originalSize, processed, orientation != 0)
+    }
+
+    private fun transcode(config: ImagePreprocessingConfig, image: ImageCodec.Image, orientation: Int): ByteArray? {
+        val longestEdge = max(image.width, image.height)
+        // Not a decodable image or nothing to change, upload it as it is
+        if (longestEdge <= 0 || (longestEdge <= config.maxEdgeLength && orientation == 0)) {
+            return null
+        }
+
+        val sampleSize = sampleSize(longestEdge, config.maxEdgeLength)
+        val jpeg = image.transcode(sampleSize, config.maxEdgeLength, orientation, config.jpegQuality) ?: return null
+        val orientationTag = orientationTag(config, image)
+        return if (orientationTag == ExifInterface.ORIENTATION_UNDEFINED) {
+            jpeg
+        } else {
+            codec.withOrientationTag(jpeg, orientationTag)
+        }
+    }
+
+    /**
+     * The EXIF orientation tag to keep in the re-encoded image. The tag is dropped when the
+     * pixels are rotated, otherwise it is copied so the server still sees the capture orientation.
+     */
+    private fun orientationTag(config: ImagePreprocessingConfig, image: ImageCodec.Image): Int =
+        if (config.applyExifOrientation) {
+            ExifInterface.ORIENTATION_UNDEFINED
+        } else {
+            image.orientationTag
+        }
+
+    /**
+     * Report the preprocessed image size to the listener
+     *
+     * @return the processed image, or null when it is not smaller than the original image and
+     * was not rotated
+     */
+    private fun report(
+        config: ImagePreprocessingConfig,
+        originalSize: Long,
+        processed: ByteArray?,
+        rotated: Boolean
+    ): ByteArray? {
+        // Re-encoding may grow an already compressed image, keep the original then
+        val result = processed?.takeIf { rotated || it.size < originalSize }
+        config.listener?.onImagePreprocessed(originalSize, result?.size?.toLong() ?: originalSize)
+        return result
+    }
+
+    /**
+     * Largest power of two sample size that keeps the longest edge above the maximum length,
+     * the remaining downscale is done by the matrix.
+     */
+    private fun sampleSize(longestEdge: Int, maxEdgeLength: Int): Int {
+        var sampleSize = 1
+        while (longestEdge / (sampleSize * 2) >= maxEdgeLength) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import com.google.gson.JsonSyntaxException
+import com.google.gson.stream.JsonReader
+import java.io.ByteArrayInputStream
+import java.io.InputStreamReader
+
+/**
+ * JsonByteScanner.kt - class that walks the structure of UTF-8 encoded JSON bytes without decoding the
+ * values, to find the byte offsets of the values. The structural characters are ASCII, so multi-byte
+ * characters never need to be decoded.
+ *
+ * @param bytes the UTF-8 encoded JSON
+ */
+internal class JsonByteScanner(private val bytes: ByteArray) {
+    /**
+     * The offset of the next byte to scan
+     */
+    var position: Int = 0
+        private set
+
+    /**
+     * Consume the expected structural character, after the whitespaces
+     *
+     * @param char the expected character
+     */
+    fun consume(char: Char) {
+        skipWhitespaces()
+        if (position >= bytes.size || bytes[position] != char.code.toByte()) {
+            throw syntaxError("Expected '$char'")
+        }
+        position++
+    }
+
+    /**
+     * Consume the character if it is the next one after the whitespaces
+     *
+     * @param char the character
+     * @return true if the character was consumed
+     */
+    fun consumeIf(char: Char): Boolean {
+        skipWhitespaces()
+        if (position < bytes.size && bytes[position] == char.code.toByte()) {
+            position++
+            return true
+        }
+        return false
+    }
+
+    /**
+     * Peek the next character after the whitespaces
+     *
+     * @return the next character
+     */
+    fun peek(): Char {
+        skipWhitespaces()
+        if (position >= bytes.size) {
+            throw syntaxError("Unexpected end of input")
+        }
+        return bytes[position].toInt().toChar()
+    }
+
+    /**
+     * Read an object member name
+     *
+     * @return the decoded name
+     */
+    fun nextName(): String {
+        skipWhitespaces()
+        val start = position
+        skipString()
+        val name = String(bytes, start + 1, position - start - 2, Charsets.UTF_8)
+        // Escaped names are rare, let the JSON reader decode them
+        return if (name.indexOf('\\') < 0) name else reader(start, position).nextString()
+    }
+
+    /**
+     * Skip the next value of any type
+     *
+     * @return the range of the skipped value, end excluded
+     */
+    fun skipValue(): IntRange {
+        skipWhitespaces()
+        val start = position
+        if (position >= bytes.size) {
+            throw syntaxError("Expected a value")
+        }
+        when (bytes[position].toInt().toChar()) {
+            '"' -> skipString()
+            '{', '[' -> skipContainer()
+            else -> skipLiteral()
+        }
+        return start until position
+    }
+
+    /**
+     * Create a JSON reader of a range of bytes
+     *
+     * @param start the offset of the first byte
+     * @param end the offset after the last byte
+     * @return the JSON reader
+     */
+    fun reader(start: Int, end: Int): JsonReader {
+        return JsonReader(InputStreamReader(ByteArrayInputStream(bytes, start, end - start), Charsets.UTF_8))
+    }
+
+    private fun skipWhitespaces() {
+        while (position < bytes.size) {
+            when (bytes[position].toInt().toChar()) {
+                ' ', '\n', '\r', '\t' -> position++
+                else -> return
+            }
+        }
+    }
+
+    private fun skipString() {
+        if (position >= bytes.size || bytes[position] != QUOTE) {
+            throw syntaxError("Expected a string")
+        }
+        position++
+        while (position < bytes.size) {
+            when (bytes[position]) {
+                BACKSLASH -> position += 2
+                QUOTE -> {
+                    position++
+                    return
+                }
+                else -> position++
+            }
+        }
+        throw syntaxError("Unterminated string")
+    }
+
+    private fun skipContainer() {
+        var depth = 0
+        while (position < bytes.size) {
+            when (bytes[position].toInt().toChar()) {
+                '"' -> {
+                    skipString()
+                    continue
+                }
+                '{', '[' -> depth++
+                '}', ']' -> depth--
+            }
+            position++
+            if (depth == 0) {
+                return
+            }
+        }
+        throw syntaxError("Unterminated container")
+    }
+
+    private fun skipLiteral() {
+        val start = position
+        while (position < bytes.size) {
+            when (bytes[position].toInt().toChar()) {
+                ',', '}', ']', ' ', '\n', '\r', '\t' -> break
+                else -> position++
+            }
+        }
+        if (position == start) {
+            throw syntaxError("Expected a value")
+        }
+    }
+
+    private fun syntaxError(message: String): JsonSyntaxException {
+        return JsonSyntaxException("$message at byte $position")
+    }
+
+    private companion object {
+        const val QUOTE = '"'.code.toByte()
+        const val BACKSLASH = '\\'.code.toByte()
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import kotlin.math.ceil
+
+/**
+ * LatencyTracker.kt - thread safe window of the most recent latencies.
+ *
+ * @param capacity the number of latencies kept in the window
+ */
+internal class LatencyTracker(private val capacity: Int) {
+    private val samples = LongArray(capacity)
+    private var count = 0
+    private var next = 0
+
+    /**
+     * Record a latency, the oldest one is dropped when the window is full
+     *
+     * @param latencyMillis the latency in milliseconds
+     */
+    @Synchronized
+    fun record(latencyMillis: Long) {
+        samples[next] = latencyMillis
+        next = (next + 1) % capacity
+        if (count < capacity) {
+            count++
+        }
+    }
+
+    /**
+     * Get a percentile of the recorded latencies
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @param minSamples the number of latencies needed to compute it
+     * @return the latency in milliseconds, null when fewer latencies are recorded
+     */
+    @Synchronized
+    fun percentile(percentile: Double, minSamples: Int): Long? {
+        if (count == 0 || count < minSamples) {
+            return null
+        }
+        val sorted = samples.copyOf(count).apply { sort() }
+        val index = (ceil(percentile * count).toInt() - 1).coerceIn(0, count - 1)
+        return sorted[index]
+    }
+}
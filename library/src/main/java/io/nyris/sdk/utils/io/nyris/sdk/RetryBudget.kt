@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * RetryBudget.kt - thread safe token bucket that caps the retries to a fraction of the requests.
+ * Each request deposits a fraction of a token and each retry withdraws a whole token, the bucket starts
+ * full so a short burst of failures can still be retried.
+ *
+ * @param ratio the tokens deposited by each request
+ * @param maxTokens the capacity of the bucket
+ */
+internal class RetryBudget(
+    private val ratio: Double,
+    private val maxTokens: Int
+) {
+    private var tokens: Double = maxTokens.toDouble()
+
+    /**
+     * Deposit the tokens of a request
+     */
+    @Synchronized
+    fun onRequest() {
+        tokens = (tokens + ratio).coerceAtMost(maxTokens.toDouble())
+    }
+
+    /**
+     * Withdraw the token of a retry
+     *
+     * @return true when the retry is allowed
+     */
+    @Synchronized
+    fun tryRetry(): Boolean {
+        if (tokens < 1.0) {
+            return false
+        }
+        tokens -= 1.0
+        return true
+    }
+}
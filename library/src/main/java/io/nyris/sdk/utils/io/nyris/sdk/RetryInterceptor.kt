@@ -1,30 +1,129 @@
 package io.nyris.sdk
 
+import okhttp3.Call
 import okhttp3.Interceptor
 import okhttp3.Response
 import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.Date
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * RetryInterceptor.kt - interceptor that retries the IO errors and the retryable http statuses.
+ * The retries wait an exponential backoff with full jitter, or the Retry-After delay of the response,
+ * and are allowed only while the retry budget has tokens.
+ *
+ * @param retryCount the maximum number of attempts, the first one included
+ * @param policy the retry policy
+ * @param budget the retry budget
+ * @param random the random source of the jitter
+ * @param sleep the function that waits the given milliseconds unless the call is cancelled
+ *
+ * @see RetryPolicyConfig
+ */
+class RetryInterceptor internal constructor(
+    private val retryCount: Int,
+    private val policy: RetryPolicyConfig,
+    private val budget: RetryBudget,
+    private val random: Random = Random.Default,
+    private val sleep: (Long, Call) -> Unit = ::sleepUnlessCanceled
+) : Interceptor {
+    constructor(retryCount: Int) : this(
+        retryCount,
+        RetryPolicyConfig(),
+        RetryBudget(RetryPolicyConfig.RETRY_BUDGET_RATIO, RetryPolicyConfig.RETRY_BUDGET_MAX_TOKENS)
+    )
 
-class RetryInterceptor(private val retryCount: Int) : Interceptor {
     override fun intercept(chain: Interceptor.Chain): Response {
         val request = chain.request()
-        var response: Response? = null
-        var exception: IOException? = null
-        var tryCount = 0
-        // retry the request
-        while (tryCount < retryCount && (response == null || !response.isSuccessful)) {
-            try {
-                response = chain.proceed(request)
+        // one-shot bodies (streamed images) can't be written twice
+        if (request.body?.isOneShot() == true) {
+            return chain.proceed(request)
+        }
+        budget.onRequest()
+        var attempt = 0
+        while (true) {
+            attempt++
+            val response = try {
+                chain.proceed(request)
             } catch (e: IOException) {
-                exception = e
-            } finally {
-                tryCount++
+                if (!canRetry(chain, attempt)) {
+                    throw e
+                }
+                waitFor(backoffMillis(attempt), chain.call())
+                continue
+            }
+            if (response.isSuccessful || response.code !in policy.retryableStatusCodes) {
+                return response
             }
+            val retryAfter = retryAfterMillis(response)
+            if ((retryAfter != null && retryAfter > policy.maxRetryAfterMillis) || !canRetry(chain, attempt)) {
+                return response
+            }
+            // release the connection before the next attempt
+            response.close()
+            waitFor(retryAfter ?: backoffMillis(attempt), chain.call())
+        }
+    }
+
+    private fun canRetry(chain: Interceptor.Chain, attempt: Int): Boolean {
+        return attempt < retryCount && !chain.call().isCanceled() && budget.tryRetry()
+    }
+
+    /**
+     * Full jitter, a random delay up to the exponential backoff of the attempt
+     */
+    private fun backoffMillis(attempt: Int): Long {
+        var bound = policy.initialBackoffMillis.toDouble()
+        repeat(attempt - 1) {
+            bound *= policy.backoffMultiplier
+        }
+        val cap = min(bound, policy.maxBackoffMillis.toDouble()).toLong()
+        return if (cap > 0) random.nextLong(cap + 1) else 0L
+    }
+
+    /**
+     * Parse the Retry-After header, as a number of seconds or as an http date
+     *
+     * @return the delay in milliseconds, null when the header is absent or invalid
+     */
+    private fun retryAfterMillis(response: Response): Long? {
+        val value = response.header("Retry-After") ?: return null
+        // Clamped before the conversion, a huge delay can't overflow and is refused as too long
+        value.trim().toLongOrNull()?.let { return it.coerceIn(0L, Long.MAX_VALUE / 1000) * 1000 }
+        val date: Date = response.headers.getDate("Retry-After") ?: return null
+        return (date.time - System.currentTimeMillis()).coerceAtLeast(0L)
+    }
+
+    private fun waitFor(delay: Long, call: Call) {
+        if (delay <= 0) {
+            return
+        }
+        try {
+            sleep(delay, call)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw InterruptedIOException("Retry interrupted")
         }
-        // throw last exception
-        if (response == null && exception != null) {
-            throw exception
+        if (call.isCanceled()) {
+            throw IOException("Canceled")
+        }
+    }
+
+    private companion object {
+        const val SLEEP_SLICE_MILLIS = 50L
+
+        /**
+         * Sleep in slices, so a call cancelled by its deadline stops waiting for its retry
+         */
+        fun sleepUnlessCanceled(delay: Long, call: Call) {
+            var remaining = delay
+            while (remaining > 0 && !call.isCanceled()) {
+                val slice = min(remaining, SLEEP_SLICE_MILLIS)
+                Thread.sleep(slice)
+                remaining -= slice
+            }
         }
-        // otherwise just pass the original response on
-        return response!!
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import com.google.gson.Gson
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.lang.reflect.Proxy
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * SdkWarmer.kt - class that prepares the sdk before the first request, so the first match only pays
+ * for its upload.
+ * The host is resolved and a connection is opened and kept in the pool of the http client, while the
+ * response decoders and the retrofit service methods are loaded.
+ *
+ * @see IApiHelper.warmUp
+ */
+@Singleton
+internal class SdkWarmer(
+    private val gson: Gson,
+    private val okHttpClient: OkHttpClient,
+    private val httpUrl: HttpUrl,
+    private val services: List<Any>,
+    private val ioScheduler: Scheduler,
+    private val computationScheduler: Scheduler
+) {
+    @Inject
+    constructor(
+        gson: Gson,
+        okHttpClient: OkHttpClient,
+        httpUrl: HttpUrl,
+        imageMatchingService: ImageMatchingService,
+        regionsService: RegionsService,
+        notFoundMatchingService: NotFoundMatchingService,
+        textSearchService: TextSearchService,
+        similarityService: SimilarityService,
+        feedbackService: FeedbackService
+    ) : this(
+        gson,
+        okHttpClient,
+        httpUrl,
+        listOf(
+            imageMatchingService,
+            regionsService,
+            notFoundMatchingService,
+            textSearchService,
+            similarityService,
+            feedbackService
+        ),
+        Schedulers.io(),
+        Schedulers.computation()
+    )
+
+    /**
+     * Warm Up
+     * The connection is opened on the io scheduler while the decoders and the service methods are
+     * loaded on the computation scheduler. A connection failure is ignored, the first request connects
+     * then.
+     *
+     * @return the completable
+     */
+    fun warmUp(): Completable {
+        val decoders = Completable
+            .fromAction {
+                ModelTypeAdapterFactory.warmUp(gson)
+                services.forEach { loadServiceMethods(it) }
+            }
+            .subscribeOn(computationScheduler)
+        val connection = Completable
+            .fromAction { connect() }
+            .onErrorComplete()
+            .subscribeOn(ioScheduler)
+        return Completable.mergeArray(decoders, connection)
+    }
+
+    /**
+     * Resolve the host and open a connection with a HEAD request, the connection stays in the pool
+     * once the response is closed. Any response status keeps the connection.
+     * The request is sent without the application interceptors, so it is not retried and is not counted
+     * by the circuit breaker and the concurrency limit. The derived client shares the connection pool.
+     */
+    private fun connect() {
+        okHttpClient.dns.lookup(httpUrl.host)
+        val request = Request.Builder()
+            .url(httpUrl)
+            .head()
+            .build()
+        val client = okHttpClient.newBuilder()
+            .apply { interceptors().clear() }
+            .build()
+        client.newCall(request).execute().close()
+    }
+
+    /**
+     * Call each method of the service proxy, so retrofit parses and caches its annotations and converters.
+     * The returned singles are never subscribed, no request is sent.
+     */
+    private fun loadServiceMethods(service: Any) {
+        if (!Proxy.isProxyClass(service.javaClass)) {
+            return
+        }
+        service.javaClass.interfaces.flatMap { it.declaredMethods.asList() }.forEach { method ->
+            method.invoke(service, *arrayOfNulls<Any>(method.parameterTypes.size))
+        }
+    }
+}
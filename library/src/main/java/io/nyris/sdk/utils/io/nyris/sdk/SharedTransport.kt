@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.Cache
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.OkHttpClient
+import java.io.File
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.WeakHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * SharedTransport.kt - process wide transport shared by all the nyris instances.
+ * Each instance derives its client from one base client with newBuilder(), so the instances share the
+ * connection pool, the dispatcher threads of the request pools and the TLS sessions, and only add their own
+ * interceptors.
+ *
+ * @see NyrisConfig.okHttpClient
+ */
+internal object SharedTransport {
+    private val calls = AtomicLong()
+    private val connections = AtomicLong()
+    private val tlsHandshakes = AtomicLong()
+    private val acquiredConnections = AtomicLong()
+    private val caches = HashMap<String, Cache>()
+    private val requestPools = WeakHashMap<OkHttpClient, BulkheadCallFactory.RequestPools>()
+    private var retryBudget: RetryBudget? = null
+
+    /**
+     * The base client of the instances without their own client
+     */
+    val client: OkHttpClient by lazy {
+        OkHttpClient.Builder()
+            .eventListenerFactory { ConnectionStatsListener }
+            .build()
+    }
+
+    /**
+     * Get the base client of an instance
+     *
+     * @param config the nyris config
+     * @return the client of the config, or the shared client
+     */
+    fun baseClient(config: NyrisConfig): OkHttpClient = config.okHttpClient ?: client
+
+    /**
+     * Get the http cache of a directory
+     * OkHttp caches can't share a directory, so the instances with the same directory share one cache.
+     *
+     * @param directory the cache directory
+     * @param maxSize the maximum size in bytes, the first instance sets it
+     * @return the http cache
+     */
+    @Synchronized
+    fun cache(directory: File, maxSize: Long): Cache {
+        val key = directory.canonicalPath
+        return caches[key] ?: Cache(directory, maxSize).also { caches[key] = it }
+    }
+
+    /**
+     * Get the request pools of a base client
+     * The instances with the same base client share the interactive and the background dispatchers, and the
+     * connection pool of the hedged requests.
+     *
+     * @param client the base client
+     * @param config the bulkhead config, the first instance sets the limits
+     * @return the request pools
+     */
+    @Synchronized
+    fun requestPools(client: OkHttpClient, config: BulkheadConfig): BulkheadCallFactory.RequestPools {
+        return requestPools.getOrPut(client) { BulkheadCallFactory.RequestPools(config) }
+    }
+
+    /**
+     * Get the retry budget shared by the instances
+     *
+     * @param policy the retry policy, the first instance sets the budget ratio and capacity
+     * @return the retry budget
+     */
+    @Synchronized
+    fun retryBudget(policy: RetryPolicyConfig): RetryBudget {
+        return retryBudget ?: RetryBudget(policy.retryBudgetRatio, policy.retryBudgetMaxTokens).also {
+            retryBudget = it
+        }
+    }
+
+    /**
+     * Get the connection counters of the shared client
+     *
+     * @return the connection stats
+     */
+    fun stats(): ConnectionStats {
+        val acquired = acquiredConnections.get()
+        val connected = connections.get()
+        return ConnectionStats(
+            callCount = calls.get(),
+            connectionCount = connected,
+            reusedConnectionCount = (acquired - connected).coerceAtLeast(0),
+            tlsHandshakeCount = tlsHandshakes.get()
+        )
+    }
+
+    /**
+     * Count the calls and the connections, a connection acquired without being connected first was reused
+     * from the pool
+     */
+    private object ConnectionStatsListener : EventListener() {
+        override fun callStart(call: Call) {
+            calls.incrementAndGet()
+        }
+
+        override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+            connections.incrementAndGet()
+        }
+
+        override fun secureConnectStart(call: Call) {
+            tlsHandshakes.incrementAndGet()
+        }
+
+        override fun connectionAcquired(call: Call, connection: Connection) {
+            acquiredConnections.incrementAndGet()
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.SingleEmitter
+import io.reactivex.SingleObserver
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import okio.ByteString.Companion.toByteString
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * SingleFlight.kt - class that shares one request between the concurrent identical calls.
+ * The first subscriber starts the request, the next subscribers with the same key join it and get
+ * the same parsed result. The request is cancelled only when the last subscriber disposes.
+ *
+ * @param isEnabled false to execute every call on its own
+ * @param scheduler the scheduler that computes the request key
+ *
+ * @see NyrisConfig.deduplicateRequests
+ */
+@Singleton
+internal class SingleFlight(
+    private val isEnabled: Boolean,
+    private val scheduler: Scheduler
+) {
+    private val inFlight = ConcurrentHashMap<String, Flight<*>>()
+
+    @Inject
+    constructor(config: NyrisConfig) : this(config.deduplicateRequests, Schedulers.io())
+
+    /**
+     * Execute the source or join the in flight source with the same key
+     *
+     * @param key the function that computes the request key, called on subscription on the io scheduler
+     * @param source the single request
+     * @return the shared single
+     */
+    fun <T : Any> execute(key: () -> String, source: Single<T>): Single<T> {
+        if (!isEnabled) {
+            return source
+        }
+        return Single
+            .create<T> { emitter ->
+                val requestKey = key()
+                // A finished flight can still be found until it's removed, start a new one then
+                do {
+                    val flight = Flight(requestKey, source)
+                    @Suppress("UNCHECKED_CAST")
+                    val current = (inFlight.putIfAbsent(requestKey, flight) ?: flight) as Flight<T>
+                } while (!current.join(emitter))
+            }
+            .subscribeOn(scheduler)
+    }
+
+    /**
+     * One in flight request and its subscribers. Joining, leaving and finishing are atomic, so a
+     * subscriber either joins before the result is emitted or starts a new flight.
+     */
+    private inner class Flight<T : Any>(
+        private val key: String,
+        private val source: Single<T>
+    ) : SingleObserver<T> {
+        private val emitters = ArrayList<SingleEmitter<T>>()
+        private var upstream: Disposable? = null
+        private var isStarted = false
+        private var isFinished = false
+
+        /**
+         * Join the flight, the first subscriber starts the request
+         *
+         * @return false when the flight is already finished
+         */
+        fun join(emitter: SingleEmitter<T>): Boolean {
+            val start = synchronized(this) {
+                if (isFinished) {
+                    return false
+                }
+                emitters.add(emitter)
+                !isStarted.also { isStarted = true }
+            }
+            emitter.setCancellable { leave(emitter) }
+            if (start) {
+                source.subscribe(this)
+            }
+            return true
+        }
+
+        private fun leave(emitter: SingleEmitter<T>) {
+            val upstream = synchronized(this) {
+                if (!emitters.remove(emitter) || emitters.isNotEmpty() || isFinished) {
+                    return
+                }
+                isFinished = true
+                inFlight.remove(key, this)
+                upstream
+            }
+            // Null when the source is not subscribed yet, it's disposed in onSubscribe
+            upstream?.dispose()
+        }
+
+        override fun onSubscribe(d: Disposable) {
+            val isCancelled = synchronized(this) {
+                upstream = d
+                isFinished
+            }
+            if (isCancelled) {
+                d.dispose()
+            }
+        }
+
+        override fun onSuccess(value: T) {
+            finish().forEach { it.onSuccess(value) }
+        }
+
+        override fun onError(e: Throwable) {
+            finish().forEach { it.tryOnError(e) }
+        }
+
+        /**
+         * Remove the flight before the result is emitted, so a later call starts a new request
+         */
+        private fun finish(): List<SingleEmitter<T>> = synchronized(this) {
+            isFinished = true
+            inFlight.remove(key, this)
+            ArrayList(emitters).also { emitters.clear() }
+        }
+    }
+
+    internal companion object {
+        /**
+         * Hash the endpoint, the headers and the request parts into a request key
+         * The Content-Length header is derived from the body and is left out.
+         *
+         * @param endpoint the endpoint name
+         * @param headers the request headers
+         * @param parts the body parts and options, byte and float arrays are hashed by content
+         * @return the request key
+         */
+        @JvmStatic
+        fun key(endpoint: String, headers: Map<String, String>, vararg parts: Any?): String {
+            val digest = MessageDigest.getInstance("MD5")
+            digest.update(endpoint.toByteArray())
+            headers.entries
+                .filter { it.key != "Content-Length" }
+                .sortedBy { it.key }
+                .forEach { digest.update("\n${it.key}:${it.value}".toByteArray()) }
+            parts.forEach { part ->
+                digest.update(PART_SEPARATOR)
+                when (part) {
+                    is ByteArray -> digest.update(part)
+                    is FloatArray -> digest.update(part)
+                    else -> digest.update(part.toString().toByteArray())
+                }
+            }
+            return digest.digest().toByteString().hex()
+        }
+
+        private fun MessageDigest.update(vector: FloatArray) {
+            val bytes = ByteArray(4)
+            vector.forEach { value ->
+                val bits = java.lang.Float.floatToRawIntBits(value)
+                bytes[0] = bits.toByte()
+                bytes[1] = (bits ushr 8).toByte()
+                bytes[2] = (bits ushr 16).toByte()
+                bytes[3] = (bits ushr 24).toByte()
+                update(bytes)
+            }
+        }
+
+        private val PART_SEPARATOR = byteArrayOf(0)
+    }
+}
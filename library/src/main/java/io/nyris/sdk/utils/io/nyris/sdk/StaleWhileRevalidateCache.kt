@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * StaleWhileRevalidateCache.kt - in-memory least recently used cache of decoded responses.
+ * Fresh values are returned without a request, stale values are returned right away while a single
+ * background request per key refreshes them, and expired values are fetched again.
+ *
+ * @param maxEntries the maximum number of cached values
+ * @param maxAgeMillis the time in milliseconds a value is fresh
+ * @param staleWhileRevalidateMillis the time in milliseconds a value is served stale after it expires
+ * @param scheduler the scheduler of the background refreshes
+ * @param clock the current time in milliseconds
+ */
+internal class StaleWhileRevalidateCache<K, V : Any> @JvmOverloads constructor(
+    maxEntries: Int,
+    private val maxAgeMillis: Long,
+    private val staleWhileRevalidateMillis: Long,
+    private val scheduler: Scheduler = Schedulers.io(),
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val entries = WeightedLruCache<K, Entry<V>>(maxEntries.toLong()) { 1L }
+    private val refreshing: MutableSet<K> = Collections.newSetFromMap(ConcurrentHashMap())
+
+    /**
+     * Get the cached value of the key or fetch it
+     *
+     * @param key the cache key
+     * @param fetch the single that fetches the value
+     * @return the single value
+     */
+    fun get(key: K, fetch: Single<V>): Single<V> {
+        return Single.defer {
+            val entry = entries.get(key)
+            val age = entry?.let { clock() - it.createdAt }
+            when {
+                entry == null || age!! > maxAgeMillis + staleWhileRevalidateMillis -> fetch.doOnSuccess {
+                    put(key, it)
+                }
+                age > maxAgeMillis -> {
+                    revalidate(key, fetch)
+                    Single.just(entry.value)
+                }
+                else -> Single.just(entry.value)
+            }
+        }
+    }
+
+    /**
+     * Clear the cached values
+     */
+    fun clear() {
+        entries.clear()
+    }
+
+    private fun put(key: K, value: V) {
+        entries.put(key, Entry(value, clock()))
+    }
+
+    /**
+     * Refresh the stale value in the background, a failed refresh keeps the stale value
+     */
+    private fun revalidate(key: K, fetch: Single<V>) {
+        if (!refreshing.add(key)) {
+            return
+        }
+        fetch.subscribeOn(scheduler)
+            .doFinally { refreshing.remove(key) }
+            .subscribe({ put(key, it) }, {})
+    }
+
+    private class Entry<V>(val value: V, val createdAt: Long)
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import okio.Source
+
+/**
+ * StreamingRequestBody.kt - request body that copies an okio Source straight into the request sink.
+ * The source can be read only once, so the body is flagged as one-shot and is never replayed.
+ *
+ * @see RetryInterceptor
+ */
+internal class StreamingRequestBody(
+    private val source: Source,
+    private val contentType: MediaType?
+) : RequestBody() {
+    private var consumed = false
+
+    override fun contentType(): MediaType? = contentType
+
+    override fun contentLength(): Long = -1L
+
+    override fun isOneShot(): Boolean = true
+
+    override fun writeTo(sink: BufferedSink) {
+        check(!consumed) { "The streaming request body can be written only once." }
+        consumed = true
+        source.use { sink.writeAll(it) }
+    }
+}
+
+/**
+ * Flag a request body as one-shot.
+ * Used for container bodies such as MultipartBody that wrap a one-shot part, so interceptors
+ * don't try to read or replay it.
+ */
+internal fun RequestBody.asOneShot(): RequestBody {
+    val delegate = this
+    return object : RequestBody() {
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        override fun contentLength(): Long = delegate.contentLength()
+
+        override fun isOneShot(): Boolean = true
+
+        override fun writeTo(sink: BufferedSink) = delegate.writeTo(sink)
+    }
+}
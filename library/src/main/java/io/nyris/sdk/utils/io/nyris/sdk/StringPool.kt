@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * StringPool.kt - thread safe pool of the string values that repeat across the decoded models, so equal
+ * values share one instance.
+ * The pool is bounded, the least recently used values are evicted and are no longer shared.
+ *
+ * @param maxSize the maximum number of pooled values
+ */
+internal class StringPool(private val maxSize: Int) {
+    private val map = object : LinkedHashMap<String, String>(16, 0.75F, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, String>?): Boolean {
+            return size > maxSize
+        }
+    }
+
+    /**
+     * The number of pooled values
+     */
+    val size: Int
+        @Synchronized
+        get() = map.size
+
+    /**
+     * Get the pooled instance of the value
+     *
+     * @param value the value
+     * @return the pooled instance equal to the value, the value itself when it is added to the pool
+     */
+    @Synchronized
+    fun intern(value: String): String {
+        return map[value] ?: value.also { map[it] = it }
+    }
+
+    @Synchronized
+    fun clear() {
+        map.clear()
+    }
+}
+
+/**
+ * Intern the value when a pool is set
+ */
+internal fun StringPool?.internOrSelf(value: String?): String? {
+    return if (this == null || value == null) value else intern(value)
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.nyris.sdk
+
+import io.reactivex.Scheduler
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.BufferedSource
+import okio.ForwardingSource
+import okio.buffer
+import retrofit2.Invocation
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * TimeoutInterceptor.kt - interceptor that applies the timeouts of the called endpoint.
+ * The read and write timeouts are set on the chain. The call timeout cancels the call when it elapses,
+ * it runs until the response body is closed, so it covers the retries and the body read, and the call
+ * fails with a NyrisTimeoutException.
+ *
+ * @param timeouts the default timeouts
+ * @param endpointTimeouts the timeouts of the endpoints that override the default ones
+ * @param scheduler the scheduler of the call timeouts
+ *
+ * @see TimeoutConfig
+ */
+internal class TimeoutInterceptor @JvmOverloads constructor(
+    private val timeouts: TimeoutConfig,
+    private val endpointTimeouts: Map<ApiEndpoint, TimeoutConfig>,
+    private val scheduler: Scheduler = Schedulers.computation()
+) : Interceptor {
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val timeouts = request.tag(Invocation::class.java)
+            ?.let { ApiEndpoint.of(it.method().declaringClass) }
+            ?.let { endpointTimeouts[it] }
+            ?: timeouts
+        val timedChain = chain
+            .withReadTimeout(timeouts.readTimeoutMillis.toInt(), TimeUnit.MILLISECONDS)
+            .withWriteTimeout(timeouts.writeTimeoutMillis.toInt(), TimeUnit.MILLISECONDS)
+        val callTimeoutMillis = timeouts.callTimeoutMillis
+        if (callTimeoutMillis <= 0) {
+            return timedChain.proceed(request)
+        }
+
+        val call = chain.call()
+        val isTimedOut = AtomicBoolean()
+        val timeout = scheduler.scheduleDirect({
+            isTimedOut.set(true)
+            call.cancel()
+        }, callTimeoutMillis, TimeUnit.MILLISECONDS)
+        val response = try {
+            timedChain.proceed(request)
+        } catch (e: IOException) {
+            timeout.dispose()
+            throw if (isTimedOut.get()) NyrisTimeoutException(callTimeoutMillis, e) else e
+        }
+        val body = response.body ?: return response.also { timeout.dispose() }
+        return response.newBuilder()
+            .body(TimeoutResponseBody(body, timeout, isTimedOut, callTimeoutMillis))
+            .build()
+    }
+
+    /**
+     * Response body that stops the call timeout when it is closed or fully read, and reports the read
+     * failures caused by the call timeout as NyrisTimeoutException
+     */
+    private class TimeoutResponseBody(
+        private val body: ResponseBody,
+        private val timeout: Disposable,
+        private val isTimedOut: AtomicBoolean,
+        private val callTimeoutMillis: Long
+    ) : ResponseBody() {
+        private val source: BufferedSource by lazy {
+            object : ForwardingSource(body.source()) {
+                override fun read(sink: Buffer, byteCount: Long): Long {
+                    val read = try {
+                        super.read(sink, byteCount)
+                    } catch (e: IOException) {
+                        throw if (isTimedOut.get()) NyrisTimeoutException(callTimeoutMillis, e) else e
+                    }
+                    if (read == -1L) {
+                        timeout.dispose()
+                    }
+                    return read
+                }
+
+                override fun close() {
+                    timeout.dispose()
+                    super.close()
+                }
+            }.buffer()
+        }
+
+        override fun contentType(): MediaType? = body.contentType()
+
+        override fun contentLength(): Long = body.contentLength()
+
+        override fun source(): BufferedSource = source
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2018 nyris GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nyris.sdk
+
+/**
+ * WeightedLruCache.kt - thread safe least recently used cache bounded by the total weight of its values.
+ *
+ * @param maxWeight the maximum total weight of the values
+ * @param weigher the function that returns the weight of a value
+ */
+internal class WeightedLruCache<K, V>(
+    private val maxWeight: Long,
+    private val weigher: (V) -> Long
+) {
+    private val map = LinkedHashMap<K, V>(16, 0.75F, true)
+
+    /**
+     * The total weight of the cached values
+     */
+    @get:Synchronized
+    var weight: Long = 0L
+        private set
+
+    @Synchronized
+    fun get(key: K): V? = map[key]
+
+    @Synchronized
+    fun put(key: K, value: V) {
+        map.put(key, value)?.let { weight -= weigher(it) }
+        weight += weigher(value)
+        trim()
+    }
+
+    @Synchronized
+    fun remove(key: K): V? = map.remove(key)?.also { weight -= weigher(it) }
+
+    @Synchronized
+    fun clear() {
+        map.clear()
+        weight = 0L
+    }
+
+    /**
+     * Evict the least recently used values until the total weight fits, a value heavier than
+     * the maximum weight is evicted right away
+     */
+    private fun trim() {
+        val iterator = map.values.iterator()
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= weigher(iterator.next())
+            iterator.remove()
+        }
+    }
+}
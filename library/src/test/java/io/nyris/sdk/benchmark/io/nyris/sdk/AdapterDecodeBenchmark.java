@@ -0,0 +1,84 @@
+package io.nyris.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+/**
+ * AdapterDecodeBenchmark.java - Benchmark of the offer response decoded with the type adapters of the sdk against
+ * the reflective type adapter of Gson.
+ * Measure the cold decode, the first decode of a new Gson instance with and without its warm up, and the warm
+ * decode time and allocations per response of 200 offers. The classes are loaded once by the JVM, so the cold
+ * numbers measure the creation of the adapters and the first parse. Run its main method, it is not a unit test.
+ */
+public class AdapterDecodeBenchmark {
+    private static final int OFFERS = 200;
+    private static final int DECODES = 200;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        String json = OfferPayloads.offerResponse(OFFERS);
+        // The JSON reader and the models are loaded before the first measure
+        new Gson().fromJson("{\"id\":\"\"}", JsonObject.class);
+        new Offer();
+        for (int round = 0; round < ROUNDS; round++) {
+            cold(json);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            warm(json);
+        }
+    }
+
+    private static void cold(String json) {
+        long reflectiveStart = System.nanoTime();
+        new Gson().fromJson(json, OfferResponse.class);
+        long generatedStart = System.nanoTime();
+        sdkGson().fromJson(json, OfferResponse.class);
+        long warmUpStart = System.nanoTime();
+        Gson warmedUp = sdkGson();
+        ModelTypeAdapterFactory.warmUp(warmedUp);
+        long warmedUpStart = System.nanoTime();
+        warmedUp.fromJson(json, OfferResponse.class);
+        long end = System.nanoTime();
+
+        System.out.printf(
+                "cold : reflective %d us, generated %d us, warm up %d us then %d us%n",
+                (generatedStart - reflectiveStart) / 1000,
+                (warmUpStart - generatedStart) / 1000,
+                (warmedUpStart - warmUpStart) / 1000,
+                (end - warmedUpStart) / 1000
+        );
+    }
+
+    private static void warm(String json) {
+        Gson reflective = new Gson();
+        Gson generated = sdkGson();
+        reflective.fromJson(json, OfferResponse.class);
+        generated.fromJson(json, OfferResponse.class);
+
+        long reflectiveBytes = HeapMeasures.allocatedBytes();
+        long reflectiveStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            reflective.fromJson(json, OfferResponse.class);
+        }
+        long generatedBytes = HeapMeasures.allocatedBytes();
+        long generatedStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            generated.fromJson(json, OfferResponse.class);
+        }
+        long end = System.nanoTime();
+        long endBytes = HeapMeasures.allocatedBytes();
+
+        System.out.printf(
+                "warm : reflective %d KB %d us per decode, generated %d KB %d us per decode%n",
+                (generatedBytes - reflectiveBytes) / DECODES / 1024,
+                (generatedStart - reflectiveStart) / DECODES / 1000,
+                (endBytes - generatedBytes) / DECODES / 1024,
+                (end - generatedStart) / DECODES / 1000
+        );
+    }
+
+    private static Gson sdkGson() {
+        return new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory()).create();
+    }
+}
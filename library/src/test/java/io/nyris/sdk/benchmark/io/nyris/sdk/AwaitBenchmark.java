@@ -0,0 +1,199 @@
+package io.nyris.sdk;
+
+import com.google.gson.Gson;
+
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+
+import io.reactivex.Single;
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+import kotlinx.coroutines.CoroutineStart;
+import kotlinx.coroutines.Dispatchers;
+import kotlinx.coroutines.GlobalScope;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+/**
+ * AwaitBenchmark.java - Benchmark of the suspend extensions against the Rx path.
+ * Measure the allocations and the time per call of the Rx call adapter and of the enqueued call awaited in a
+ * coroutine, and the latency of a match against a local server. Run its main method, it is not a unit test.
+ */
+public class AwaitBenchmark {
+    private static final int ADAPTER_CALLS = 200_000;
+    private static final int MATCH_CALLS = 200;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            adapterOverhead();
+        }
+        MockWebServer server = new MockWebServer();
+        for (int i = 0; i < 2 * MATCH_CALLS * ROUNDS; i++) {
+            server.enqueue(new MockResponse().setBody("{\"results\":[]}"));
+        }
+        server.start();
+        try {
+            ImageMatchingApi api = imageMatchingApi(server);
+            for (int round = 0; round < ROUNDS; round++) {
+                matchLatency(api);
+            }
+        } finally {
+            server.shutdown();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Cost of the Rx call adapter and of the awaited call, the calls respond when they are enqueued
+     */
+    @SuppressWarnings("unchecked")
+    private static void adapterOverhead() throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Type singleType = ImageMatchingService.class
+                .getMethod("match", java.util.Map.class, RequestBody.class)
+                .getGenericReturnType();
+        CallAdapter<ResponseBody, Single<ResponseBody>> rxAdapter =
+                (CallAdapter<ResponseBody, Single<ResponseBody>>) RxJava2CallAdapterFactory.createAsync()
+                        .get(singleType, new Annotation[0], new Retrofit.Builder().baseUrl("http://localhost/").build());
+        Api api = new Api(new ApiHeader("API_KEY", "ANDROID", "SDK_ID", "GIT_SHA", "VERSION"));
+        Call<ResponseBody> call = new RespondingCall();
+
+        long rxBytes = threads.getThreadAllocatedBytes(threadId);
+        long rxStart = System.nanoTime();
+        for (int i = 0; i < ADAPTER_CALLS; i++) {
+            rxAdapter.adapt(call).map(value -> value).subscribe(value -> { }, error -> { });
+        }
+        long awaitBytes = threads.getThreadAllocatedBytes(threadId);
+        long awaitStart = System.nanoTime();
+        // The calls respond when they are enqueued, so the undispatched coroutines complete before async returns
+        for (int i = 0; i < ADAPTER_CALLS; i++) {
+            BuildersKt.async(
+                    GlobalScope.INSTANCE,
+                    Dispatchers.getUnconfined(),
+                    CoroutineStart.UNDISPATCHED,
+                    (scope, continuation) -> api.awaitCall(call.clone(), value -> value, continuation)
+            );
+        }
+        long end = System.nanoTime();
+        long endBytes = threads.getThreadAllocatedBytes(threadId);
+
+        System.out.printf(
+                "adapter : rx %d B %d ns per call, await %d B %d ns per call%n",
+                (awaitBytes - rxBytes) / ADAPTER_CALLS,
+                (awaitStart - rxStart) / ADAPTER_CALLS,
+                (endBytes - awaitBytes) / ADAPTER_CALLS,
+                (end - awaitStart) / ADAPTER_CALLS
+        );
+    }
+
+    /**
+     * Latency of a match sent to a local server
+     */
+    private static void matchLatency(ImageMatchingApi api) throws InterruptedException {
+        MatchRequest request = api.newRequest().build();
+
+        long rxStart = System.nanoTime();
+        for (int i = 0; i < MATCH_CALLS; i++) {
+            api.match(request, new byte[]{(byte) i}).blockingGet();
+        }
+        long awaitStart = System.nanoTime();
+        for (int i = 0; i < MATCH_CALLS; i++) {
+            byte[] image = new byte[]{(byte) i};
+            BuildersKt.runBlocking(
+                    EmptyCoroutineContext.INSTANCE,
+                    (scope, continuation) -> NyrisCoroutinesKt.awaitMatch(api, request, image, continuation)
+            );
+        }
+        long end = System.nanoTime();
+
+        System.out.printf(
+                "match : rx %d us per call, await %d us per call%n",
+                (awaitStart - rxStart) / MATCH_CALLS / 1000,
+                (end - awaitStart) / MATCH_CALLS / 1000
+        );
+    }
+
+    /**
+     * Call that responds on the thread that enqueues it, without any http call
+     */
+    private static final class RespondingCall implements Call<ResponseBody> {
+        private static final Response<ResponseBody> RESPONSE =
+                Response.success(ResponseBody.create(new byte[0], null));
+
+        @Override
+        public Response<ResponseBody> execute() {
+            return RESPONSE;
+        }
+
+        @Override
+        public void enqueue(Callback<ResponseBody> callback) {
+            callback.onResponse(this, RESPONSE);
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return false;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public Call<ResponseBody> clone() {
+            return new RespondingCall();
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+
+    private static ImageMatchingApi imageMatchingApi(MockWebServer server) {
+        ImageMatchingService service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.createAsync())
+                .build()
+                .create(ImageMatchingService.class);
+        NyrisConfig config = new NyrisConfig();
+        return new ImageMatchingApi(
+                service,
+                "application/offers.complete+json",
+                "en",
+                new Gson(),
+                new ApiHeader("API_KEY", "ANDROID", "SDK_ID", "GIT_SHA", "VERSION"),
+                new ImagePreprocessor(config),
+                EmbeddingEncoder.FLOAT32,
+                new MatchResultCache(config),
+                new SingleFlight(config),
+                new Hedging(config)
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package io.nyris.sdk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.Random;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * EmbeddingEncodingBenchmark.java - Benchmark of the embedding request body against the encoding of the json
+ * string it replaced.
+ * Measure the time and the allocations per written body of 512, 1024 and 2048 component embeddings. The bodies
+ * are written to a sink that discards them. The string path encodes with java.util.Base64, an intrinsic of the
+ * desktop JVMs, where android.util.Base64 of the sdk was a plain loop. Run its main method, it is not a unit test.
+ */
+public class EmbeddingEncodingBenchmark {
+    private static final int[] SIZES = {512, 1024, 2048};
+    private static final int WRITES = 20_000;
+    private static final int ROUNDS = 3;
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    public static void main(String[] args) throws IOException {
+        BufferedSink sink = Okio.buffer(Okio.blackhole());
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int size : SIZES) {
+                encode(sink, embedding(size));
+            }
+        }
+    }
+
+    private static void encode(BufferedSink sink, float[] vector) throws IOException {
+        long stringBytes = HeapMeasures.allocatedBytes();
+        long stringStart = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            stringBody(vector).writeTo(sink);
+            sink.emit();
+        }
+        long streamedBytes = HeapMeasures.allocatedBytes();
+        long streamedStart = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            new EmbeddingRequestBody(vector, EmbeddingEncoder.FLOAT32).writeTo(sink);
+            sink.emit();
+        }
+        long end = System.nanoTime();
+        long endBytes = HeapMeasures.allocatedBytes();
+
+        System.out.printf(
+                "%d components : string %d B %d ns per body, streamed %d B %d ns per body%n",
+                vector.length,
+                (streamedBytes - stringBytes) / WRITES,
+                (streamedStart - stringStart) / WRITES,
+                (endBytes - streamedBytes) / WRITES,
+                (end - streamedStart) / WRITES
+        );
+    }
+
+    /**
+     * The body before streaming, the floats are copied to a buffer, a base64 string, a json string and its bytes
+     */
+    private static RequestBody stringBody(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES * vector.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        String b64 = Base64.getEncoder().encodeToString(buffer.array());
+        String json = "{\"b64\":\"" + b64 + "\"}";
+        return RequestBody.create(json, JSON);
+    }
+
+    private static float[] embedding(int size) {
+        Random random = new Random(size);
+        float[] vector = new float[size];
+        for (int i = 0; i < size; i++) {
+            vector[i] = random.nextFloat();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,87 @@
+package io.nyris.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import io.reactivex.Single;
+
+/**
+ * FieldMaskBenchmark.java - Benchmark of the offer response decoded with a field mask against the full decode.
+ * Measure the decode time, the allocations and the retained heap per response of 100 and 1000 offers, with the
+ * mask of the id, title, images, price and score. Run its main method, it is not a unit test.
+ */
+public class FieldMaskBenchmark {
+    private static final int[] SIZES = {100, 1000};
+    private static final int DECODES = 100;
+    private static final int RETAINED = 50;
+    private static final int ROUNDS = 3;
+    private static final Set<OfferField> FIELDS = EnumSet.of(
+            OfferField.ID, OfferField.TITLE, OfferField.IMAGES, OfferField.PRICE, OfferField.SCORE
+    );
+    // Reachable from a static field until the heap is measured
+    private static OfferResponse[] responses;
+
+    public static void main(String[] args) {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory()).create();
+        Api api = new Api(new ApiHeader("API_KEY", "ANDROID", "SDK_ID", "GIT_SHA", "VERSION"));
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int size : SIZES) {
+                decode(api, gson, size);
+            }
+        }
+    }
+
+    private static void decode(Api api, Gson gson, int size) {
+        String json = OfferPayloads.offerResponse(size);
+
+        long fullBytes = HeapMeasures.allocatedBytes();
+        long fullStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            decode(api, gson, json, null);
+        }
+        long maskedBytes = HeapMeasures.allocatedBytes();
+        long maskedStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            decode(api, gson, json, FIELDS);
+        }
+        long end = System.nanoTime();
+        long endBytes = HeapMeasures.allocatedBytes();
+
+        System.out.printf(
+                "%d offers : full %d us %d KB allocated %d KB retained, masked %d us %d KB allocated %d KB retained%n",
+                size,
+                (maskedStart - fullStart) / DECODES / 1000,
+                (maskedBytes - fullBytes) / DECODES / 1024,
+                retained(api, gson, json, null) / 1024,
+                (end - maskedStart) / DECODES / 1000,
+                (endBytes - maskedBytes) / DECODES / 1024,
+                retained(api, gson, json, FIELDS) / 1024
+        );
+    }
+
+    /**
+     * Heap retained per decoded response
+     */
+    private static long retained(Api api, Gson gson, String json, Set<OfferField> fields) {
+        responses = new OfferResponse[RETAINED];
+        long before = HeapMeasures.usedHeap();
+        for (int i = 0; i < RETAINED; i++) {
+            responses[i] = decode(api, gson, json, fields);
+        }
+        long after = HeapMeasures.usedHeap();
+        responses = null;
+        return (after - before) / RETAINED;
+    }
+
+    private static OfferResponse decode(Api api, Gson gson, String json, Set<OfferField> fields) {
+        return api.convertResponseBodyBasedOnType(
+                Single.just(OfferPayloads.responseBody(json)),
+                OfferResponse.class,
+                gson,
+                fields
+        ).blockingGet();
+    }
+}
@@ -0,0 +1,57 @@
+package io.nyris.sdk;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * HeapMeasures.java - Heap measures shared by the benchmarks.
+ */
+final class HeapMeasures {
+    private HeapMeasures() {
+    }
+
+    /**
+     * Heap used after a collection
+     */
+    static long usedHeap() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Peak heap of the task above the heap used before it. Run with -XX:+UseSerialGC -XX:-UseTLAB and a young
+     * generation larger than the peak, so the usage is exact and no collection lowers the peak.
+     */
+    static long peakHeap(Runnable task) {
+        long before = usedHeap();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        task.run();
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak - before;
+    }
+
+    /**
+     * Bytes allocated by the current thread so far
+     */
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,60 @@
+package io.nyris.sdk;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * OfferPayloads.java - Payloads shared by the decode benchmarks.
+ * The offers have all their fields, with the long description and the metadata of the complete output format.
+ */
+final class OfferPayloads {
+    private static final MediaType JSON = MediaType.parse("application/offers.complete+json");
+
+    private OfferPayloads() {
+    }
+
+    /**
+     * Offer response JSON with the given number of offers
+     */
+    static String offerResponse(int offers) {
+        StringBuilder json = new StringBuilder("{\"id\":\"request-id\",\"session\":\"session-id\",")
+                .append("\"predicted_category\":{\"Tools\":0.8,\"Garden\":0.2},\"results\":[");
+        for (int i = 0; i < offers; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"oid\":\"oid-").append(i)
+                    .append("\",\"title\":\"Cordless drill ").append(i)
+                    .append("\",\"descriptionShort\":\"18V cordless drill with two batteries\"")
+                    .append(",\"descriptionLong\":\"").append(repeat("Brushless motor, two speeds, LED light. ", 12))
+                    .append("\",\"language\":\"en\",\"brand\":\"nyris\"")
+                    .append(",\"catalogNumbers\":[\"CN-").append(i).append("\",\"CN-").append(i + 1).append("\"]")
+                    .append(",\"customIds\":{\"ean\":\"400").append(i).append("\",\"mpn\":\"MPN-").append(i)
+                    .append("\"},\"keywords\":[\"drill\",\"cordless\",\"18V\",\"battery\"]")
+                    .append(",\"categories\":[\"Tools\",\"Power tools\"],\"availability\":\"in stock\"")
+                    .append(",\"feedId\":\"feed\",\"groupId\":\"group-").append(i % 10)
+                    .append("\",\"price\":\"129.99 EUR\",\"salePrice\":\"99.99 EUR\"")
+                    .append(",\"links\":{\"main\":\"https://example.com/offers/").append(i)
+                    .append("\",\"mobile\":\"https://m.example.com/offers/").append(i)
+                    .append("\"},\"images\":[\"https://img.example.com/").append(i).append(".jpg\"]")
+                    .append(",\"metadata\":\"").append(repeat("key=value;", 20))
+                    .append("\",\"sku\":\"SKU-").append(i).append("\",\"score\":0.").append(i % 10).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Response body of the JSON, read from memory
+     */
+    static ResponseBody responseBody(String json) {
+        return ResponseBody.create(json, JSON);
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package io.nyris.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import io.reactivex.Single;
+import okhttp3.ResponseBody;
+
+/**
+ * ResponseDecodeBenchmark.java - Benchmark of the offer response decoded from the streamed response body against
+ * the response body buffered to a string.
+ * Measure the peak heap and the parse time per response for 20, 200 and 2000 offers. Run its main method with
+ * -XX:+UseSerialGC -XX:-UseTLAB -Xmn512m, it is not a unit test.
+ */
+public class ResponseDecodeBenchmark {
+    private static final int[] SIZES = {20, 200, 2000};
+    private static final int DECODES = 50;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory()).create();
+        Api api = new Api(new ApiHeader("API_KEY", "ANDROID", "SDK_ID", "GIT_SHA", "VERSION"));
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int size : SIZES) {
+                decode(api, gson, size);
+            }
+        }
+    }
+
+    private static void decode(Api api, Gson gson, int size) {
+        String json = OfferPayloads.offerResponse(size);
+
+        long bufferedPeak = HeapMeasures.peakHeap(() -> buffered(gson, OfferPayloads.responseBody(json)));
+        long streamedPeak = HeapMeasures.peakHeap(() -> streamed(api, gson, OfferPayloads.responseBody(json)));
+
+        long bufferedStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            buffered(gson, OfferPayloads.responseBody(json));
+        }
+        long streamedStart = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            streamed(api, gson, OfferPayloads.responseBody(json));
+        }
+        long end = System.nanoTime();
+
+        System.out.printf(
+                "%d offers, %d KB : buffered %d KB peak %d us, streamed %d KB peak %d us%n",
+                size,
+                json.length() / 1024,
+                bufferedPeak / 1024,
+                (streamedStart - bufferedStart) / DECODES / 1000,
+                streamedPeak / 1024,
+                (end - streamedStart) / DECODES / 1000
+        );
+    }
+
+    /**
+     * The decode before streaming, the whole response is read to a string then parsed
+     */
+    private static OfferResponse buffered(Gson gson, ResponseBody body) {
+        try {
+            return gson.fromJson(body.string(), OfferResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static OfferResponse streamed(Api api, Gson gson, ResponseBody body) {
+        return api.convertResponseBodyBasedOnType(Single.just(body), OfferResponse.class, gson).blockingGet();
+    }
+}
@@ -0,0 +1,108 @@
+package io.nyris.sdk;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+/**
+ * UploadHeapBenchmark.java - Benchmark of the image file streamed to the match request against the image read
+ * to a byte array.
+ * Measure the peak heap and the time per match of 2, 4 and 8 MB images sent to a local server that discards
+ * them. Run its main method with -XX:+UseSerialGC -XX:-UseTLAB -Xmn512m, it is not a unit test.
+ */
+public class UploadHeapBenchmark {
+    private static final int[] SIZES_MB = {2, 4, 8};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.setBodyLimit(0L);
+        for (int i = 0; i < 2 * SIZES_MB.length * ROUNDS; i++) {
+            server.enqueue(new MockResponse().setBody("{\"results\":[]}"));
+        }
+        server.start();
+        try {
+            ImageMatchingApi api = imageMatchingApi(server);
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int size : SIZES_MB) {
+                    File image = image(size);
+                    try {
+                        upload(api, image);
+                    } finally {
+                        image.delete();
+                    }
+                }
+            }
+        } finally {
+            server.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private static void upload(ImageMatchingApi api, File image) {
+        MatchRequest request = api.newRequest().build();
+
+        long bytesStart = System.nanoTime();
+        long bytesPeak = HeapMeasures.peakHeap(() -> api.match(request, readBytes(image)).blockingGet());
+        long fileStart = System.nanoTime();
+        long filePeak = HeapMeasures.peakHeap(() -> api.match(request, image, OfferResponse.class).blockingGet());
+        long end = System.nanoTime();
+
+        System.out.printf(
+                "%d MB image : byte array %d KB peak %d ms, file %d KB peak %d ms%n",
+                image.length() / 1024 / 1024,
+                bytesPeak / 1024,
+                (fileStart - bytesStart) / 1_000_000,
+                filePeak / 1024,
+                (end - fileStart) / 1_000_000
+        );
+    }
+
+    private static byte[] readBytes(File image) {
+        try {
+            return Files.readAllBytes(image.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static File image(int sizeMb) throws IOException {
+        byte[] bytes = new byte[sizeMb * 1024 * 1024];
+        new Random(sizeMb).nextBytes(bytes);
+        File image = File.createTempFile("upload", ".jpg");
+        Files.write(image.toPath(), bytes);
+        return image;
+    }
+
+    private static ImageMatchingApi imageMatchingApi(MockWebServer server) {
+        ImageMatchingService service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.createAsync())
+                .build()
+                .create(ImageMatchingService.class);
+        NyrisConfig config = new NyrisConfig();
+        return new ImageMatchingApi(
+                service,
+                "application/offers.complete+json",
+                "en",
+                new Gson(),
+                new ApiHeader("API_KEY", "ANDROID", "SDK_ID", "GIT_SHA", "VERSION"),
+                new ImagePreprocessor(config),
+                EmbeddingEncoder.FLOAT32,
+                new MatchResultCache(config),
+                new SingleFlight(config),
+                new Hedging(config)
+        );
+    }
+}
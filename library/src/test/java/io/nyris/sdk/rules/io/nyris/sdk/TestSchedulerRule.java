@@ -7,7 +7,6 @@ import org.junit.runners.model.Statement;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Scheduler;
-import io.reactivex.android.plugins.RxAndroidPlugins;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.internal.schedulers.ExecutorScheduler;
@@ -42,13 +41,11 @@ public class TestSchedulerRule implements TestRule {
                 RxJavaPlugins.setInitComputationSchedulerHandler(scheduler -> immediate);
                 RxJavaPlugins.setInitNewThreadSchedulerHandler(scheduler -> immediate);
                 RxJavaPlugins.setInitSingleSchedulerHandler(scheduler -> immediate);
-                RxAndroidPlugins.setInitMainThreadSchedulerHandler(scheduler -> immediate);
 
                 try {
                     base.evaluate();
                 } finally {
                     RxJavaPlugins.reset();
-                    RxAndroidPlugins.reset();
                 }
             }
         };
@@ -0,0 +1,207 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Single;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * ApiTest.java - Unit tests for the response conversions of {@link Api}.
+ * Verify the responses are decoded from the body stream and the body is closed.
+ * Verify the streamed offers are read on demand.
+ */
+public class ApiTest extends BaseTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void convertResponseBodyBasedOnType_shouldDecodeOfferResponseFromStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Api api = new Api(apiHeader);
+
+        OfferResponse offerResponse = api
+                .convertResponseBodyBasedOnType(
+                        Single.just(responseBody(gson.toJson(getOfferResponseBody()), closed)),
+                        OfferResponse.class,
+                        gson
+                )
+                .blockingGet();
+
+        assertEquals(OFFERS_SIZE, offerResponse.getOffers().size());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void convertResponseBodyBasedOnType_shouldReturnJsonResponseBody() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Api api = new Api(apiHeader);
+        String json = gson.toJson(getOfferResponseBody());
+
+        JsonResponseBody jsonResponseBody = api
+                .convertResponseBodyBasedOnType(
+                        Single.just(responseBody(json, closed)),
+                        JsonResponseBody.class,
+                        gson
+                )
+                .blockingGet();
+
+        assertEquals(json, jsonResponseBody.getJson());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void convertResponseBodyBasedOnType_shouldReturnUnreadRawResponseBody() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        String json = gson.toJson(getOfferResponseBody());
+
+        RawResponseBody rawResponseBody = new Api(apiHeader)
+                .convertResponseBodyBasedOnType(
+                        Single.just(responseBody(json, closed)),
+                        RawResponseBody.class,
+                        gson
+                )
+                .blockingGet();
+
+        assertFalse(closed.get());
+        Buffer sink = new Buffer();
+        assertEquals(json.length(), rawResponseBody.writeTo(sink));
+        assertEquals(json, sink.readUtf8());
+        assertTrue(closed.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rawResponseBody_shouldBeReadOnce() {
+        RawResponseBody rawResponseBody = new Api(apiHeader)
+                .convertResponseBodyBasedOnType(
+                        Single.just(responseBody("{}", new AtomicBoolean())),
+                        RawResponseBody.class,
+                        gson
+                )
+                .blockingGet();
+
+        assertEquals("{}", rawResponseBody.byteString().utf8());
+        rawResponseBody.inputStream();
+    }
+
+    @Test
+    public void convertResponseBodyToOffers_shouldEmitOffersAndSummary() {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicReference<OfferResponse> summary = new AtomicReference<>();
+        String json = "{\"id\":\"request\",\"results\":[{\"oid\":\"1\"},null,{\"oid\":\"2\"}],"
+                + "\"session\":\"session\",\"predicted_category\":{\"shoes\":0.5}}";
+
+        TestSubscriber<Offer> testSubscriber = new Api(apiHeader)
+                .convertResponseBodyToOffers(Single.just(responseBody(json, closed)), gson, summary::set)
+                .test();
+
+        testSubscriber.awaitTerminalEvent();
+        testSubscriber.assertComplete();
+        testSubscriber.assertValueCount(2);
+        testSubscriber.assertValueAt(1, offer -> "2".equals(offer.getId()));
+        assertEquals("request", summary.get().getRequestId());
+        assertEquals("session", summary.get().getSessionId());
+        assertEquals(0.5F, summary.get().getPredictedCategories().get("shoes"), 0F);
+        assertTrue(summary.get().getOffers().isEmpty());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void convertResponseBodyToOffers_shouldReadOnlyRequestedOffers() {
+        AtomicBoolean closed = new AtomicBoolean();
+        // The response is truncated after the first offer, as if it was still downloading
+        String json = "{\"results\":[{\"oid\":\"1\"},{\"oid\"";
+
+        TestSubscriber<Offer> testSubscriber = new Api(apiHeader)
+                .convertResponseBodyToOffers(Single.just(responseBody(json, closed)), gson, null)
+                .test(1);
+
+        testSubscriber.awaitCount(1);
+        testSubscriber.assertValueCount(1);
+        testSubscriber.assertNotComplete();
+        testSubscriber.assertNoErrors();
+        assertFalse(closed.get());
+
+        // Cancelling closes the response body
+        testSubscriber.cancel();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void convertResponseBodyToOffers_shouldCloseBodyWhenCancelledBeforeReading() {
+        AtomicBoolean closed = new AtomicBoolean();
+
+        new Api(apiHeader)
+                .convertResponseBodyToOffers(Single.just(responseBody("{\"results\":[", closed)), gson, null)
+                .test(0, true);
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void convertResponseBodyToOffers_shouldNotReadOnTheRequestingThread() throws Exception {
+        String json = "{\"results\":[{\"oid\":\"1\"},{\"oid\":\"2\"}]}";
+        Set<Thread> readingThreads = ConcurrentHashMap.newKeySet();
+        BufferedSource source = Okio.buffer(new ForwardingSource(new Buffer().writeUtf8(json)) {
+            @Override
+            public long read(@NotNull Buffer sink, long byteCount) throws IOException {
+                readingThreads.add(Thread.currentThread());
+                return super.read(sink, byteCount);
+            }
+        });
+        // The test rule makes the io scheduler immediate, a real thread stands in for it
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        RxJavaPlugins.setIoSchedulerHandler(scheduler -> Schedulers.from(executor));
+        try {
+            TestSubscriber<Offer> testSubscriber = new Api(apiHeader)
+                    .convertResponseBodyToOffers(Single.just(ResponseBody.create(source, null, -1L)), gson, null)
+                    .test(0);
+
+            // The offers are requested from another thread, like a subscriber observing on the main thread
+            Thread requestingThread = new Thread(() -> testSubscriber.request(Long.MAX_VALUE));
+            requestingThread.start();
+            requestingThread.join();
+
+            testSubscriber.awaitTerminalEvent();
+            testSubscriber.assertValueCount(2);
+            assertFalse(readingThreads.isEmpty());
+            assertFalse(readingThreads.contains(requestingThread));
+            assertFalse(readingThreads.contains(Thread.currentThread()));
+        } finally {
+            RxJavaPlugins.setIoSchedulerHandler(null);
+            executor.shutdown();
+        }
+    }
+
+    private ResponseBody responseBody(String json, AtomicBoolean closed) {
+        BufferedSource source = Okio.buffer(new ForwardingSource(new Buffer().writeUtf8(json)) {
+            @Override
+            public void close() throws java.io.IOException {
+                closed.set(true);
+                super.close();
+            }
+        });
+        return ResponseBody.create(source, MediaType.parse("application/json"), -1L);
+    }
+}
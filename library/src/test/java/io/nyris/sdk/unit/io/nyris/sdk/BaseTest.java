@@ -5,6 +5,8 @@ import org.junit.ClassRule;
 import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 /**
  * BaseTest.java - Base Unit Test class
@@ -17,18 +19,13 @@ public class BaseTest {
     @ClassRule
     public static final TestSchedulerRule testSchedulerRule = new TestSchedulerRule();
     final int OFFERS_SIZE = 10;
-    SdkSchedulerProvider sdkScheduler;
     ApiHeader apiHeader;
-    EndpointBuilder endpoints;
 
     @Before
     public void setUp() {
         // Mock fields
         MockitoAnnotations.openMocks(this);
 
-        // Create instance of SdkScheduler
-        sdkScheduler = new SdkSchedulerProvider();
-
         // Create dummy ApiHeader
         apiHeader = new ApiHeader(
                 "API_KEY",
@@ -37,13 +34,6 @@ public class BaseTest {
                 "GIT_COMMIT_HASH",
                 "ANDROID_VERSION"
         );
-
-        // Create dummy endpoints
-        endpoints = new EndpointBuilder(
-                "SCHEME",
-                "HOST_URL",
-                "API_VERSION"
-        );
     }
 
     /**
@@ -53,12 +43,11 @@ public class BaseTest {
      * @see OfferResponse
      */
     OfferResponse getOfferResponseBody() {
-        OfferResponse offerResponse = new OfferResponse();
-        offerResponse.offers = new ArrayList<>();
+        List<Offer> offers = new ArrayList<>();
         for (int i = 0; i < OFFERS_SIZE; i++) {
-            offerResponse.getOffers().add(new Offer());
+            offers.add(new Offer());
         }
-        return offerResponse;
+        return new OfferResponse(null, null, new HashMap<>(), offers);
     }
 
 }
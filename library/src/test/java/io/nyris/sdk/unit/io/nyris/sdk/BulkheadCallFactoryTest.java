@@ -0,0 +1,120 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * BulkheadCallFactoryTest.java - Unit tests for {@link BulkheadCallFactory}.
+ * Verify the background calls run on their own dispatcher, so they never delay an interactive call.
+ */
+public class BulkheadCallFactoryTest {
+    private final MockWebServer server = new MockWebServer();
+    private final OkHttpClient client = new OkHttpClient();
+    private final BulkheadCallFactory.RequestPools pools =
+            new BulkheadCallFactory.RequestPools(new BulkheadConfig(16, 8, 1, 1));
+    private final BulkheadCallFactory callFactory = new BulkheadCallFactory(client, pools);
+
+    @Before
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                MockResponse response = new MockResponse().setBody("{}");
+                if ("/slow".equals(request.getPath())) {
+                    response.setHeadersDelay(2, TimeUnit.SECONDS);
+                }
+                return response;
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void newCall_shouldNotDelayInteractiveCallsBehindBackgroundCalls() throws Exception {
+        // More slow calls than the default dispatcher runs per host
+        for (int i = 0; i < 6; i++) {
+            callFactory.newCall(request("/slow", RequestPriority.BACKGROUND)).enqueue(new IgnoringCallback());
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        callFactory.newCall(request("/fast", RequestPriority.INTERACTIVE)).enqueue(new IgnoringCallback() {
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                response.close();
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void newCall_shouldRemoveTheBackgroundHeader() throws Exception {
+        try (Response response = callFactory.newCall(request("/fast", RequestPriority.BACKGROUND)).execute()) {
+            assertEquals("{}", response.body().string());
+        }
+
+        assertNull(server.takeRequest().getHeader(BulkheadCallFactory.HEADER));
+    }
+
+    @Test
+    public void newCall_shouldShareTheHedgedConnectionsOfTheSamePools() throws Exception {
+        Request hedgedRequest = new Request.Builder()
+                .url(server.url("/fast"))
+                .headers(Headers.of(Hedging.headers(Collections.emptyMap(), true)))
+                .build();
+
+        callFactory.newCall(hedgedRequest).execute().close();
+        new BulkheadCallFactory(client, pools).newCall(hedgedRequest).execute().close();
+
+        server.takeRequest();
+        // The second instance reused the hedged connection of the first one
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    private Request request(String path, RequestPriority priority) {
+        return new Request.Builder()
+                .url(server.url(path))
+                .headers(Headers.of(BulkheadCallFactory.headers(Collections.emptyMap(), priority)))
+                .build();
+    }
+
+    private static class IgnoringCallback implements Callback {
+        @Override
+        public void onFailure(@NotNull Call call, @NotNull IOException e) {
+        }
+
+        @Override
+        public void onResponse(@NotNull Call call, @NotNull Response response) {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Invocation;
+
+/**
+ * CircuitBreakerTest.java - Unit tests for {@link CircuitBreaker} and {@link CircuitBreakerInterceptor}.
+ * Verify the circuit opens on the failure and slow call rates, fails fast while open, and closes after
+ * successful probe calls.
+ */
+public class CircuitBreakerTest {
+    private final List<String> transitions = new ArrayList<>();
+    private long now = 0L;
+
+    @Test
+    public void onResult_shouldOpenWhenTheFailureRateIsReached() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+
+        record(circuitBreaker, 5, false);
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+        record(circuitBreaker, 5, true);
+
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+        assertEquals(Collections.singletonList("SIMILARITY CLOSED->OPEN"), transitions);
+    }
+
+    @Test
+    public void onResult_shouldNotOpenBeforeTheMinimumCalls() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+
+        record(circuitBreaker, 9, true);
+
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void onResult_shouldOpenWhenTheSlowCallRateIsReached() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+
+        for (int i = 0; i < 10; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+            now += 2_000L;
+            circuitBreaker.onResult(permit, false);
+        }
+
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void tryAcquire_shouldCloseAfterSuccessfulProbes() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        record(circuitBreaker, 10, true);
+
+        now += 1_000L;
+        List<CircuitBreaker.Permit> probes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            probes.add(circuitBreaker.tryAcquire());
+        }
+        // Only the configured number of probes is allowed
+        assertNull(circuitBreaker.tryAcquire());
+        for (CircuitBreaker.Permit probe : probes) {
+            assertNotNull(probe);
+            circuitBreaker.onResult(probe, false);
+        }
+
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+        assertEquals(
+                Arrays.asList("SIMILARITY CLOSED->OPEN", "SIMILARITY OPEN->HALF_OPEN", "SIMILARITY HALF_OPEN->CLOSED"),
+                transitions
+        );
+    }
+
+    @Test
+    public void tryAcquire_shouldOpenAgainWhenAProbeFails() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        record(circuitBreaker, 10, true);
+
+        now += 1_000L;
+        circuitBreaker.onResult(circuitBreaker.tryAcquire(), true);
+
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+        assertEquals(1_000L, circuitBreaker.retryAfterMillis());
+    }
+
+    @Test
+    public void intercept_shouldFailFastWhileTheCircuitIsOpen() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        CircuitBreakerConfig config = new CircuitBreakerConfig(0.5, 1.0, 1_000L, 2, 2);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new CircuitBreakerInterceptor(config))
+                .build();
+        Request request = similarityRequest(server);
+
+        for (int i = 0; i < 2; i++) {
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(503, response.code());
+            }
+        }
+        try {
+            client.newCall(request).execute();
+            fail("The open circuit should reject the call");
+        } catch (CircuitOpenException e) {
+            assertEquals(ApiEndpoint.SIMILARITY, e.getEndpoint());
+        } finally {
+            server.shutdown();
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void intercept_shouldNotRecordTheConcurrencyLimitRejections() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        CircuitBreakerInterceptor circuitBreakerInterceptor =
+                new CircuitBreakerInterceptor(new CircuitBreakerConfig(0.5, 1.0, 5_000L, 2, 2));
+        // One slot and no queue, the calls are rejected while the first one is in flight
+        OkHttpClient client = client(circuitBreakerInterceptor, new ConcurrencyLimitConfig(1, 1, 1, 0.9, 2.0, 0));
+        Request request = similarityRequest(server);
+
+        CountDownLatch done = new CountDownLatch(1);
+        client.newCall(request).enqueue(countDown(done));
+        while (server.getRequestCount() == 0) {
+            Thread.sleep(10L);
+        }
+        for (int i = 0; i < 3; i++) {
+            try {
+                client.newCall(request).execute();
+                fail("The call over the concurrency limit should be rejected");
+            } catch (ConcurrencyLimitExceededException expected) {
+                // Rejected without reaching the endpoint
+            }
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(CircuitState.CLOSED, circuitBreakerInterceptor.circuitBreaker(ApiEndpoint.SIMILARITY).getState());
+        server.shutdown();
+    }
+
+    @Test
+    public void intercept_shouldNotCountTheConcurrencyLimitWaitAsSlow() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setHeadersDelay(700, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse());
+        // Open when all the calls are slow, the first call is
+        CircuitBreakerInterceptor circuitBreakerInterceptor =
+                new CircuitBreakerInterceptor(new CircuitBreakerConfig(1.0, 1.0, 500L, 2, 2));
+        OkHttpClient client = client(circuitBreakerInterceptor, new ConcurrencyLimitConfig(1, 1, 1));
+        Request request = similarityRequest(server);
+
+        CountDownLatch done = new CountDownLatch(1);
+        client.newCall(request).enqueue(countDown(done));
+        while (server.getRequestCount() == 0) {
+            Thread.sleep(10L);
+        }
+        // Waits for the slot of the slow call, then gets a fast response
+        client.newCall(request).execute().close();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(CircuitState.CLOSED, circuitBreakerInterceptor.circuitBreaker(ApiEndpoint.SIMILARITY).getState());
+        server.shutdown();
+    }
+
+    /**
+     * Client with the circuit breaker and the concurrency limiter in the order of the sdk client
+     */
+    private OkHttpClient client(CircuitBreakerInterceptor circuitBreakerInterceptor, ConcurrencyLimitConfig config) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(circuitBreakerInterceptor)
+                .addInterceptor(new ConcurrencyLimiter(config))
+                .build();
+    }
+
+    private Request similarityRequest(MockWebServer server) throws NoSuchMethodException {
+        return new Request.Builder()
+                .url(server.url("/recommend/v1/sku"))
+                .tag(Invocation.class, Invocation.of(
+                        SimilarityService.class.getMethod("getBySku", String.class, Map.class),
+                        Collections.emptyList()
+                ))
+                .build();
+    }
+
+    private Callback countDown(CountDownLatch latch) {
+        return new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                response.close();
+                latch.countDown();
+            }
+        };
+    }
+
+    private CircuitBreaker circuitBreaker() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig(
+                0.5, 0.5, 1_000L, 20, 10, 1_000L, 2,
+                (endpoint, from, to) -> transitions.add(endpoint + " " + from + "->" + to)
+        );
+        return new CircuitBreaker(ApiEndpoint.SIMILARITY, config, () -> now);
+    }
+
+    private void record(CircuitBreaker circuitBreaker, int calls, boolean isFailure) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), isFailure);
+        }
+    }
+}
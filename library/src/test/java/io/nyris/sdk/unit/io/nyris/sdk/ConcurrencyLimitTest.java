@@ -0,0 +1,142 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ConcurrencyLimitTest.java - Unit tests for {@link ConcurrencyLimit}.
+ * Verify the limit grows while the round trip time is usual, shrinks on congestion or overload, and the
+ * calls over the limit wait in a bounded queue.
+ */
+public class ConcurrencyLimitTest {
+    private long now = 0L;
+
+    @Test
+    public void onResult_shouldGrowTheLimitWhileItIsUsed() throws IOException {
+        ConcurrencyLimit limit = limit(new ConcurrencyLimitConfig(2, 1, 4));
+
+        for (int i = 0; i < 5; i++) {
+            ConcurrencyLimit.Permit first = limit.acquire(() -> false);
+            ConcurrencyLimit.Permit second = limit.acquire(() -> false);
+            now += 100L;
+            limit.onResult(first, false);
+            limit.onResult(second, false);
+        }
+
+        assertEquals(4, limit.stats().getLimit());
+    }
+
+    @Test
+    public void onResult_shouldKeepTheLimitOfAnIdleEndpoint() throws IOException {
+        ConcurrencyLimit limit = limit(new ConcurrencyLimitConfig(4, 1, 16));
+
+        for (int i = 0; i < 20; i++) {
+            limit.onResult(limit.acquire(() -> false), false);
+        }
+
+        assertEquals(4, limit.stats().getLimit());
+    }
+
+    @Test
+    public void onResult_shouldShrinkTheLimitWhenOverloaded() throws IOException {
+        ConcurrencyLimit limit = limit(new ConcurrencyLimitConfig(10, 1, 16, 0.5));
+
+        limit.onResult(limit.acquire(() -> false), true);
+
+        assertEquals(5, limit.stats().getLimit());
+    }
+
+    @Test
+    public void onResult_shouldShrinkTheLimitWhenTheRoundTripGrows() throws IOException {
+        ConcurrencyLimit limit = limit(new ConcurrencyLimitConfig(10, 1, 16, 0.5, 2.0));
+        for (int i = 0; i < 10; i++) {
+            ConcurrencyLimit.Permit permit = limit.acquire(() -> false);
+            now += 100L;
+            limit.onResult(permit, false);
+        }
+
+        ConcurrencyLimit.Permit permit = limit.acquire(() -> false);
+        now += 300L;
+        limit.onResult(permit, false);
+
+        assertEquals(5, limit.stats().getLimit());
+    }
+
+    @Test
+    public void acquire_shouldRejectWhenTheQueueIsFull() throws IOException {
+        ConcurrencyLimit limit = new ConcurrencyLimit(
+                ApiEndpoint.IMAGE_MATCHING,
+                new ConcurrencyLimitConfig(1, 1, 1, 0.9, 2.0, 0)
+        );
+        limit.acquire(() -> false);
+
+        try {
+            limit.acquire(() -> false);
+            fail("The call over the limit should be rejected");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertEquals(ApiEndpoint.IMAGE_MATCHING, e.getEndpoint());
+        }
+        ConcurrencyLimitStats stats = limit.stats();
+        assertEquals(1, stats.getInFlight());
+        assertEquals(1, stats.getAcceptedCount());
+        assertEquals(1, stats.getRejectedCount());
+    }
+
+    @Test
+    public void acquire_shouldRejectWhenTheWaitElapses() throws IOException {
+        ConcurrencyLimit limit = new ConcurrencyLimit(
+                ApiEndpoint.IMAGE_MATCHING,
+                new ConcurrencyLimitConfig(1, 1, 1, 0.9, 2.0, 4, 100L)
+        );
+        limit.acquire(() -> false);
+
+        try {
+            limit.acquire(() -> false);
+            fail("The call should be rejected once its wait elapsed");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertEquals(1, limit.stats().getRejectedCount());
+            assertEquals(0, limit.stats().getQueued());
+        }
+    }
+
+    @Test
+    public void acquire_shouldAdmitTheQueuedCallWhenASlotIsReleased() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(
+                ApiEndpoint.IMAGE_MATCHING,
+                new ConcurrencyLimitConfig(1, 1, 1)
+        );
+        ConcurrencyLimit.Permit permit = limit.acquire(() -> false);
+        CountDownLatch admitted = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread queued = new Thread(() -> {
+            try {
+                limit.acquire(() -> false);
+                admitted.countDown();
+            } catch (IOException e) {
+                error.set(e);
+            }
+        });
+        queued.start();
+        while (limit.stats().getQueued() == 0) {
+            Thread.sleep(10L);
+        }
+
+        limit.onIgnored(permit);
+
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        assertEquals(null, error.get());
+        assertEquals(1, limit.stats().getInFlight());
+    }
+
+    private ConcurrencyLimit limit(ConcurrencyLimitConfig config) {
+        return new ConcurrencyLimit(ApiEndpoint.IMAGE_MATCHING, config, () -> now);
+    }
+}
@@ -0,0 +1,179 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+
+/**
+ * EmbeddingEncoderTest.java - Unit tests for the implementations of {@link EmbeddingEncoder}.
+ * Compare the reconstruction error and the payload size of the quantized encodings against the
+ * float32 encoding.
+ */
+public class EmbeddingEncoderTest {
+    private static final int[] DIMENSIONS = new int[]{512, 1024, 2048};
+    private final Random random = new Random(42);
+
+    @Test
+    public void float32_shouldReconstructExactly() {
+        float[] vector = randomVector(512);
+
+        assertEquals(0.0, maxError(vector, EmbeddingEncoder.FLOAT32), 0.0);
+    }
+
+    @Test
+    public void float16_shouldReconstructWithHalfPrecision() {
+        for (int dimension : DIMENSIONS) {
+            float[] vector = randomVector(dimension);
+
+            // 11 significant bits, the error is at most 2^-11 of the component, or half of the
+            // smallest subnormal step 2^-24 for tiny components
+            byte[] bytes = new byte[2];
+            for (float value : vector) {
+                EmbeddingEncoder.FLOAT16.encode(value, null, bytes, 0);
+                float decoded = EmbeddingEncoder.FLOAT16.decode(bytes, 0, null);
+                double bound = Math.max(Math.abs(value) * Math.pow(2, -11), Math.pow(2, -25));
+                assertTrue(Math.abs(decoded - value) <= bound);
+            }
+        }
+    }
+
+    @Test
+    public void float16_shouldKeepSpecialValues() {
+        float[] values = new float[]{0f, -0f, 1f, -2f, 65504f, Float.POSITIVE_INFINITY, 5.9604645E-8f};
+        byte[] bytes = new byte[2];
+        for (float value : values) {
+            EmbeddingEncoder.FLOAT16.encode(value, null, bytes, 0);
+            assertEquals(value, EmbeddingEncoder.FLOAT16.decode(bytes, 0, null), 0f);
+        }
+        EmbeddingEncoder.FLOAT16.encode(Float.NaN, null, bytes, 0);
+        assertTrue(Float.isNaN(EmbeddingEncoder.FLOAT16.decode(bytes, 0, null)));
+    }
+
+    @Test
+    public void int8_shouldReconstructWithinHalfStep() {
+        for (int dimension : DIMENSIONS) {
+            float[] vector = randomVector(dimension);
+            Float scale = EmbeddingEncoder.INT8.scale(vector);
+
+            // Rounding error is at most half of the quantization step
+            assertTrue(maxError(vector, EmbeddingEncoder.INT8) <= scale / 2 + 1e-6);
+        }
+    }
+
+    @Test
+    public void quantizedPayloads_shouldBeSmallerThanFloat32() throws IOException {
+        for (int dimension : DIMENSIONS) {
+            float[] vector = randomVector(dimension);
+            long float32Size = payloadSize(vector, EmbeddingEncoder.FLOAT32);
+            long float16Size = payloadSize(vector, EmbeddingEncoder.FLOAT16);
+            long int8Size = payloadSize(vector, EmbeddingEncoder.INT8);
+
+            // Half and quarter of the Base64 payload, plus the dtype and scale fields
+            assertTrue(float16Size <= float32Size / 2 + 32);
+            assertTrue(int8Size <= float32Size / 4 + 64);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonFiniteComponent_shouldBeRejected() {
+        float[] vector = randomVector(512);
+        vector[7] = Float.NaN;
+
+        new EmbeddingRequestBody(vector, EmbeddingEncoder.INT8);
+    }
+
+    @Test
+    public void oddWidthEncoder_shouldOnlyPadTheLastChunk() throws IOException {
+        for (int width : new int[]{5, 7, 4099}) {
+            float[] vector = randomVector(2000);
+            EmbeddingEncoder encoder = new WideEncoder(width);
+            byte[] bytes = new byte[vector.length * width];
+            for (int i = 0; i < vector.length; i++) {
+                encoder.encode(vector[i], null, bytes, i * width);
+            }
+            EmbeddingRequestBody body = new EmbeddingRequestBody(vector, encoder);
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+
+            assertEquals(body.contentLength(), buffer.size());
+            assertEquals("{\"b64\":\"" + Base64.getEncoder().encodeToString(bytes) + "\"}", buffer.readUtf8());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyWidthEncoder_shouldBeRejected() {
+        new EmbeddingRequestBody(randomVector(512), new WideEncoder(0));
+    }
+
+    private double maxError(float[] vector, EmbeddingEncoder encoder) {
+        Float scale = encoder.scale(vector);
+        byte[] bytes = new byte[encoder.getBytesPerComponent()];
+        double maxError = 0;
+        for (float value : vector) {
+            encoder.encode(value, scale, bytes, 0);
+            maxError = Math.max(maxError, Math.abs(encoder.decode(bytes, 0, scale) - value));
+        }
+        return maxError;
+    }
+
+    private long payloadSize(float[] vector, EmbeddingEncoder encoder) throws IOException {
+        Buffer buffer = new Buffer();
+        new EmbeddingRequestBody(vector, encoder).writeTo(buffer);
+        return buffer.size();
+    }
+
+    /**
+     * Float32 bytes followed by padding bytes up to the width
+     */
+    private static class WideEncoder implements EmbeddingEncoder {
+        private final int width;
+
+        WideEncoder(int width) {
+            this.width = width;
+        }
+
+        @Override
+        public String getDtype() {
+            return null;
+        }
+
+        @Override
+        public int getBytesPerComponent() {
+            return width;
+        }
+
+        @Override
+        public Float scale(@NotNull float[] vector) {
+            return null;
+        }
+
+        @Override
+        public void encode(float value, Float scale, @NotNull byte[] output, int offset) {
+            int bits = Float.floatToIntBits(value);
+            for (int i = 0; i < width; i++) {
+                output[offset + i] = i < 4 ? (byte) (bits >>> (8 * i)) : (byte) i;
+            }
+        }
+
+        @Override
+        public float decode(@NotNull byte[] input, int offset, Float scale) {
+            return EmbeddingEncoder.FLOAT32.decode(input, offset, scale);
+        }
+    }
+
+    private float[] randomVector(int size) {
+        float[] vector = new float[size];
+        for (int i = 0; i < size; i++) {
+            vector[i] = (float) random.nextGaussian() * 0.05f;
+        }
+        return vector;
+    }
+}
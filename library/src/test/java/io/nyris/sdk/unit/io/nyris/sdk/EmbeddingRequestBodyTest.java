@@ -0,0 +1,80 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+
+/**
+ * EmbeddingRequestBodyTest.java - Unit tests for {@link EmbeddingRequestBody}.
+ */
+public class EmbeddingRequestBodyTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void writeToFloat32_shouldWriteSameJsonAsBufferedEncoding() throws IOException {
+        // Sizes around the padding cases, the usual embedding sizes and the chunk boundary
+        int[] sizes = new int[]{0, 1, 2, 3, 512, 767, 768, 769, 1024, 2048};
+        for (int size : sizes) {
+            float[] vector = randomVector(size);
+            Buffer buffer = new Buffer();
+
+            EmbeddingRequestBody body = new EmbeddingRequestBody(vector, EmbeddingEncoder.FLOAT32);
+            body.writeTo(buffer);
+
+            String expected = "{\"b64\":\"" + bufferedBase64(vector) + "\"}";
+            assertEquals(expected, buffer.readUtf8());
+        }
+    }
+
+    @Test
+    public void contentLength_shouldCountWrittenBytes() throws IOException {
+        EmbeddingEncoder[] encoders = new EmbeddingEncoder[]{
+                EmbeddingEncoder.FLOAT32, EmbeddingEncoder.FLOAT16, EmbeddingEncoder.INT8
+        };
+        for (EmbeddingEncoder encoder : encoders) {
+            for (int size = 0; size < 20; size++) {
+                Buffer buffer = new Buffer();
+                EmbeddingRequestBody body = new EmbeddingRequestBody(randomVector(size), encoder);
+                body.writeTo(buffer);
+
+                assertEquals(buffer.size(), body.contentLength());
+            }
+        }
+    }
+
+    @Test
+    public void writeToInt8_shouldCarryTypeAndScale() throws IOException {
+        Buffer buffer = new Buffer();
+        EmbeddingRequestBody body = new EmbeddingRequestBody(
+                new float[]{0.5f, -1.27f, 0f},
+                EmbeddingEncoder.INT8
+        );
+        body.writeTo(buffer);
+
+        // -1.27 is the largest component, so the scale is 0.01
+        String expected = "{\"b64\":\"MoEA\",\"dtype\":\"int8\",\"scale\":" + (1.27f / 127f) + "}";
+        assertEquals(expected, buffer.readUtf8());
+    }
+
+    private float[] randomVector(int size) {
+        float[] vector = new float[size];
+        for (int i = 0; i < size; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private String bufferedBase64(float[] vector) {
+        ByteBuffer buf = ByteBuffer.allocate(4 * vector.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buf.array());
+    }
+}
@@ -0,0 +1,151 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * HedgingTest.java - Unit tests for {@link Hedging} and {@link HedgingCallFactory}.
+ * Verify the hedged request is sent after the delay on another connection, the first response wins,
+ * and the hedged requests stay within the extra load budget.
+ */
+public class HedgingTest {
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Test
+    public void execute_shouldCancelTheSlowRequestWhenTheHedgedRequestWins() {
+        Hedging hedging = new Hedging(new HedgingConfig(100L), scheduler);
+        AtomicBoolean slowDisposed = new AtomicBoolean();
+
+        TestObserver<String> observer = hedging
+                .execute(true, isHedged -> isHedged
+                        ? Single.timer(50, TimeUnit.MILLISECONDS, scheduler).map(it -> "hedged")
+                        : Single.timer(1000, TimeUnit.MILLISECONDS, scheduler).map(it -> "original")
+                                .doOnDispose(() -> slowDisposed.set(true)))
+                .test();
+        scheduler.advanceTimeBy(150, TimeUnit.MILLISECONDS);
+
+        observer.assertValue("hedged");
+        assertTrue(slowDisposed.get());
+    }
+
+    @Test
+    public void execute_shouldNotHedgeAFastRequest() {
+        Hedging hedging = new Hedging(new HedgingConfig(100L), scheduler);
+        AtomicInteger hedgedRequests = new AtomicInteger();
+
+        TestObserver<String> observer = hedging
+                .execute(true, isHedged -> {
+                    if (isHedged) {
+                        hedgedRequests.incrementAndGet();
+                    }
+                    return Single.timer(50, TimeUnit.MILLISECONDS, scheduler).map(it -> "original");
+                })
+                .test();
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        observer.assertValue("original");
+        assertEquals(0, hedgedRequests.get());
+    }
+
+    @Test
+    public void execute_shouldStayWithinTheExtraLoadBudget() {
+        HedgingConfig config = new HedgingConfig(100L);
+        config.setMaxExtraLoadRatio(0.0);
+        Hedging hedging = new Hedging(config, scheduler);
+        AtomicInteger hedgedRequests = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            hedging.execute(true, isHedged -> {
+                if (isHedged) {
+                    hedgedRequests.incrementAndGet();
+                }
+                return Single.timer(1000, TimeUnit.MILLISECONDS, scheduler).map(it -> "original");
+            }).test();
+        }
+        scheduler.advanceTimeBy(2000, TimeUnit.MILLISECONDS);
+
+        // The bucket starts with 5 tokens and no request refills it
+        assertEquals(5, hedgedRequests.get());
+    }
+
+    @Test
+    public void execute_shouldNotHedgeWhenDisabledOrNotHedgeable() {
+        AtomicInteger requests = new AtomicInteger();
+
+        new Hedging(null, scheduler).execute(true, isHedged -> {
+            requests.incrementAndGet();
+            return Single.just("original");
+        }).test().assertValue("original");
+        new Hedging(new HedgingConfig(0L), scheduler).execute(false, isHedged -> {
+            requests.incrementAndGet();
+            return Single.just("original");
+        }).test().assertValue("original");
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void percentile_shouldUseTheRecentLatencies() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertNull(tracker.percentile(0.95, 1));
+
+        for (int i = 1; i <= 200; i++) {
+            tracker.record(i);
+        }
+
+        // The window keeps 101..200
+        assertEquals(195L, (long) tracker.percentile(0.95, 20));
+        assertEquals(101L, (long) tracker.percentile(0.0, 20));
+    }
+
+    @Test
+    public void newCall_shouldSendTheHedgedRequestOnAnotherConnection() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("original"));
+        server.enqueue(new MockResponse().setBody("hedged"));
+        server.start();
+        HedgingCallFactory callFactory = new HedgingCallFactory(new OkHttpClient(), new ConnectionPool());
+        Request request = new Request.Builder().url(server.url("/")).build();
+        Request hedgedRequest = new Request.Builder()
+                .url(server.url("/"))
+                .headers(okhttp3.Headers.of(Hedging.headers(Collections.emptyMap(), true)))
+                .build();
+
+        call(callFactory, request);
+        call(callFactory, hedgedRequest);
+
+        server.takeRequest();
+        RecordedRequest recordedHedgedRequest = server.takeRequest();
+        // A new connection, its first request
+        assertEquals(0, recordedHedgedRequest.getSequenceNumber());
+        assertFalse(recordedHedgedRequest.getHeaders().names().contains(Hedging.HEADER));
+        server.shutdown();
+    }
+
+    private void call(HedgingCallFactory callFactory, Request request) throws IOException {
+        try (Response response = callFactory.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package io.nyris.sdk;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -11,14 +14,26 @@ import com.google.gson.Gson;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.reactivex.Flowable;
 import io.reactivex.Single;
+import io.reactivex.subscribers.TestSubscriber;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import okhttp3.MediaType;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.HttpException;
 import retrofit2.Response;
@@ -46,9 +61,12 @@ public class ImageMatchingApiTest extends BaseTest {
                 "OUTPUT_FORMAT",
                 "OUTPUT_FORMAT",
                 gson,
-                sdkScheduler,
                 apiHeader,
-                endpoints
+                new ImagePreprocessor(new NyrisConfig()),
+                EmbeddingEncoder.FLOAT32,
+                new MatchResultCache(new NyrisConfig()),
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new NyrisConfig())
         );
     }
 
@@ -62,7 +80,7 @@ public class ImageMatchingApiTest extends BaseTest {
                         MediaType.parse("application/json")
                 );
 
-        when(imageMatchingService.match(anyString(), anyMap(), any()))
+        when(imageMatchingService.match(anyMap(), any()))
                 .thenReturn(Single.just(responseBody));
 
         // When Image Matching Api is asked to match a image byte array
@@ -70,11 +88,11 @@ public class ImageMatchingApiTest extends BaseTest {
 
         // Verify match method called once
         verify(imageMatchingService, times(1))
-                .match(anyString(), anyMap(), any());
+                .match(anyMap(), any());
 
         // Verify matchAndGetRequestId method was not called
         verify(imageMatchingService, times(0))
-                .matchAndGetRequestId(anyString(), anyMap(), any());
+                .matchAndGetRequestId(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
@@ -93,7 +111,7 @@ public class ImageMatchingApiTest extends BaseTest {
                         MediaType.parse("application/json")
                 );
 
-        when(imageMatchingService.match(anyString(), anyMap(), any()))
+        when(imageMatchingService.match(anyMap(), any()))
                 .thenReturn(Single.just(responseBody));
 
         // When Image Matching Api is asked to match a image byte array and asked to return
@@ -104,11 +122,11 @@ public class ImageMatchingApiTest extends BaseTest {
 
         // Verify match method was not called
         verify(imageMatchingService, times(1))
-                .match(anyString(), anyMap(), any());
+                .match(anyMap(), any());
 
         // Verify matchAndGetRequestId method was once
         verify(imageMatchingService, times(0))
-                .matchAndGetRequestId(anyString(), anyMap(), any());
+                .matchAndGetRequestId(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
@@ -119,10 +137,17 @@ public class ImageMatchingApiTest extends BaseTest {
 
     @Test
     public void match_shouldReturnCorrectOfferResponse() {
-        // Get an instance of OfferResponseBody
-        Response<OfferResponse> response = Response.success(getOfferResponseBody());
-        when(imageMatchingService.matchAndGetRequestId(anyString(), anyMap(), any()))
-                .thenReturn(Single.just(response));
+        // Get an instance of OfferResponse with a request id
+        OfferResponse offerResponse = new OfferResponse(
+                "REQUEST_ID", "SESSION_ID", new HashMap<>(), getOfferResponseBody().getOffers()
+        );
+        ResponseBody responseBody =
+                ResponseBody.create(
+                        gson.toJson(offerResponse, OfferResponse.class),
+                        MediaType.parse("application/json")
+                );
+        when(imageMatchingService.match(anyMap(), any()))
+                .thenReturn(Single.just(responseBody));
 
         // When Image Matching Api is asked to match an image byte array and asked to return
         // response as OfferResponse
@@ -130,21 +155,15 @@ public class ImageMatchingApiTest extends BaseTest {
                 .match(new byte[]{}, OfferResponse.class)
                 .test();
 
-        // Verify match method was not called
+        // Verify matchAndGetRequestId method was not called, the request id is decoded from the body
         verify(imageMatchingService, times(0))
-                .match(anyString(), anyMap(), any());
-
-        // Verify matchAndGetRequestId method was once
-        verify(imageMatchingService, times(1))
-                .matchAndGetRequestId(anyString(), anyMap(), any());
+                .matchAndGetRequestId(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
-        testObserver.assertValue(Objects::nonNull);
+        testObserver.assertValue(r -> "REQUEST_ID".equals(r.getRequestId()));
         // Assert the returned offers have the same size of mocked offers
-        testObserver.assertValue(r ->
-                Objects.requireNonNull(r.getBody()).getOffers().size() == OFFERS_SIZE
-        );
+        testObserver.assertValue(r -> r.getOffers().size() == OFFERS_SIZE);
     }
 
     @Test
@@ -156,7 +175,7 @@ public class ImageMatchingApiTest extends BaseTest {
                         ResponseBody.create("Forbidden", MediaType.parse("application/json"))
                 )
         );
-        when(imageMatchingService.match(anyString(), anyMap(), any()))
+        when(imageMatchingService.match(anyMap(), any()))
                 .thenReturn(Single.error(httpException));
 
         // When Image Matching Api is asked to match an image byte array
@@ -169,7 +188,7 @@ public class ImageMatchingApiTest extends BaseTest {
     @Test
     public void match_shouldTerminatedWithIOError() {
         // Get an instance of IOException
-        when(imageMatchingService.match(anyString(), anyMap(), any()))
+        when(imageMatchingService.match(anyMap(), any()))
                 .thenReturn(Single.error(new IOException()));
 
         // When Image Matching Api is asked to match an image byte array
@@ -181,4 +200,175 @@ public class ImageMatchingApiTest extends BaseTest {
         testObserver.assertError(IOException.class);
     }
 
+    @Test
+    public void matchFile_shouldSendReplayableBody() throws IOException {
+        // Get an instance of OfferResponseBody
+        OfferResponse offerResponse = getOfferResponseBody();
+        ResponseBody responseBody =
+                ResponseBody.create(
+                        gson.toJson(offerResponse, OfferResponse.class),
+                        MediaType.parse("application/json")
+                );
+        ArgumentCaptor<RequestBody> bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+        when(imageMatchingService.match(anyMap(), bodyCaptor.capture()))
+                .thenReturn(Single.just(responseBody));
+        File image = File.createTempFile("image", ".jpg");
+        image.deleteOnExit();
+
+        // When Image Matching Api is asked to match an image file
+        TestObserver<OfferResponse> testObserver = imageMatchingApi.match(image).test();
+
+        testObserver.assertComplete();
+        testObserver.assertValue(r -> r.getOffers().size() == OFFERS_SIZE);
+        // Assert the file body can be replayed by the retry interceptor
+        assertFalse(bodyCaptor.getValue().isOneShot());
+    }
+
+    @Test
+    public void matchInputStream_shouldSendOneShotBody() throws IOException {
+        // Get an instance of OfferResponseBody
+        OfferResponse offerResponse = getOfferResponseBody();
+        ResponseBody responseBody =
+                ResponseBody.create(
+                        gson.toJson(offerResponse, OfferResponse.class),
+                        MediaType.parse("application/json")
+                );
+        ArgumentCaptor<RequestBody> bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+        when(imageMatchingService.match(anyMap(), bodyCaptor.capture()))
+                .thenReturn(Single.just(responseBody));
+
+        // When Image Matching Api is asked to match an image input stream
+        TestObserver<OfferResponse> testObserver = imageMatchingApi
+                .match(new ByteArrayInputStream(new byte[]{1, 2, 3}))
+                .test();
+
+        testObserver.assertComplete();
+        testObserver.assertValue(r -> r.getOffers().size() == OFFERS_SIZE);
+        // Assert the streamed body is flagged as one-shot and has no known length
+        assertTrue(bodyCaptor.getValue().isOneShot());
+        assertEquals(-1L, bodyCaptor.getValue().contentLength());
+    }
+
+    @Test
+    public void matchFloatArray_shouldNotHedgeRawResponses() {
+        TestScheduler scheduler = new TestScheduler();
+        ImageMatchingApi hedgedApi = new ImageMatchingApi(
+                imageMatchingService,
+                "OUTPUT_FORMAT",
+                "OUTPUT_FORMAT",
+                gson,
+                apiHeader,
+                new ImagePreprocessor(new NyrisConfig()),
+                EmbeddingEncoder.FLOAT32,
+                new MatchResultCache(new NyrisConfig()),
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new HedgingConfig(100L), scheduler)
+        );
+        when(imageMatchingService.semanticSearch2(anyMap(), any())).thenReturn(Single.never());
+
+        // When a raw response is requested for an embedding, with the hedging delay elapsed
+        hedgedApi.match(hedgedApi.newRequest().build(), new float[]{1F, 2F}, RawResponseBody.class).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        // Assert only one request is sent, a raw response can't be raced
+        verify(imageMatchingService, times(1)).semanticSearch2(anyMap(), any());
+    }
+
+    @Test
+    public void matchAll_shouldReturnTheErrorOfAnImageWithoutEndingTheBatch() {
+        when(imageMatchingService.match(anyMap(), any()))
+                .thenReturn(Single.just(offerResponseBody()))
+                .thenReturn(Single.error(new IOException()))
+                .thenReturn(Single.just(offerResponseBody()));
+        List<BatchStats> stats = new ArrayList<>();
+
+        // When Image Matching Api is asked to match a batch of three images
+        TestSubscriber<BatchResult<OfferResponse>> testSubscriber = imageMatchingApi
+                .matchAll(
+                        imageMatchingApi.newRequest().build(),
+                        Flowable.range(0, 3).map(i -> ImageInput.of(new byte[]{i.byteValue()})),
+                        2,
+                        true,
+                        OfferResponse.class,
+                        stats::add
+                )
+                .test();
+
+        testSubscriber.assertComplete();
+        testSubscriber.assertValueCount(3);
+        List<BatchResult<OfferResponse>> results = testSubscriber.values();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals(BatchStatus.SUCCESS, results.get(0).getStatus());
+        assertEquals(BatchStatus.ERROR, results.get(1).getStatus());
+        assertTrue(results.get(1).getError() instanceof IOException);
+        assertEquals(BatchStatus.SUCCESS, results.get(2).getStatus());
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.get(0).getImageCount());
+        assertEquals(1, stats.get(0).getErrorCount());
+        assertEquals(3, stats.get(0).getBytes());
+    }
+
+    @Test
+    public void matchAll_shouldReturnTheRejectedImages() {
+        when(imageMatchingService.match(anyMap(), any()))
+                .thenReturn(Single.error(new CircuitOpenException(ApiEndpoint.IMAGE_MATCHING, 1_000L)));
+
+        TestSubscriber<BatchResult<OfferResponse>> testSubscriber = imageMatchingApi
+                .matchAll(Flowable.just(ImageInput.of(new byte[]{1})), 1, false)
+                .test();
+
+        testSubscriber.assertComplete();
+        testSubscriber.assertValue(r -> r.getStatus() == BatchStatus.REJECTED);
+    }
+
+    @Test
+    public void matchAll_shouldReturnTheErrorOfAnInvalidEmbedding() {
+        List<BatchStats> stats = new ArrayList<>();
+
+        TestSubscriber<BatchResult<OfferResponse>> testSubscriber = imageMatchingApi
+                .matchAll(
+                        imageMatchingApi.newRequest().build(),
+                        Flowable.just(ImageInput.of(new float[]{1F, Float.NaN})),
+                        1,
+                        false,
+                        OfferResponse.class,
+                        stats::add
+                )
+                .test();
+
+        testSubscriber.assertComplete();
+        testSubscriber.assertValue(r -> r.getStatus() == BatchStatus.ERROR
+                && r.getError() instanceof IllegalArgumentException);
+        assertEquals(0, stats.get(0).getBytes());
+    }
+
+    @Test
+    public void matchAll_shouldBoundTheImagesInFlight() {
+        when(imageMatchingService.match(anyMap(), any())).thenReturn(Single.never());
+        AtomicInteger produced = new AtomicInteger();
+
+        // When Image Matching Api is asked to match more images than its parallelism
+        imageMatchingApi
+                .matchAll(
+                        Flowable.range(0, 10)
+                                .doOnNext(i -> produced.incrementAndGet())
+                                .map(i -> ImageInput.of(new byte[]{i.byteValue()})),
+                        3,
+                        false
+                )
+                .test();
+
+        // Then only the images in flight are requested from the producer
+        assertEquals(3, produced.get());
+        verify(imageMatchingService, times(3)).match(anyMap(), any());
+    }
+
+    private ResponseBody offerResponseBody() {
+        return ResponseBody.create(
+                gson.toJson(getOfferResponseBody(), OfferResponse.class),
+                MediaType.parse("application/json")
+        );
+    }
 }
@@ -0,0 +1,198 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ImagePreprocessorTest.java - Unit tests for the image preprocessing stage.
+ * Verify the subsample size of the decode, the rotation and the EXIF orientation tag of the re-encoded image,
+ * the sizes reported to the listener, and the images passed through when the stage is disabled.
+ */
+public class ImagePreprocessorTest extends BaseTest {
+    private static final int ORIENTATION_ROTATE_90 = 6;
+    private final FakeImageCodec codec = new FakeImageCodec();
+
+    @Test
+    public void process_shouldPassTheImageThroughWhenDisabled() {
+        ImagePreprocessor imagePreprocessor = new ImagePreprocessor(new NyrisConfig(), codec);
+        byte[] image = new byte[100];
+
+        assertFalse(imagePreprocessor.isEnabled());
+        assertSame(image, imagePreprocessor.process(image));
+        assertNull(imagePreprocessor.process(new File("image.jpg")));
+        assertEquals(0, codec.opened);
+    }
+
+    @Test
+    public void process_shouldDecodeWithTheLargestSubsampleAboveTheMaxEdge() {
+        ImagePreprocessor imagePreprocessor = imagePreprocessor(new ImagePreprocessingConfig());
+        codec.image = new FakeImage(4000, 3000, 0, 0, 10);
+
+        imagePreprocessor.process(new byte[100]);
+        assertEquals(2, codec.image.sampleSize);
+        assertEquals(ImagePreprocessingConfig.MAX_EDGE_LENGTH, codec.image.maxEdgeLength);
+        assertEquals(ImagePreprocessingConfig.JPEG_QUALITY, codec.image.jpegQuality);
+
+        codec.image = new FakeImage(3000, 8200, 0, 0, 10);
+        imagePreprocessor.process(new byte[100]);
+        assertEquals(8, codec.image.sampleSize);
+    }
+
+    @Test
+    public void process_shouldUploadTheSmallImageAsItIs() {
+        ImagePreprocessor imagePreprocessor = imagePreprocessor(new ImagePreprocessingConfig());
+        codec.image = new FakeImage(1024, 768, 0, 0, 10);
+        byte[] image = new byte[100];
+
+        assertSame(image, imagePreprocessor.process(image));
+        assertEquals(0, codec.image.sampleSize);
+    }
+
+    @Test
+    public void process_shouldRotateTheImageAndDropTheOrientationTag() {
+        ImagePreprocessor imagePreprocessor = imagePreprocessor(new ImagePreprocessingConfig());
+        // Small images are rotated too
+        codec.image = new FakeImage(800, 600, ORIENTATION_ROTATE_90, 90, 200);
+
+        byte[] processed = imagePreprocessor.process(new byte[100]);
+
+        assertEquals(1, codec.image.sampleSize);
+        assertEquals(90, codec.image.rotationDegrees);
+        assertEquals(0, codec.orientationTag);
+        // The rotated image is uploaded even when it is larger
+        assertEquals(200, processed.length);
+    }
+
+    @Test
+    public void process_shouldKeepTheOrientationTagWhenTheOrientationIsNotApplied() {
+        ImagePreprocessingConfig config = new ImagePreprocessingConfig();
+        config.setApplyExifOrientation(false);
+        ImagePreprocessor imagePreprocessor = imagePreprocessor(config);
+        codec.image = new FakeImage(4000, 3000, ORIENTATION_ROTATE_90, 90, 10);
+
+        byte[] processed = imagePreprocessor.process(new byte[100]);
+
+        assertEquals(0, codec.image.rotationDegrees);
+        assertEquals(ORIENTATION_ROTATE_90, codec.orientationTag);
+        assertArrayEquals(codec.tagged, processed);
+    }
+
+    @Test
+    public void process_shouldReportTheSizesToTheListener() {
+        AtomicLong originalSize = new AtomicLong();
+        AtomicLong preprocessedSize = new AtomicLong();
+        ImagePreprocessingConfig config = new ImagePreprocessingConfig();
+        config.setListener((original, preprocessed) -> {
+            originalSize.set(original);
+            preprocessedSize.set(preprocessed);
+        });
+        ImagePreprocessor imagePreprocessor = imagePreprocessor(config);
+        codec.image = new FakeImage(4000, 3000, 0, 0, 30);
+
+        assertEquals(30, imagePreprocessor.process(new byte[100]).length);
+        assertEquals(100, originalSize.get());
+        assertEquals(30, preprocessedSize.get());
+
+        // A re-encoded image that is not smaller is not uploaded, nothing is saved
+        codec.image = new FakeImage(4000, 3000, 0, 0, 150);
+        byte[] image = new byte[100];
+        assertSame(image, imagePreprocessor.process(image));
+        assertEquals(100, originalSize.get());
+        assertEquals(100, preprocessedSize.get());
+    }
+
+    private ImagePreprocessor imagePreprocessor(ImagePreprocessingConfig config) {
+        NyrisConfig nyrisConfig = new NyrisConfig();
+        nyrisConfig.setImagePreprocessing(config);
+        return new ImagePreprocessor(nyrisConfig, codec);
+    }
+
+    /**
+     * Codec of the fake image, it records the orientation tag written into the JPEG
+     */
+    private static class FakeImageCodec implements ImageCodec {
+        FakeImage image;
+        int opened;
+        int orientationTag;
+        byte[] tagged;
+
+        @Override
+        public Image open(byte[] image) {
+            opened++;
+            return this.image;
+        }
+
+        @Override
+        public Image open(File image) {
+            opened++;
+            return this.image;
+        }
+
+        @Override
+        public byte[] withOrientationTag(byte[] jpeg, int orientationTag) {
+            this.orientationTag = orientationTag;
+            tagged = new byte[jpeg.length + 1];
+            return tagged;
+        }
+    }
+
+    /**
+     * Image of the given size and orientation, it records its transcode parameters
+     */
+    private static class FakeImage implements ImageCodec.Image {
+        private final int width;
+        private final int height;
+        private final int orientationTag;
+        private final int exifRotationDegrees;
+        private final int jpegSize;
+        int sampleSize;
+        int maxEdgeLength;
+        int rotationDegrees;
+        int jpegQuality;
+
+        FakeImage(int width, int height, int orientationTag, int exifRotationDegrees, int jpegSize) {
+            this.width = width;
+            this.height = height;
+            this.orientationTag = orientationTag;
+            this.exifRotationDegrees = exifRotationDegrees;
+            this.jpegSize = jpegSize;
+        }
+
+        @Override
+        public int getOrientationTag() {
+            return orientationTag;
+        }
+
+        @Override
+        public int getRotationDegrees() {
+            return exifRotationDegrees;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public byte[] transcode(int sampleSize, int maxEdgeLength, int rotationDegrees, int jpegQuality) {
+            this.sampleSize = sampleSize;
+            this.maxEdgeLength = maxEdgeLength;
+            this.rotationDegrees = rotationDegrees;
+            this.jpegQuality = jpegQuality;
+            return new byte[jpegSize];
+        }
+    }
+}
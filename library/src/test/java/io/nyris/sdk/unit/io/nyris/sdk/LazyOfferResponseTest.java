@@ -0,0 +1,109 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * LazyOfferResponseTest.java - Unit tests for {@link LazyOfferResponse}.
+ * Verify the offers are indexed from the raw bytes and decoded once, on access.
+ */
+public class LazyOfferResponseTest {
+    private static final String RESPONSE = "{ \"id\" : \"request\", \"took\": [1, {\"a\": \"]}\"}],"
+            + "\"results\":[ {\"oid\":\"1\",\"title\":\"Äpfel \\\"grün\\\" 🍏\",\"links\":{\"main\":\"m\"}},"
+            + "null, {\"oid\":\"2\",\"score\":0.5,\"keywords\":[\"{\",\"[\"]} ],"
+            + "\"session\":\"session\",\"predicted_category\":{\"fruits\":0.75}}";
+
+    private final Gson gson = new Gson();
+    private final AtomicInteger decodeCount = new AtomicInteger();
+    private final TypeAdapter<Offer> countingAdapter = new TypeAdapter<Offer>() {
+        @Override
+        public void write(JsonWriter out, Offer value) {
+        }
+
+        @Override
+        public Offer read(JsonReader in) throws IOException {
+            decodeCount.incrementAndGet();
+            return OfferTypeAdapter.ALL_FIELDS.read(in);
+        }
+    };
+
+    @Test
+    public void parse_shouldIndexOffersAndDecodeRequestFields() {
+        LazyOfferResponse response = parse(RESPONSE);
+
+        assertEquals("request", response.getRequestId());
+        assertEquals("session", response.getSessionId());
+        assertEquals(0.75F, response.getPredictedCategories().get("fruits"), 0F);
+        assertEquals(2, response.getSize());
+        assertEquals(0, decodeCount.get());
+    }
+
+    @Test
+    public void get_shouldDecodeOfferOnceOnAccess() {
+        LazyOfferResponse response = parse(RESPONSE);
+
+        Offer second = response.get(1);
+        assertEquals("2", second.getId());
+        assertEquals(1, decodeCount.get());
+
+        assertSame(second, response.get(1));
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    public void toOfferResponse_shouldMatchFullDecoding() {
+        OfferResponse expected = gson.fromJson(RESPONSE.replace("null, ", ""), OfferResponse.class);
+
+        OfferResponse offerResponse = parse(RESPONSE).toOfferResponse();
+
+        assertEquals(expected, offerResponse);
+        assertEquals("Äpfel \"grün\" 🍏", offerResponse.getOffers().get(0).getTitle());
+    }
+
+    @Test
+    public void parse_shouldHandleMissingAndNullResults() {
+        assertEquals(0, parse("{}").getSize());
+        assertEquals(0, parse("{\"results\":null}").getSize());
+        assertEquals(0, parse("{\"results\":[]}").getSize());
+        assertNull(parse("{\"results\":[]}").getRequestId());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parse_shouldFailOnTruncatedResponse() {
+        parse("{\"results\":[{\"oid\":\"1\"}");
+    }
+
+    @Test
+    public void convertResponseBodyBasedOnType_shouldReturnLazyOfferResponse() {
+        LazyOfferResponse response = new Api(new ApiHeader("", "", "", "", ""))
+                .convertResponseBodyBasedOnType(
+                        Single.just(ResponseBody.create(RESPONSE, MediaType.parse("application/json"))),
+                        LazyOfferResponse.class,
+                        gson
+                )
+                .blockingGet();
+
+        assertEquals("1", response.getOffers().get(0).getId());
+    }
+
+    private LazyOfferResponse parse(String json) {
+        return LazyOfferResponse.Companion.parse(json.getBytes(StandardCharsets.UTF_8), countingAdapter);
+    }
+}
@@ -0,0 +1,89 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import kotlin.Unit;
+
+/**
+ * MatchRequestTest.java - Unit tests for {@link MatchRequest}.
+ * Verify the X-Options and the headers are computed when the request is built, and a built request doesn't
+ * change with its builder.
+ */
+public class MatchRequestTest {
+    private static final String OUTPUT_FORMAT = "application/offers.complete+json";
+
+    @Test
+    public void build_shouldComputeTheXOptionsAndTheHeaders() {
+        MatchRequest request = builder()
+                .exact()
+                .similarity(options -> {
+                    options.setEnabled(true);
+                    options.setLimit(10);
+                    return Unit.INSTANCE;
+                })
+                .limit(50)
+                .build();
+
+        assertEquals("exact +similarity similarity.limit=10 limit=50", request.getXOptions());
+        assertEquals(request.getXOptions(), request.getHeaders().get("X-Options"));
+        assertEquals(OUTPUT_FORMAT + "; charset=UTF-8", request.getHeaders().get("Accept"));
+        assertEquals("de", request.getHeaders().get("Accept-Language"));
+    }
+
+    @Test
+    public void build_shouldNotChangeTheBuiltRequest() {
+        MatchRequest.Builder builder = builder()
+                .similarity()
+                .filters(options -> {
+                    options.setList(Collections.singletonList(new Filter("color", Arrays.asList("red"))));
+                    return Unit.INSTANCE;
+                });
+        MatchRequest first = builder.build();
+
+        MatchRequest second = builder
+                .limit(30)
+                .deadline(1, TimeUnit.SECONDS)
+                .priority(RequestPriority.BACKGROUND)
+                .build();
+
+        assertEquals("similarity", first.getXOptions());
+        assertEquals(null, first.getDeadlineMillis());
+        assertEquals(RequestPriority.INTERACTIVE, first.getPriority());
+        assertEquals("similarity limit=30", second.getXOptions());
+        assertEquals(Long.valueOf(1_000L), second.getDeadlineMillis());
+        assertEquals(1, first.getFilters().size());
+    }
+
+    @Test
+    public void build_shouldNotSendAnEmptyXOptionsHeader() {
+        MatchRequest request = builder().build();
+
+        assertEquals("", request.getXOptions());
+        assertFalse(request.getHeaders().containsKey("X-Options"));
+    }
+
+    @Test
+    public void build_shouldFailWhenRegroupingWithoutAStage() {
+        try {
+            builder().regroup().build();
+            fail("The regrouping needs a matching stage");
+        } catch (IllegalStateException e) {
+            assertEquals(
+                    "To use the regrouping feature, you need to enable one of this stages : exact, similarity, ocr.",
+                    e.getMessage()
+            );
+        }
+    }
+
+    private MatchRequest.Builder builder() {
+        return new MatchRequest.Builder(OUTPUT_FORMAT, "de", EmbeddingEncoder.FLOAT32);
+    }
+}
@@ -0,0 +1,95 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * MatchResultCacheTest.java - Unit tests for {@link MatchResultCache}.
+ * Verify a repeated image is served from the memory and disk tiers without hitting the network.
+ */
+public class MatchResultCacheTest {
+    private static final String RESPONSE = "{\"results\":[]}";
+    private final AtomicInteger networkCalls = new AtomicInteger();
+    private final Single<ResponseBody> network = Single.fromCallable(() -> {
+        networkCalls.incrementAndGet();
+        return ResponseBody.create(RESPONSE, MediaType.parse("application/json"));
+    });
+
+    @Test
+    public void getOrFetch_shouldServeRepeatedImageFromMemory() throws IOException {
+        MatchResultCache cache = new MatchResultCache(config(null));
+        byte[] image = new byte[]{1, 2, 3};
+
+        assertEquals(RESPONSE, fetch(cache, image, headers("*")));
+        assertEquals(RESPONSE, fetch(cache, image, headers("*")));
+
+        assertEquals(1, networkCalls.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(RESPONSE.length(), stats.getMemoryBytes());
+    }
+
+    @Test
+    public void getOrFetch_shouldMissOnDifferentImageOrOptions() throws IOException {
+        MatchResultCache cache = new MatchResultCache(config(null));
+
+        fetch(cache, new byte[]{1, 2, 3}, headers("*"));
+        fetch(cache, new byte[]{1, 2, 4}, headers("*"));
+        fetch(cache, new byte[]{1, 2, 3}, headers("de"));
+
+        assertEquals(3, networkCalls.get());
+        assertEquals(0, cache.stats().getHitCount());
+    }
+
+    @Test
+    public void getOrFetch_shouldServeRepeatedImageFromDisk() throws IOException {
+        File directory = Files.createTempDirectory("cache").toFile();
+        byte[] image = new byte[]{1, 2, 3};
+
+        fetch(new MatchResultCache(config(directory)), image, headers("*"));
+        // A new instance has an empty memory tier, as after a process restart
+        MatchResultCache cache = new MatchResultCache(config(directory));
+
+        assertEquals(RESPONSE, fetch(cache, image, headers("*")));
+        assertEquals(1, networkCalls.get());
+        assertEquals(RESPONSE.length(), cache.stats().getDiskBytes());
+    }
+
+    private String fetch(
+            MatchResultCache cache,
+            byte[] image,
+            Map<String, String> headers
+    ) throws IOException {
+        List<Filter> filters = Collections.emptyList();
+        return cache.getOrFetch(image, headers, filters, network).blockingGet().string();
+    }
+
+    private NyrisConfig config(File cacheDirectory) {
+        NyrisConfig config = new NyrisConfig();
+        config.setMatchCache(new MatchCacheConfig());
+        config.setCacheDirectory(cacheDirectory);
+        return config;
+    }
+
+    private Map<String, String> headers(String language) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Api-Key", "API_KEY");
+        headers.put("Accept-Language", language);
+        return headers;
+    }
+}
@@ -0,0 +1,236 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * ModelTypeAdaptersTest.java - Unit tests for {@link ModelTypeAdapterFactory}.
+ * Compare the decoded models with the reflective Gson decoding, and the projected decoding with the
+ * full decoding.
+ */
+public class ModelTypeAdaptersTest {
+    private static final String OFFER_RESPONSE = "{"
+            + "\"id\":\"request\",\"session\":\"session\",\"took\":12,"
+            + "\"predicted_category\":{\"shoes\":0.75,\"bags\":0.25},"
+            + "\"results\":[{"
+            + "\"oid\":\"oid\",\"title\":\"title\",\"descriptionShort\":\"short\","
+            + "\"descriptionLong\":\"long\",\"language\":\"de\",\"brand\":\"brand\","
+            + "\"catalogNumbers\":[\"1\",\"2\"],\"customIds\":{\"ean\":\"4006381333931\"},"
+            + "\"keywords\":[\"k\"],\"categories\":[\"c1\",\"c2\"],\"availability\":\"in stock\","
+            + "\"feedId\":\"feed\",\"groupId\":\"group\",\"price\":\"9.99 EUR\",\"salePrice\":\"7.99 EUR\","
+            + "\"links\":{\"main\":\"https://main\",\"mobile\":\"https://mobile\",\"other\":\"x\"},"
+            + "\"images\":[\"https://image\"],\"metadata\":\"meta\",\"sku\":\"sku\",\"score\":0.5,"
+            + "\"unknown\":{\"nested\":[1,2,3]}"
+            + "},{\"oid\":\"second\",\"score\":\"0.25\"}]"
+            + "}";
+    private static final String OBJECT_LIST = "{\"regions\":["
+            + "{\"confidence\":0.9,\"region\":{\"left\":1,\"top\":2.5,\"right\":30,\"bottom\":40.25}},"
+            + "{\"confidence\":0.1}"
+            + "]}";
+
+    private final Gson reflectiveGson = new Gson();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    @Test
+    public void offerResponse_shouldDecodeLikeReflectiveGson() {
+        assertEquals(
+                reflectiveGson.fromJson(OFFER_RESPONSE, OfferResponse.class),
+                gson.fromJson(OFFER_RESPONSE, OfferResponse.class)
+        );
+    }
+
+    @Test
+    public void objectList_shouldDecodeLikeReflectiveGson() {
+        assertEquals(
+                reflectiveGson.fromJson(OBJECT_LIST, ObjectList.class),
+                gson.fromJson(OBJECT_LIST, ObjectList.class)
+        );
+    }
+
+    @Test
+    public void offerResponse_shouldEncodeLikeReflectiveGson() {
+        OfferResponse offerResponse = reflectiveGson.fromJson(OFFER_RESPONSE, OfferResponse.class);
+
+        assertEquals(reflectiveGson.toJson(offerResponse), gson.toJson(offerResponse));
+    }
+
+    @Test
+    public void objectList_shouldEncodeLikeReflectiveGson() {
+        ObjectList objectList = reflectiveGson.fromJson(OBJECT_LIST, ObjectList.class);
+
+        assertEquals(reflectiveGson.toJson(objectList), gson.toJson(objectList));
+    }
+
+    @Test
+    public void offerResponse_shouldKeepDefaultsForNullValues() {
+        OfferResponse offerResponse = gson.fromJson(
+                "{\"id\":null,\"predicted_category\":null,\"results\":[null,{\"score\":null}]}",
+                OfferResponse.class
+        );
+
+        assertNull(offerResponse.getRequestId());
+        assertEquals(0, offerResponse.getPredictedCategories().size());
+        assertEquals(1, offerResponse.getOffers().size());
+        assertEquals(0F, offerResponse.getOffers().get(0).getScore(), 0F);
+    }
+
+    @Test
+    public void offerResponse_shouldDecodeOnlyProjectedFields() {
+        EnumSet<OfferField> fields = EnumSet.of(OfferField.ID, OfferField.IMAGES, OfferField.SCORE);
+
+        OfferResponse offerResponse = decode(OfferResponseTypeAdapter.Companion.of(fields), OFFER_RESPONSE);
+
+        Offer offer = offerResponse.getOffers().get(0);
+        assertEquals("oid", offer.getId());
+        assertEquals(Collections.singletonList("https://image"), offer.getImages());
+        assertEquals(0.5F, offer.getScore(), 0F);
+        assertNull(offer.getTitle());
+        assertNull(offer.getDescriptionLong());
+        assertNull(offer.getCustomIds());
+        assertNull(offer.getLinks());
+        // The request level fields are not projected
+        assertEquals("request", offerResponse.getRequestId());
+        assertEquals(2, offerResponse.getPredictedCategories().size());
+    }
+
+    @Test
+    public void offerResponse_shouldDecodeEveryOfferWithTheProjectedFields() {
+        EnumSet<OfferField> fields = EnumSet.of(
+                OfferField.ID, OfferField.TITLE, OfferField.IMAGES, OfferField.PRICE, OfferField.SCORE
+        );
+        for (int size : new int[]{100, 1000}) {
+            String json = offerResponse(size);
+            OfferResponseTypeAdapter full = OfferResponseTypeAdapter.Companion.of(null);
+            OfferResponseTypeAdapter projected = OfferResponseTypeAdapter.Companion.of(fields);
+
+            OfferResponse fullResponse = decode(full, json);
+            OfferResponse projectedResponse = decode(projected, json);
+
+            assertEquals(size, projectedResponse.getOffers().size());
+            Offer fullOffer = fullResponse.getOffers().get(size - 1);
+            Offer projectedOffer = projectedResponse.getOffers().get(size - 1);
+            assertEquals(fullOffer.getId(), projectedOffer.getId());
+            assertEquals(fullOffer.getTitle(), projectedOffer.getTitle());
+            assertEquals(fullOffer.getImages(), projectedOffer.getImages());
+            assertNull(projectedOffer.getBrand());
+        }
+    }
+
+    @Test
+    public void offerResponse_shouldShareRepeatedValuesThroughThePool() {
+        Gson pooledGson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(new StringPool(64)))
+                .create();
+
+        Offer first = pooledGson.fromJson(OFFER_RESPONSE, OfferResponse.class).getOffers().get(0);
+        Offer second = pooledGson.fromJson(OFFER_RESPONSE, OfferResponse.class).getOffers().get(0);
+        Offer unpooled = gson.fromJson(OFFER_RESPONSE, OfferResponse.class).getOffers().get(0);
+
+        assertEquals(unpooled, second);
+        assertSame(first.getBrand(), second.getBrand());
+        assertSame(first.getLanguage(), second.getLanguage());
+        assertSame(first.getAvailability(), second.getAvailability());
+        assertSame(first.getFeedId(), second.getFeedId());
+        assertSame(first.getCategories().get(0), second.getCategories().get(0));
+        assertSame(first.getCustomIds().keySet().iterator().next(), second.getCustomIds().keySet().iterator().next());
+        // Unique values are not pooled
+        assertNotSame(first.getTitle(), second.getTitle());
+    }
+
+    @Test
+    public void offerAdapter_shouldShareThePoolWithTheFieldMask() throws IOException {
+        Gson pooledGson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(new StringPool(64)))
+                .create();
+        String json = "{\"brand\":\"brand\",\"title\":\"title\"}";
+
+        Offer full = pooledGson.fromJson(json, Offer.class);
+        Offer projected = OfferTypeAdapter.Companion.of(pooledGson, EnumSet.of(OfferField.BRAND)).fromJson(json);
+
+        assertSame(full.getBrand(), projected.getBrand());
+        assertNull(projected.getTitle());
+        assertNull(pooledGson.fromJson("null", Offer.class));
+    }
+
+    @Test
+    public void offer_shouldDecodeEmptyCollectionsAsSharedInstances() {
+        String json = "{\"keywords\":[],\"catalogNumbers\":[],\"customIds\":{}}";
+        Offer first = gson.fromJson(json, Offer.class);
+        Offer second = gson.fromJson(json, Offer.class);
+
+        assertEquals(Collections.emptyList(), first.getKeywords());
+        assertSame(first.getKeywords(), second.getKeywords());
+        assertSame(first.getKeywords(), second.getCatalogNumbers());
+        assertEquals(Collections.emptyMap(), first.getCustomIds());
+        assertSame(first.getCustomIds(), second.getCustomIds());
+    }
+
+    @Test
+    public void offerResponse_shouldRetainLessWithThePool() {
+        String json = offerResponse(1000);
+        OfferResponseTypeAdapter pooled = new OfferResponseTypeAdapter(new OfferTypeAdapter(null, new StringPool(64)));
+
+        long full = retainedChars(decode(OfferResponseTypeAdapter.ALL_FIELDS, json));
+        long shared = retainedChars(decode(pooled, json));
+
+        assertTrue(shared < full);
+    }
+
+    @Test
+    public void warmUp_shouldDecodeSampleResponses() {
+        ModelTypeAdapterFactory.warmUp(gson);
+    }
+
+    private String offerResponse(int size) {
+        String offer = OFFER_RESPONSE.substring(OFFER_RESPONSE.indexOf("[{") + 1, OFFER_RESPONSE.indexOf("},{") + 1);
+        StringBuilder json = new StringBuilder("{\"id\":\"request\",\"results\":[");
+        for (int i = 0; i < size; i++) {
+            json.append(i == 0 ? "" : ",").append(offer);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Count the chars of the distinct string instances of the pooled fields
+     */
+    private long retainedChars(OfferResponse offerResponse) {
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Offer offer : offerResponse.getOffers()) {
+            strings.add(offer.getBrand());
+            strings.add(offer.getLanguage());
+            strings.add(offer.getAvailability());
+            strings.add(offer.getFeedId());
+            strings.addAll(offer.getCategories());
+            strings.addAll(offer.getCustomIds().keySet());
+        }
+        long chars = 0;
+        for (String string : strings) {
+            chars += string.length();
+        }
+        return chars;
+    }
+
+    private OfferResponse decode(OfferResponseTypeAdapter adapter, String json) {
+        try {
+            return adapter.fromJson(json);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.nyris.sdk;
 
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,9 +41,7 @@ public class NotFoundMatchingApiTest extends BaseTest {
         super.setUp();
         notFoundMatchingApi = new NotFoundMatchingApi(
                 notFoundMatchingService,
-                sdkScheduler,
-                apiHeader,
-                endpoints
+                apiHeader
         );
     }
 
@@ -106,4 +105,19 @@ public class NotFoundMatchingApiTest extends BaseTest {
         testObserver.assertError(IOException.class);
     }
 
+    @Test
+    public void markAsNotFound_shouldSendThePriorityOfTheCall() {
+        when(notFoundMatchingService.markAsNotFound(anyString(), anyMap()))
+                .thenReturn(Single.just(ResponseBody.create(emptyResponse, MediaType.parse("application/json"))));
+
+        // When the calls are sent with their own priority
+        notFoundMatchingApi.markAsNotFound(requestId, RequestPriority.INTERACTIVE).test();
+        notFoundMatchingApi.markAsNotFound(requestId).test();
+
+        // Then only the default call is sent with the background pool
+        verify(notFoundMatchingService, times(1))
+                .markAsNotFound(anyString(), argThat(headers -> !headers.containsKey(BulkheadCallFactory.HEADER)));
+        verify(notFoundMatchingService, times(1))
+                .markAsNotFound(anyString(), argThat(headers -> headers.containsKey(BulkheadCallFactory.HEADER)));
+    }
 }
@@ -0,0 +1,168 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+import kotlinx.coroutines.CoroutineStart;
+import kotlinx.coroutines.Deferred;
+import kotlinx.coroutines.Dispatchers;
+import kotlinx.coroutines.GlobalScope;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * NyrisCoroutinesTest.java - Unit tests for the suspend extensions of the apis.
+ * Verify a suspended call returns the response without the Rx call adapter, and cancelling its coroutine cancels
+ * the http call while the image is uploading.
+ * Verify the deadline cancels the http call and a closeable result converted after the cancellation is closed.
+ */
+public class NyrisCoroutinesTest extends BaseTest {
+    private final MockWebServer server = new MockWebServer();
+    private final OkHttpClient client = new OkHttpClient();
+    private final Gson gson = new Gson();
+    private ImageMatchingApi imageMatchingApi;
+
+    @Before
+    @Override
+    public void setUp() {
+        super.setUp();
+        ImageMatchingService service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .build()
+                .create(ImageMatchingService.class);
+        imageMatchingApi = new ImageMatchingApi(
+                service,
+                "application/offers.complete+json",
+                "en",
+                gson,
+                apiHeader,
+                new ImagePreprocessor(new NyrisConfig()),
+                EmbeddingEncoder.FLOAT32,
+                new MatchResultCache(new NyrisConfig()),
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new NyrisConfig())
+        );
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void awaitMatch_shouldReturnTheResponse() throws Exception {
+        server.enqueue(new MockResponse().setBody(gson.toJson(getOfferResponseBody())));
+        MatchRequest request = imageMatchingApi.newRequest().build();
+
+        OfferResponse response = (OfferResponse) BuildersKt.runBlocking(
+                EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> NyrisCoroutinesKt.awaitMatch(
+                        imageMatchingApi, request, new byte[]{1, 2, 3}, continuation
+                )
+        );
+
+        assertEquals(OFFERS_SIZE, response.getOffers().size());
+    }
+
+    @Test
+    public void awaitMatch_shouldCancelTheCallWhileUploading() throws Exception {
+        // The server reads the image slowly, so the upload lasts longer than the test
+        server.enqueue(new MockResponse().setBody("{}").throttleBody(64 * 1024, 1, TimeUnit.SECONDS));
+        MatchRequest request = imageMatchingApi.newRequest().build();
+        byte[] image = new byte[8 * 1024 * 1024];
+
+        Deferred<OfferResponse> deferred = BuildersKt.async(
+                GlobalScope.INSTANCE,
+                Dispatchers.getUnconfined(),
+                CoroutineStart.DEFAULT,
+                (scope, continuation) -> NyrisCoroutinesKt.awaitMatch(imageMatchingApi, request, image, continuation)
+        );
+        while (client.dispatcher().runningCallsCount() == 0) {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(200L);
+        deferred.cancel(null);
+
+        assertTrue(deferred.isCancelled());
+        assertEquals(0, awaitRunningCallsCount());
+    }
+
+    @Test
+    public void awaitMatch_shouldThrowTimeoutAfterTheDeadline() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(2, TimeUnit.SECONDS));
+        MatchRequest request = imageMatchingApi.newRequest().deadline(100L, TimeUnit.MILLISECONDS).build();
+
+        try {
+            BuildersKt.runBlocking(
+                    EmptyCoroutineContext.INSTANCE,
+                    (scope, continuation) -> NyrisCoroutinesKt.awaitMatch(
+                            imageMatchingApi, request, new byte[]{1, 2, 3}, continuation
+                    )
+            );
+            fail("The call should time out");
+        } catch (Exception e) {
+            assertTrue(e instanceof NyrisTimeoutException);
+        }
+        assertEquals(0, awaitRunningCallsCount());
+    }
+
+    @Test
+    public void awaitCall_shouldCloseTheResultConvertedAfterCancellation() {
+        @SuppressWarnings("unchecked")
+        Call<ResponseBody> call = mock(Call.class);
+        AtomicBoolean closed = new AtomicBoolean();
+        Closeable result = () -> closed.set(true);
+
+        Deferred<Closeable> deferred = BuildersKt.async(
+                GlobalScope.INSTANCE,
+                Dispatchers.getUnconfined(),
+                CoroutineStart.DEFAULT,
+                (scope, continuation) -> imageMatchingApi.awaitCall(call, body -> result, continuation)
+        );
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Callback<ResponseBody>> callback = ArgumentCaptor.forClass(Callback.class);
+        verify(call).enqueue(callback.capture());
+        deferred.cancel(null);
+        // The response arrives after the cancellation, the coroutine can't return its result
+        callback.getValue().onResponse(call, Response.success(ResponseBody.create(new byte[0], null)));
+
+        verify(call).cancel();
+        assertTrue(deferred.isCancelled());
+        assertTrue(closed.get());
+    }
+
+    /**
+     * The cancelled calls end on the dispatcher threads, wait for them
+     */
+    private int awaitRunningCallsCount() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (client.dispatcher().runningCallsCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        return client.dispatcher().runningCallsCount();
+    }
+}
@@ -43,9 +43,9 @@ public class RegionsApiTest extends BaseTest {
         super.setUp();
         objectProposalApi = new RegionsApi(
                 objectProposalService,
-                sdkScheduler,
                 apiHeader,
-                endpoints
+                new ImagePreprocessor(new NyrisConfig()),
+                new SingleFlight(new NyrisConfig())
         );
     }
 
@@ -61,22 +61,22 @@ public class RegionsApiTest extends BaseTest {
     public void extractObjects_shouldReturnOfferResponseBody() {
         // Get an instance of List of ObjectProposal
         List<Object> objectProposals = getObjectProposalList();
-        when(objectProposalService.detect(anyString(), anyMap(), any()))
-                .thenReturn(Single.just(objectProposals));
+        when(objectProposalService.detect(anyMap(), any()))
+                .thenReturn(Single.just(new ObjectList(objectProposals)));
 
         // When Object Proposal Api is asked to extract object from image byte array
-        TestObserver<List<Object>> testObserver = objectProposalApi
+        TestObserver<ObjectList> testObserver = objectProposalApi
                 .detect(new byte[]{})
                 .test();
 
         // Verify extractObjects method called once
         verify(objectProposalService, times(1))
-                .detect(anyString(), anyMap(), any());
+                .detect(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
         testObserver.assertValue(Objects::nonNull);
-        testObserver.assertValue(r -> r.size() == OBJECTS_SIZE);
+        testObserver.assertValue(r -> Objects.requireNonNull(r.getRegions()).size() == OBJECTS_SIZE);
     }
 
     @Test
@@ -89,11 +89,11 @@ public class RegionsApiTest extends BaseTest {
         );
 
         // Get an instance of HttpException
-        when(objectProposalService.detect(anyString(), anyMap(), any()))
+        when(objectProposalService.detect(anyMap(), any()))
                 .thenReturn(Single.error(httpException));
 
         // When Object Proposal Api is asked to extract object from image byte array
-        TestObserver<List<Object>> testObserver = objectProposalApi
+        TestObserver<ObjectList> testObserver = objectProposalApi
                 .detect(new byte[]{})
                 .test();
 
@@ -104,11 +104,11 @@ public class RegionsApiTest extends BaseTest {
     @Test
     public void extractObjects_shouldTerminatedWithIOError() {
         // Get an instance of IOException
-        when(objectProposalService.detect(anyString(), anyMap(), any()))
+        when(objectProposalService.detect(anyMap(), any()))
                 .thenReturn(Single.error(new IOException()));
 
         // When Object Proposal Api is asked to extract object from image byte array
-        TestObserver<List<Object>> testObserver = objectProposalApi
+        TestObserver<ObjectList> testObserver = objectProposalApi
                 .detect(new byte[]{})
                 .test();
 
@@ -0,0 +1,157 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+import kotlin.random.RandomKt;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * RetryInterceptorTest.java - Unit tests for {@link RetryInterceptor}.
+ * Verify only the retryable failures are retried, after the backoff or the Retry-After delay, within the
+ * retry budget, and the failed responses are closed so their connection is reused.
+ */
+public class RetryInterceptorTest {
+    private final MockWebServer server = new MockWebServer();
+    private final List<Long> delays = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void intercept_shouldRetryRetryableStatusOnTheSameConnection() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("unavailable"));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        // The failed response was closed, its connection is reused
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(1, delays.size());
+        assertTrue(delays.get(0) <= RetryPolicyConfig.INITIAL_BACKOFF_MILLIS);
+    }
+
+    @Test
+    public void intercept_shouldNotRetryClientErrors() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        assertEquals(400, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void intercept_shouldRetryIoErrors() throws IOException {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(1, delays.size());
+    }
+
+    @Test
+    public void intercept_shouldWaitTheRetryAfterDelay() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "2"));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        assertEquals(200, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(Collections.singletonList(2000L), delays);
+    }
+
+    @Test
+    public void intercept_shouldNotRetryLongerRetryAfterDelay() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "3600"));
+
+        assertEquals(503, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void intercept_shouldNotRetryOverflowingRetryAfterDelay() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", Long.MAX_VALUE / 10));
+
+        assertEquals(429, call(client(3, new RetryBudget(0.1, 10))));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, delays.size());
+    }
+
+    @Test
+    public void intercept_shouldStopRetryingWhenTheBudgetIsSpent() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        OkHttpClient client = client(3, new RetryBudget(0.1, 1));
+
+        assertEquals(503, call(client));
+        assertEquals(503, call(client));
+
+        // One retry for the first call, none for the second one
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void intercept_shouldGrowTheBackoffBound() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        assertEquals(500, call(client(4, new RetryBudget(0.1, 10))));
+
+        assertEquals(3, delays.size());
+        long bound = RetryPolicyConfig.INITIAL_BACKOFF_MILLIS;
+        for (long delay : delays) {
+            assertTrue(delay >= 0 && delay <= bound);
+            bound *= 2;
+        }
+    }
+
+    private OkHttpClient client(int retryCount, RetryBudget budget) {
+        RetryInterceptor interceptor = new RetryInterceptor(
+                retryCount,
+                new RetryPolicyConfig(),
+                budget,
+                RandomKt.Random(42),
+                (millis, call) -> {
+                    delays.add(millis);
+                    return Unit.INSTANCE;
+                }
+        );
+        return new OkHttpClient.Builder()
+                .addInterceptor(interceptor)
+                .build();
+    }
+
+    private int call(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            return response.code();
+        }
+    }
+}
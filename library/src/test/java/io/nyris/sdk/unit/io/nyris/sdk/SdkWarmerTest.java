@@ -0,0 +1,154 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import retrofit2.Retrofit;
+
+/**
+ * SdkWarmerTest.java - Unit tests for {@link SdkWarmer}.
+ * Verify the warm up opens the TLS connection used by the first request, against a local https server.
+ * Verify the connection request is not retried.
+ */
+public class SdkWarmerTest {
+    private final ClientModule clientModule = new ClientModule();
+    private final Gson gson = clientModule.provideGson(new NyrisConfig());
+    private final MockWebServer server = new MockWebServer();
+    private HandshakeCertificates clientCertificates;
+
+    @Before
+    public void setUp() throws IOException {
+        HeldCertificate certificate = new HeldCertificate.Builder()
+                .addSubjectAlternativeName(server.getHostName())
+                .build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(certificate)
+                .build();
+        clientCertificates = new HandshakeCertificates.Builder()
+                .addTrustedCertificate(certificate.certificate())
+                .build();
+        server.useHttps(serverCertificates.sslSocketFactory(), false);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void warmUp_shouldOpenTheConnectionOfTheFirstRequest() throws InterruptedException {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = client();
+        SimilarityService service = retrofit(client).create(SimilarityService.class);
+
+        warmer(client, service).warmUp().blockingAwait();
+        service.getBySku("sku", Collections.emptyMap()).blockingGet().close();
+
+        assertEquals("HEAD", server.takeRequest().getMethod());
+        // The first request is the second one sent on the warmed connection
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(1, client.connectionPool().connectionCount());
+    }
+
+    @Test
+    public void warmUp_shouldSkipTheConnectionAndHandshakeOfTheFirstRequest() {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse().setBody("{}"));
+        AtomicInteger connects = new AtomicInteger();
+        AtomicInteger handshakes = new AtomicInteger();
+        OkHttpClient client = client().newBuilder()
+                .eventListener(new EventListener() {
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+                        connects.incrementAndGet();
+                    }
+
+                    @Override
+                    public void secureConnectStart(Call call) {
+                        handshakes.incrementAndGet();
+                    }
+                })
+                .build();
+        SimilarityService service = retrofit(client).create(SimilarityService.class);
+
+        warmer(client, service).warmUp().blockingAwait();
+        assertEquals(1, connects.get());
+        assertEquals(1, handshakes.get());
+
+        service.getBySku("sku", Collections.emptyMap()).blockingGet().close();
+        assertEquals(1, connects.get());
+        assertEquals(1, handshakes.get());
+    }
+
+    @Test
+    public void warmUp_shouldNotRetryTheConnectionRequest() {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        OkHttpClient client = client().newBuilder()
+                .addInterceptor(new RetryInterceptor(2))
+                .build();
+        SimilarityService service = retrofit(client).create(SimilarityService.class);
+
+        warmer(client, service).warmUp().blockingAwait();
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void warmUp_shouldCompleteWhenTheHostIsUnreachable() throws IOException {
+        OkHttpClient client = client();
+        SimilarityService service = retrofit(client).create(SimilarityService.class);
+        SdkWarmer warmer = warmer(client, service);
+        server.shutdown();
+
+        warmer.warmUp().blockingAwait();
+
+        assertEquals(0, client.connectionPool().connectionCount());
+    }
+
+    private OkHttpClient client() {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool())
+                .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+                .build();
+    }
+
+    private Retrofit retrofit(OkHttpClient client) {
+        return clientModule.provideRetrofit(
+                server.url("/"),
+                clientModule.provideGsonConverterFactory(gson),
+                clientModule.provideRxJava2CallAdapterFactory(),
+                client,
+                new NyrisConfig()
+        );
+    }
+
+    private SdkWarmer warmer(OkHttpClient client, SimilarityService service) {
+        List<SimilarityService> services = Collections.singletonList(service);
+        return new SdkWarmer(gson, client, server.url("/"), services, Schedulers.trampoline(), Schedulers.trampoline());
+    }
+}
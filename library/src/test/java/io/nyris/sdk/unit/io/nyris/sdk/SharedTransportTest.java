@@ -0,0 +1,110 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * SharedTransportTest.java - Unit tests for {@link SharedTransport}.
+ * Verify the clients of the nyris instances share one connection pool, dispatcher and request pools, and
+ * the second instance reuses the connection opened by the first one.
+ */
+public class SharedTransportTest {
+    private final ClientModule clientModule = new ClientModule();
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void provideOkHttpClient_shouldShareThePoolAndDispatcher() {
+        OkHttpClient first = client(new NyrisConfig());
+        OkHttpClient second = client(new NyrisConfig());
+
+        assertSame(first.connectionPool(), second.connectionPool());
+        assertSame(first.dispatcher(), second.dispatcher());
+        assertSame(SharedTransport.INSTANCE.getClient().connectionPool(), first.connectionPool());
+    }
+
+    @Test
+    public void requestPools_shouldBeSharedByTheInstancesOfABaseClient() {
+        OkHttpClient baseClient = new OkHttpClient();
+        SharedTransport transport = SharedTransport.INSTANCE;
+        BulkheadCallFactory.RequestPools first = transport.requestPools(baseClient, new BulkheadConfig());
+        BulkheadCallFactory.RequestPools second = transport.requestPools(baseClient, new BulkheadConfig());
+
+        assertSame(first, second);
+        assertNotSame(first, transport.requestPools(new OkHttpClient(), new BulkheadConfig()));
+    }
+
+    @Test
+    public void provideOkHttpClient_shouldDeriveFromTheProvidedClient() {
+        ConnectionPool connectionPool = new ConnectionPool();
+        NyrisConfig config = new NyrisConfig();
+        config.setOkHttpClient(new OkHttpClient.Builder().connectionPool(connectionPool).build());
+
+        assertSame(connectionPool, client(config).connectionPool());
+    }
+
+    @Test
+    public void provideOkHttpClient_shouldShareTheCacheOfADirectory() throws IOException {
+        File directory = Files.createTempDirectory("cache").toFile();
+        NyrisConfig config = new NyrisConfig();
+        config.setCacheDirectory(directory);
+
+        assertSame(client(config).cache(), client(config).cache());
+    }
+
+    @Test
+    public void connectionStats_shouldCountTheReusedConnection() throws IOException {
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{}"));
+        ConnectionStats before = Nyris.connectionStats();
+
+        call(client(new NyrisConfig()));
+        call(client(new NyrisConfig()));
+
+        ConnectionStats after = Nyris.connectionStats();
+        assertEquals(2, after.getCallCount() - before.getCallCount());
+        assertEquals(1, after.getConnectionCount() - before.getConnectionCount());
+        assertEquals(1, after.getReusedConnectionCount() - before.getReusedConnectionCount());
+    }
+
+    private OkHttpClient client(NyrisConfig config) {
+        return clientModule.provideOkHttpClient(
+                config,
+                new HttpLoggingInterceptor(),
+                clientModule.provideRetryInterceptor(config),
+                new ConcurrencyLimiter(config)
+        );
+    }
+
+    private void call(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            assertEquals("{}", response.body().string());
+        }
+    }
+}
@@ -2,18 +2,23 @@ package io.nyris.sdk;
 
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.gson.Gson;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
@@ -47,9 +52,10 @@ public class SimilarityApiTest extends BaseTest {
                 "OUTPUT_FORMAT",
                 "OUTPUT_FORMAT",
                 gson,
-                sdkScheduler,
                 apiHeader,
-                endpoints
+                null,
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new NyrisConfig())
         );
     }
 
@@ -144,4 +150,86 @@ public class SimilarityApiTest extends BaseTest {
         testObserver.assertError(IOException.class);
     }
 
+    @Test
+    public void getBySku_shouldServeRepeatedSkuFromCache() {
+        OfferResponse offerResponse = getOfferResponseBody();
+        when(similarityService.getBySku(anyString(), anyMap()))
+                .thenReturn(Single.fromCallable(() -> ResponseBody.create(
+                        gson.toJson(offerResponse, OfferResponse.class),
+                        MediaType.parse("application/json")
+                )));
+        SimilarityApi cachedSimilarityApi = new SimilarityApi(
+                similarityService,
+                "OUTPUT_FORMAT",
+                "OUTPUT_FORMAT",
+                gson,
+                apiHeader,
+                new StaleWhileRevalidateCache<>(16, 60_000L, 60_000L),
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new NyrisConfig())
+        );
+
+        // When Similarity Api is asked twice for the same sku
+        cachedSimilarityApi.getBySku(sku).test().assertComplete();
+        TestObserver<OfferResponse> testObserver = cachedSimilarityApi.getBySku(sku).test();
+
+        // Then the second response is served from memory
+        verify(similarityService, times(1))
+                .getBySku(anyString(), anyMap());
+        testObserver.assertComplete();
+        testObserver.assertValue(r -> r.getOffers().size() == OFFERS_SIZE);
+    }
+
+    @Test
+    public void getBySku_shouldFailWithTimeoutAfterDeadline() {
+        AtomicBoolean disposed = new AtomicBoolean();
+        when(similarityService.getBySku(anyString(), anyMap()))
+                .thenReturn(Single.<ResponseBody>never().doOnDispose(() -> disposed.set(true)));
+
+        // When Similarity Api is asked for a sku that never responds
+        SimilarityRequest request = similarityApi.newRequest().deadline(100, TimeUnit.MILLISECONDS).build();
+        TestObserver<OfferResponse> testObserver = similarityApi
+                .getBySku(request, sku)
+                .test();
+
+        // Then the call is cancelled and fails with a timeout after its deadline
+        testObserver.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        testObserver.assertError(e -> e instanceof NyrisTimeoutException
+                && ((NyrisTimeoutException) e).getTimeoutMillis() == 100);
+        Assert.assertTrue(disposed.get());
+    }
+
+    @Test
+    public void deadline_shouldOnlyBoundTheCallsOfItsRequest() {
+        when(similarityService.getBySku(anyString(), anyMap()))
+                .thenReturn(Single.never());
+        SimilarityRequest request = similarityApi.newRequest().deadline(100, TimeUnit.MILLISECONDS).build();
+
+        TestObserver<OfferResponse> boundedObserver = similarityApi.getBySku(request, sku).test();
+        TestObserver<OfferResponse> testObserver = similarityApi.getBySku(sku).test();
+
+        boundedObserver.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        boundedObserver.assertError(NyrisTimeoutException.class);
+
+        testObserver.awaitTerminalEvent(300, TimeUnit.MILLISECONDS);
+        testObserver.assertNotTerminated();
+        testObserver.dispose();
+    }
+
+    @Test
+    public void getBySku_shouldSendThePriorityOfItsRequest() {
+        when(similarityService.getBySku(anyString(), anyMap()))
+                .thenReturn(Single.never());
+        SimilarityRequest request = similarityApi.newRequest().priority(RequestPriority.BACKGROUND).build();
+
+        // When a background request and a default call are sent
+        similarityApi.getBySku(request, sku).test();
+        similarityApi.getBySku("other", JsonResponseBody.class).test();
+
+        // Then only the call of the background request is sent with the background pool
+        verify(similarityService, times(1))
+                .getBySku(eq(sku), argThat(headers -> headers.containsKey(BulkheadCallFactory.HEADER)));
+        verify(similarityService, times(1))
+                .getBySku(eq("other"), argThat(headers -> !headers.containsKey(BulkheadCallFactory.HEADER)));
+    }
 }
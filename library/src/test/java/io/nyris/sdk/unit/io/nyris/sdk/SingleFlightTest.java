@@ -0,0 +1,129 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.SingleSubject;
+
+/**
+ * SingleFlightTest.java - Unit tests for {@link SingleFlight}.
+ * Verify identical concurrent calls share one request and the cancellation is reference counted.
+ */
+public class SingleFlightTest {
+    private final SingleFlight singleFlight = new SingleFlight(true, Schedulers.trampoline());
+    private final SingleSubject<String> response = SingleSubject.create();
+    private final AtomicInteger subscribeCount = new AtomicInteger();
+    private final AtomicBoolean disposed = new AtomicBoolean();
+    private final Single<String> source = response
+            .doOnSubscribe(d -> subscribeCount.incrementAndGet())
+            .doOnDispose(() -> disposed.set(true));
+
+    @Test
+    public void execute_shouldShareConcurrentIdenticalCalls() {
+        TestObserver<String> first = singleFlight.execute(() -> "key", source).test();
+        TestObserver<String> second = singleFlight.execute(() -> "key", source).test();
+
+        response.onSuccess("result");
+
+        assertEquals(1, subscribeCount.get());
+        first.assertValue("result");
+        second.assertValue("result");
+    }
+
+    @Test
+    public void execute_shouldStartNewRequestAfterCompletion() {
+        Single<Integer> counter = Single.fromCallable(subscribeCount::incrementAndGet);
+
+        singleFlight.execute(() -> "key", counter).test().assertValue(1);
+        singleFlight.execute(() -> "key", counter).test().assertValue(2);
+    }
+
+    @Test
+    public void execute_shouldNotShareDifferentKeys() {
+        singleFlight.execute(() -> "a", source).test();
+        singleFlight.execute(() -> "b", source).test();
+
+        assertEquals(2, subscribeCount.get());
+    }
+
+    @Test
+    public void execute_shouldCancelOnlyWhenLastSubscriberDisposes() {
+        TestObserver<String> first = singleFlight.execute(() -> "key", source).test();
+        TestObserver<String> second = singleFlight.execute(() -> "key", source).test();
+
+        first.dispose();
+        assertTrue(!disposed.get());
+
+        second.dispose();
+        assertTrue(disposed.get());
+
+        // The cancelled request is no longer shared
+        singleFlight.execute(() -> "key", source).test();
+        assertEquals(2, subscribeCount.get());
+    }
+
+    @Test
+    public void execute_shouldNotShareWhenDisabled() {
+        SingleFlight disabled = new SingleFlight(false, Schedulers.trampoline());
+
+        disabled.execute(() -> "key", source).test();
+        disabled.execute(() -> "key", source).test();
+
+        assertEquals(2, subscribeCount.get());
+    }
+
+    @Test
+    public void execute_shouldComputeTheKeyOnTheScheduler() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicInteger keyCount = new AtomicInteger();
+        SingleFlight scheduled = new SingleFlight(true, scheduler);
+
+        TestObserver<String> observer = scheduled.execute(() -> "key" + keyCount.incrementAndGet(), source).test();
+        assertEquals(0, keyCount.get());
+
+        scheduler.triggerActions();
+        response.onSuccess("result");
+
+        assertEquals(1, keyCount.get());
+        observer.assertValue("result");
+    }
+
+    @Test
+    public void key_shouldIgnoreContentLengthAndHeadersOrder() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Api-Key", "API_KEY");
+        headers.put("Accept-Language", "de");
+        Map<String, String> sameHeaders = new HashMap<>(headers);
+        sameHeaders.put("Content-Length", "42");
+
+        assertEquals(
+                SingleFlight.key("match", headers, new byte[]{1, 2}),
+                SingleFlight.key("match", sameHeaders, new byte[]{1, 2})
+        );
+        assertNotEquals(
+                SingleFlight.key("match", headers, new byte[]{1, 2}),
+                SingleFlight.key("match", headers, new byte[]{1, 3})
+        );
+        assertNotEquals(
+                SingleFlight.key("match", headers, new float[]{1F}),
+                SingleFlight.key("detect", headers, new float[]{1F})
+        );
+        assertNotEquals(
+                SingleFlight.key("match", Collections.emptyMap(), "ab", "c"),
+                SingleFlight.key("match", Collections.emptyMap(), "a", "bc")
+        );
+    }
+}
@@ -0,0 +1,76 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import kotlin.jvm.functions.Function0;
+
+/**
+ * StaleWhileRevalidateCacheTest.java - Unit tests for {@link StaleWhileRevalidateCache}.
+ * Verify fresh, stale and expired values with a manual clock.
+ */
+public class StaleWhileRevalidateCacheTest {
+    private static final long MAX_AGE = 1_000L;
+    private static final long STALE = 10_000L;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private final Single<Integer> fetch = Single.fromCallable(fetchCount::incrementAndGet);
+    private long now = 0L;
+    private final Function0<Long> clock = () -> now;
+    private final StaleWhileRevalidateCache<String, Integer> cache =
+            new StaleWhileRevalidateCache<>(2, MAX_AGE, STALE, Schedulers.trampoline(), clock);
+
+    @Test
+    public void get_shouldReturnFreshValueWithoutFetching() {
+        assertEquals(1, (int) cache.get("sku", fetch).blockingGet());
+        now += MAX_AGE;
+
+        assertEquals(1, (int) cache.get("sku", fetch).blockingGet());
+        assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void get_shouldReturnStaleValueAndRefreshInBackground() {
+        cache.get("sku", fetch).blockingGet();
+        now += MAX_AGE + 1;
+
+        // The stale value is returned while the refresh replaces it
+        assertEquals(1, (int) cache.get("sku", fetch).blockingGet());
+        assertEquals(2, fetchCount.get());
+        assertEquals(2, (int) cache.get("sku", fetch).blockingGet());
+        assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void get_shouldKeepStaleValueWhenRefreshFails() {
+        cache.get("sku", fetch).blockingGet();
+        now += MAX_AGE + 1;
+
+        assertEquals(1, (int) cache.get("sku", Single.error(new RuntimeException())).blockingGet());
+        assertEquals(1, (int) cache.get("sku", Single.error(new RuntimeException())).blockingGet());
+    }
+
+    @Test
+    public void get_shouldFetchExpiredValue() {
+        cache.get("sku", fetch).blockingGet();
+        now += MAX_AGE + STALE + 1;
+
+        assertEquals(2, (int) cache.get("sku", fetch).blockingGet());
+    }
+
+    @Test
+    public void get_shouldEvictLeastRecentlyUsedKey() {
+        cache.get("a", fetch).blockingGet();
+        cache.get("b", fetch).blockingGet();
+        cache.get("a", fetch).blockingGet();
+        cache.get("c", fetch).blockingGet();
+
+        // "b" was evicted, "a" is still cached
+        assertEquals(1, (int) cache.get("a", fetch).blockingGet());
+        assertEquals(4, (int) cache.get("b", fetch).blockingGet());
+    }
+}
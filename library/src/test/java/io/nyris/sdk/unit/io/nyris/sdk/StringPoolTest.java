@@ -0,0 +1,51 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * StringPoolTest.java - Unit tests for {@link StringPool}.
+ * Verify equal values share one instance and the pool stays bounded.
+ */
+public class StringPoolTest {
+    @Test
+    public void intern_shouldReturnPooledInstance() {
+        StringPool pool = new StringPool(2);
+        String brand = new String("brand");
+
+        assertSame(brand, pool.intern(brand));
+        assertSame(brand, pool.intern(new String("brand")));
+        assertEquals(1, pool.getSize());
+    }
+
+    @Test
+    public void intern_shouldEvictLeastRecentlyUsedValue() {
+        StringPool pool = new StringPool(2);
+        String first = new String("first");
+        pool.intern(first);
+        pool.intern("second");
+        pool.intern("first");
+
+        pool.intern("third");
+
+        assertEquals(2, pool.getSize());
+        assertSame(first, pool.intern(new String("first")));
+        String second = new String("second");
+        assertSame(second, pool.intern(second));
+    }
+
+    @Test
+    public void clear_shouldEmptyThePool() {
+        StringPool pool = new StringPool(2);
+        String brand = new String("brand");
+        pool.intern(brand);
+
+        pool.clear();
+
+        assertEquals(0, pool.getSize());
+        assertNotSame(brand, pool.intern(new String("brand")));
+    }
+}
@@ -48,9 +48,9 @@ public class TextSearchApiTest extends BaseTest {
                 "OUTPUT_FORMAT",
                 "OUTPUT_FORMAT",
                 gson,
-                sdkScheduler,
                 apiHeader,
-                endpoints
+                new SingleFlight(new NyrisConfig()),
+                new Hedging(new NyrisConfig())
         );
     }
 
@@ -63,7 +63,7 @@ public class TextSearchApiTest extends BaseTest {
                 MediaType.parse("application/json")
         );
 
-        when(textSearchService.searchOffers(anyString(), anyMap(), any()))
+        when(textSearchService.searchOffers(anyMap(), any()))
                 .thenReturn(Single.just(responseBody));
 
         // When Text Search Api is asked to search offers using keyword
@@ -73,7 +73,7 @@ public class TextSearchApiTest extends BaseTest {
 
         // Verify match method called once
         verify(textSearchService, times(1))
-                .searchOffers(anyString(), anyMap(), any());
+                .searchOffers(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
@@ -90,7 +90,7 @@ public class TextSearchApiTest extends BaseTest {
                 MediaType.parse("application/json")
         );
 
-        when(textSearchService.searchOffers(anyString(), anyMap(), any()))
+        when(textSearchService.searchOffers(anyMap(), any()))
                 .thenReturn(Single.just(responseBody));
 
         // When Text Search Api is asked to search offers using keyword
@@ -100,7 +100,7 @@ public class TextSearchApiTest extends BaseTest {
 
         // Verify match method was not called
         verify(textSearchService, times(1))
-                .searchOffers(anyString(), anyMap(), any());
+                .searchOffers(anyMap(), any());
 
         testObserver.assertComplete();
         testObserver.assertNoErrors();
@@ -118,7 +118,7 @@ public class TextSearchApiTest extends BaseTest {
                 )
         );
         // Given
-        when(textSearchService.searchOffers(anyString(), anyMap(), any()))
+        when(textSearchService.searchOffers(anyMap(), any()))
                 .thenReturn(Single.error(httpException));
 
         // When Text Search Api is asked to search offers using keyword
@@ -133,7 +133,7 @@ public class TextSearchApiTest extends BaseTest {
     @Test
     public void searchOffers_shouldTerminatedWithIOError() {
         // Get an instance of IOException
-        when(textSearchService.searchOffers(anyString(), anyMap(), any()))
+        when(textSearchService.searchOffers(anyMap(), any()))
                 .thenReturn(Single.error(new IOException()));
 
         // When Text Search Api is asked to search offers using keyword
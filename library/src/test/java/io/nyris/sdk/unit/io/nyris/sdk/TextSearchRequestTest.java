@@ -0,0 +1,37 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * TextSearchRequestTest.java - Unit tests for {@link TextSearchRequest}.
+ * Verify the X-Options are computed when the request is built, without resetting its builder.
+ */
+public class TextSearchRequestTest {
+
+    @Test
+    public void build_shouldComputeTheXOptions() {
+        TextSearchRequest request = new TextSearchRequest.Builder("application/offers.complete+json", "en")
+                .regroup()
+                .limit(50)
+                .build();
+
+        assertEquals("regroup limit=50", request.getXOptions());
+        assertEquals("regroup limit=50", request.getHeaders().get("X-Options"));
+    }
+
+    @Test
+    public void build_shouldKeepTheBuilderOptions() {
+        TextSearchRequest.Builder builder = new TextSearchRequest.Builder("application/offers.complete+json", "en")
+                .limit(50);
+
+        TextSearchRequest first = builder.build();
+        TextSearchRequest second = builder.fields(OfferField.TITLE).build();
+
+        assertEquals(first.getXOptions(), second.getXOptions());
+        assertNull(first.getFields());
+        assertEquals(1, second.getFields().size());
+    }
+}
@@ -0,0 +1,117 @@
+package io.nyris.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Invocation;
+
+/**
+ * TimeoutInterceptorTest.java - Unit tests for {@link TimeoutInterceptor}.
+ * Verify the timeouts of the called endpoint override the default ones, and the call timeout fails the
+ * call with a {@link NyrisTimeoutException}.
+ */
+public class TimeoutInterceptorTest {
+    private static final String BODY = "{\"results\":[]}";
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void intercept_shouldApplyTheEndpointReadTimeout() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setHeadersDelay(1, TimeUnit.SECONDS));
+        OkHttpClient client = client(
+                new TimeoutConfig(),
+                Collections.singletonMap(ApiEndpoint.SIMILARITY, new TimeoutConfig(100L))
+        );
+
+        try {
+            client.newCall(request(true)).execute();
+            fail("The read timeout of the endpoint should be applied");
+        } catch (SocketTimeoutException e) {
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void intercept_shouldApplyTheDefaultTimeoutsToOtherRequests() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        OkHttpClient client = client(
+                new TimeoutConfig(),
+                Collections.singletonMap(ApiEndpoint.SIMILARITY, new TimeoutConfig(100L))
+        );
+
+        try (Response response = client.newCall(request(false)).execute()) {
+            assertEquals(BODY, response.body().string());
+        }
+    }
+
+    @Test
+    public void intercept_shouldFailWithTimeoutWhenTheCallTimeoutElapses() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setHeadersDelay(2, TimeUnit.SECONDS));
+        OkHttpClient client = client(new TimeoutConfig(10_000L, 10_000L, 200L), Collections.emptyMap());
+
+        long start = System.nanoTime();
+        try {
+            client.newCall(request(true)).execute();
+            fail("The call timeout should fail the call");
+        } catch (NyrisTimeoutException e) {
+            assertEquals(200L, e.getTimeoutMillis());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000L);
+        }
+    }
+
+    @Test
+    public void intercept_shouldFailWithTimeoutWhileTheBodyIsRead() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(2, TimeUnit.SECONDS));
+        OkHttpClient client = client(new TimeoutConfig(10_000L, 10_000L, 200L), Collections.emptyMap());
+
+        try (Response response = client.newCall(request(true)).execute()) {
+            response.body().string();
+            fail("The call timeout should cover the body read");
+        } catch (NyrisTimeoutException e) {
+            assertEquals(200L, e.getTimeoutMillis());
+        }
+    }
+
+    private OkHttpClient client(TimeoutConfig timeouts, Map<ApiEndpoint, TimeoutConfig> endpointTimeouts) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new TimeoutInterceptor(timeouts, endpointTimeouts))
+                .build();
+    }
+
+    private Request request(boolean isSimilarity) throws NoSuchMethodException {
+        Request.Builder builder = new Request.Builder().url(server.url("/recommend/v1/sku"));
+        if (isSimilarity) {
+            Invocation invocation = Invocation.of(
+                    SimilarityService.class.getMethod("getBySku", String.class, Map.class),
+                    Collections.emptyList()
+            );
+            builder.tag(Invocation.class, invocation);
+        }
+        return builder.build();
+    }
+}